@@ -0,0 +1,207 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Binning} implementations and the methods 
+ * of the {@link Binnings} class
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinningBenchmark
+{
+    /**
+     * The number of elements
+     */
+    @Param({"1000", "100000", "1000000"})
+    private int elementCount;
+    
+    /**
+     * The number of bins
+     */
+    @Param({"10", "100", "1000"})
+    private int binCount;
+    
+    /**
+     * The distribution of the values
+     */
+    @Param({"UNIFORM", "GAUSSIAN", "SKEWED"})
+    private KeyDistribution distribution;
+    
+    /**
+     * The values
+     */
+    private List<Double> values;
+    
+    /**
+     * The categorical keys, with (at most) one distinct key for each bin
+     */
+    private List<Integer> keys;
+    
+    /**
+     * The binning for the values
+     */
+    private NumberBinning<Double> numberBinning;
+    
+    /**
+     * The binning for the keys
+     */
+    private Binning<Integer> generalBinning;
+    
+    /**
+     * The array that receives the bin of each value
+     */
+    private int elementBins[];
+    
+    /**
+     * Set up the data for the benchmarks
+     */
+    @Setup
+    public void setup()
+    {
+        values = distribution.createValues(elementCount);
+        Point2D range = 
+            Binnings.computeRange(values, null, null, Double::doubleValue);
+        numberBinning = Binnings.createSimpleNumberBinning(
+            Double::doubleValue, range, binCount);
+        keys = new ArrayList<Integer>(elementCount);
+        for (Double value : values)
+        {
+            keys.add(numberBinning.computeBin(value));
+        }
+        generalBinning = Binnings.createGeneralBinning(keys, k -> k);
+        elementBins = new int[elementCount];
+        checkConsistency();
+    }
+    
+    /**
+     * Check whether {@link NumberBinning#computeBins(Iterable, int[])},
+     * which uses the vectorized kernel if it is available, computes the
+     * same bins as {@link NumberBinning#computeBin(double)} for all 
+     * values and for the values at the limits of the bins
+     * 
+     * @throws IllegalStateException If the bins are not the same
+     */
+    private void checkConsistency()
+    {
+        String kernel = VectorBinningKernel.isAvailable() ? 
+            "vectorized" : "scalar";
+        if (!numberBinning.isConsistentAtBinLimits())
+        {
+            throw new IllegalStateException("The " + kernel 
+                + " bins are not consistent at the bin limits");
+        }
+        numberBinning.computeBins(values, elementBins);
+        for (int i = 0; i < elementCount; i++)
+        {
+            if (elementBins[i] != keys.get(i))
+            {
+                throw new IllegalStateException("The " + kernel 
+                    + " bin of value " + values.get(i) + " is " 
+                    + elementBins[i] + " instead of " + keys.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Benchmark for {@link NumberBinning#compute}
+     * 
+     * @return The bins
+     */
+    @Benchmark
+    public int[] numberBinningCompute()
+    {
+        return numberBinning.compute(values, true);
+    }
+    
+    /**
+     * Benchmark for {@link NumberBinning#computeBins(Iterable, int[])},
+     * which uses the vectorized kernel if it is available
+     * 
+     * @return The element bins
+     */
+    @Benchmark
+    public int[] numberBinningComputeBins()
+    {
+        numberBinning.computeBins(values, elementBins);
+        return elementBins;
+    }
+    
+    /**
+     * Benchmark for {@link GeneralBinning#compute}
+     * 
+     * @return The bins
+     */
+    @Benchmark
+    public int[] generalBinningCompute()
+    {
+        return generalBinning.compute(keys, true);
+    }
+    
+    /**
+     * Benchmark for {@link Binnings#computeRange}
+     * 
+     * @return The range
+     */
+    @Benchmark
+    public Point2D computeRange()
+    {
+        return Binnings.computeRange(values, null, null, Double::doubleValue);
+    }
+    
+    /**
+     * Benchmark for {@link Binnings#createGeneralBinning}
+     * 
+     * @return The binning
+     */
+    @Benchmark
+    public Binning<Integer> createGeneralBinning()
+    {
+        return Binnings.createGeneralBinning(keys, k -> k);
+    }
+}
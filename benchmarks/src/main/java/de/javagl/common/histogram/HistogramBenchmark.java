@@ -0,0 +1,202 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for updating and rendering a {@link NumberHistogram}. The
+ * benchmarks run in a headless JVM, and render the histogram component
+ * into an image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HistogramBenchmark
+{
+    /**
+     * The width of the rendered image
+     */
+    private static final int WIDTH = 800;
+    
+    /**
+     * The height of the rendered image
+     */
+    private static final int HEIGHT = 600;
+    
+    /**
+     * The number of elements
+     */
+    @Param({"1000", "100000", "1000000"})
+    private int elementCount;
+    
+    /**
+     * The number of bins
+     */
+    @Param({"10", "100"})
+    private int binCount;
+    
+    /**
+     * The distribution of the values
+     */
+    @Param({"UNIFORM", "GAUSSIAN", "SKEWED"})
+    private KeyDistribution distribution;
+    
+    /**
+     * The values
+     */
+    private List<Double> values;
+    
+    /**
+     * The histogram
+     */
+    private NumberHistogram<Double> histogram;
+    
+    /**
+     * The implementation of the {@link #histogram}
+     */
+    private JFreeChartHistogram<Double> implementation;
+    
+    /**
+     * Whether the next call to {@link #setBinCount()} should use one 
+     * more bin than the {@link #binCount}
+     */
+    private boolean toggle;
+    
+    /**
+     * The image that the histogram is rendered into
+     */
+    private BufferedImage image;
+    
+    /**
+     * The graphics of the {@link #image}
+     */
+    private Graphics2D graphics;
+    
+    /**
+     * Set up the data and the histogram for the benchmarks
+     */
+    @Setup
+    public void setup()
+    {
+        values = distribution.createValues(elementCount);
+        histogram = Histograms.createNumeric(values);
+        histogram.setBinCount(binCount);
+        implementation = Histograms.getImplementation(histogram);
+        implementation.setSize(WIDTH, HEIGHT);
+        layout(implementation);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+    
+    /**
+     * Dispose the graphics
+     */
+    @TearDown
+    public void tearDown()
+    {
+        graphics.dispose();
+    }
+    
+    /**
+     * Lay out the given component and all its children
+     * 
+     * @param component The component
+     */
+    private static void layout(Component component)
+    {
+        component.doLayout();
+        if (component instanceof Container)
+        {
+            for (Component child : ((Container) component).getComponents())
+            {
+                layout(child);
+            }
+        }
+    }
+    
+    /**
+     * Benchmark for {@link Histogram#setElements}, which assigns all
+     * elements to the bins and updates the chart data set
+     * 
+     * @return The element bins
+     */
+    @Benchmark
+    public int[] setElements()
+    {
+        histogram.setElements(values, null);
+        return implementation.getElementBins();
+    }
+    
+    /**
+     * Benchmark for {@link NumberHistogram#setBinCount}, alternating 
+     * between two bin counts, so that the bins have to be computed in 
+     * each call
+     * 
+     * @return The element bins
+     */
+    @Benchmark
+    public int[] setBinCount()
+    {
+        toggle = !toggle;
+        histogram.setBinCount(toggle ? binCount + 1 : binCount);
+        return implementation.getElementBins();
+    }
+    
+    /**
+     * Benchmark for rendering the histogram component into an image
+     * 
+     * @return The image
+     */
+    @Benchmark
+    public BufferedImage render()
+    {
+        implementation.paint(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The distributions of the values that are used in the benchmarks
+ */
+public enum KeyDistribution
+{
+    /**
+     * Values that are uniformly distributed in [0,1)
+     */
+    UNIFORM,
+    
+    /**
+     * Values that are normally distributed, with mean 0 and standard 
+     * deviation 1
+     */
+    GAUSSIAN,
+    
+    /**
+     * Values that are exponentially distributed, with a long tail of
+     * large values
+     */
+    SKEWED;
+    
+    /**
+     * Create a list with the given number of values of this distribution.
+     * The values are created deterministically, from a fixed seed.
+     * 
+     * @param count The number of values
+     * @return The values
+     */
+    List<Double> createValues(int count)
+    {
+        Random random = new Random(0);
+        List<Double> values = new ArrayList<Double>(count);
+        for (int i = 0; i < count; i++)
+        {
+            values.add(createValue(random));
+        }
+        return values;
+    }
+    
+    /**
+     * Create a single value of this distribution
+     * 
+     * @param random The random number generator
+     * @return The value
+     */
+    private double createValue(Random random)
+    {
+        switch (this)
+        {
+            case GAUSSIAN:
+                return random.nextGaussian();
+            case SKEWED:
+                return -Math.log(1.0 - random.nextDouble());
+            default:
+                return random.nextDouble();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * A histogram with a fixed number of fine bins of equal width, which is 
+ * computed in a single pass over values whose range is not known in 
+ * advance. Whenever a value is outside of the current range of the bins, 
+ * the width of the bins is doubled, by merging pairs of adjacent bins, 
+ * until the range contains the value.
+ */
+final class AdaptiveHistogram
+{
+    /**
+     * The number of bins
+     */
+    static final int BIN_COUNT = 1024;
+    
+    /**
+     * The number of elements in each bin
+     */
+    private final long counts[];
+    
+    /**
+     * The start of the first bin
+     */
+    private double start;
+    
+    /**
+     * The width of each bin. This is zero as long as all values that
+     * have been added are equal.
+     */
+    private double width;
+    
+    /**
+     * The number of values that have been added
+     */
+    private long count;
+    
+    /**
+     * Creates a new, empty instance
+     */
+    AdaptiveHistogram()
+    {
+        this.counts = new long[BIN_COUNT];
+        this.start = 0.0;
+        this.width = 0.0;
+        this.count = 0;
+    }
+    
+    /**
+     * Add the given value. Values that are not finite are ignored.
+     * 
+     * @param value The value
+     */
+    void add(double value)
+    {
+        if (!Double.isFinite(value))
+        {
+            return;
+        }
+        if (count == 0)
+        {
+            start = value;
+        }
+        else if (width == 0.0 && value != start)
+        {
+            initializeWidth(value);
+        }
+        count++;
+        if (width == 0.0)
+        {
+            counts[0]++;
+            return;
+        }
+        while (true)
+        {
+            double index = Math.floor((value - start) / width);
+            if (index < 0)
+            {
+                growDown();
+            }
+            else if (index >= BIN_COUNT)
+            {
+                growUp();
+            }
+            else
+            {
+                counts[(int) index]++;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Initialize the width of the bins, when the given value is the first
+     * one that differs from the previous values, which are all equal to
+     * the {@link #start} and contained in the first bin. The width is 
+     * chosen so that the given value is in the middle bin.
+     * 
+     * @param value The value
+     */
+    private void initializeWidth(double value)
+    {
+        int half = BIN_COUNT / 2;
+        width = Math.abs(value - start) / half;
+        if (value < start)
+        {
+            counts[half] = counts[0];
+            counts[0] = 0;
+            start -= half * width;
+        }
+    }
+    
+    /**
+     * Double the width of the bins, keeping the start of the first bin
+     */
+    private void growUp()
+    {
+        int half = BIN_COUNT / 2;
+        for (int i = 0; i < half; i++)
+        {
+            counts[i] = counts[i + i] + counts[i + i + 1];
+        }
+        for (int i = half; i < BIN_COUNT; i++)
+        {
+            counts[i] = 0;
+        }
+        width *= 2.0;
+    }
+    
+    /**
+     * Double the width of the bins, keeping the end of the last bin
+     */
+    private void growDown()
+    {
+        int half = BIN_COUNT / 2;
+        for (int i = BIN_COUNT - 1; i >= half; i--)
+        {
+            int j = (i - half) * 2;
+            counts[i] = counts[j] + counts[j + 1];
+        }
+        for (int i = 0; i < half; i++)
+        {
+            counts[i] = 0;
+        }
+        start -= BIN_COUNT * width;
+        width *= 2.0;
+    }
+    
+    /**
+     * Computes the bin width that minimizes the cost function of 
+     * Shimazaki and Shinomoto. The candidate widths are all multiples 
+     * of the width of the fine bins, up to the width where only two
+     * bins cover the occupied range. Returns <code>NaN</code> if fewer 
+     * than two distinct values have been added.
+     * 
+     * @return The optimal bin width
+     */
+    double computeOptimalBinWidth()
+    {
+        if (width == 0.0)
+        {
+            return Double.NaN;
+        }
+        int first = 0;
+        while (counts[first] == 0)
+        {
+            first++;
+        }
+        int last = BIN_COUNT - 1;
+        while (counts[last] == 0)
+        {
+            last--;
+        }
+        int span = last - first + 1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestK = 1;
+        int maxK = Math.max(1, (span + 1) / 2);
+        for (int k = 1; k <= maxK; k++)
+        {
+            int m = (span + k - 1) / k;
+            double mean = (double) count / m;
+            double sumSquares = 0.0;
+            for (int b = 0; b < m; b++)
+            {
+                int from = first + b * k;
+                int to = Math.min(from + k, last + 1);
+                long c = 0;
+                for (int i = from; i < to; i++)
+                {
+                    c += counts[i];
+                }
+                double d = c - mean;
+                sumSquares += d * d;
+            }
+            double variance = sumSquares / m;
+            double delta = k * width;
+            double cost = (2.0 * mean - variance) / (delta * delta);
+            if (cost < bestCost)
+            {
+                bestCost = cost;
+                bestK = k;
+            }
+        }
+        return bestK * width;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * An enumeration of rules for computing the initial number of bins of 
+ * a {@link NumberHistogram} from the distribution of the values. The 
+ * statistics that are required by these rules are computed in the same 
+ * pass over the elements as the range of the values. When a rule can 
+ * not be applied (for example, because all values are equal), then
+ * {@link #STURGES} is used instead.
+ */
+public enum BinCountRule
+{
+    /**
+     * Sturges' rule. The number of bins is <code>log2(n) + 1</code>, 
+     * rounded up, for <code>n</code> values. This only depends on the 
+     * number of values, and gives few bins for large numbers of values.
+     * This is the default.
+     */
+    STURGES
+    {
+        @Override
+        int computeBinCount(ValueStatistics statistics, double range)
+        {
+            return sturges(statistics.getCount());
+        }
+    },
+    
+    /**
+     * Scott's rule. The bin width is 
+     * <code>3.49 * s / cbrt(n)</code>, where <code>s</code> is the 
+     * standard deviation of <code>n</code> values. This is appropriate 
+     * for values that are roughly normally distributed.
+     */
+    SCOTT
+    {
+        @Override
+        int computeBinCount(ValueStatistics statistics, double range)
+        {
+            long n = statistics.getFiniteCount();
+            double width = 3.49 * statistics.getStandardDeviation() 
+                / Math.cbrt(n);
+            return fromWidth(width, range, statistics.getCount());
+        }
+    },
+    
+    /**
+     * The Freedman-Diaconis rule. The bin width is 
+     * <code>2 * IQR / cbrt(n)</code>, where <code>IQR</code> is the 
+     * interquartile range of <code>n</code> values. This is robust 
+     * against outliers. The interquartile range is estimated with a 
+     * streaming quantile sketch.
+     */
+    FREEDMAN_DIACONIS
+    {
+        @Override
+        int computeBinCount(ValueStatistics statistics, double range)
+        {
+            long n = statistics.getFiniteCount();
+            double width = 2.0 * statistics.getInterquartileRange() 
+                / Math.cbrt(n);
+            return fromWidth(width, range, statistics.getCount());
+        }
+    },
+    
+    /**
+     * The rule by Shimazaki and Shinomoto. The bin width is the one that
+     * minimizes an estimate of the error between the histogram and the 
+     * underlying density. The cost function is evaluated for bin widths
+     * that are multiples of the width of a fine histogram with about a
+     * thousand bins, which is computed in a single pass.
+     */
+    SHIMAZAKI_SHINOMOTO
+    {
+        @Override
+        int computeBinCount(ValueStatistics statistics, double range)
+        {
+            double width = 
+                statistics.getFineHistogram().computeOptimalBinWidth();
+            return fromWidth(width, range, statistics.getCount());
+        }
+    };
+    
+    /**
+     * The maximum number of bins that is returned by any rule
+     */
+    static final int MAX_BIN_COUNT = 100000;
+    
+    /**
+     * Compute the number of bins for the given statistics
+     * 
+     * @param statistics The {@link ValueStatistics}
+     * @param range The width of the range that is covered by the bins
+     * @return The number of bins
+     */
+    abstract int computeBinCount(ValueStatistics statistics, double range);
+    
+    /**
+     * Returns whether this rule requires the quartiles and the fine 
+     * histogram of the {@link ValueStatistics}
+     * 
+     * @return Whether the distribution is required
+     */
+    boolean requiresDistribution()
+    {
+        return this == FREEDMAN_DIACONIS || this == SHIMAZAKI_SHINOMOTO;
+    }
+    
+    /**
+     * Computes the number of bins for the given number of values with
+     * Sturges' rule. This is 1 if there are at most one value.
+     * 
+     * @param n The number of values
+     * @return The number of bins
+     */
+    static int sturges(long n)
+    {
+        if (n <= 1)
+        {
+            return 1;
+        }
+        double log2 = Math.log(n) / Math.log(2);
+        return (int) Math.ceil(log2) + 1;
+    }
+    
+    /**
+     * Computes the number of bins with the given width that cover the
+     * given range. If the width or the range are not positive and 
+     * finite, then the result of {@link #sturges(long)} will be returned.
+     * 
+     * @param width The bin width
+     * @param range The range
+     * @param n The number of values
+     * @return The number of bins
+     */
+    private static int fromWidth(double width, double range, long n)
+    {
+        if (!(width > 0.0) || !(range > 0.0) || 
+            !Double.isFinite(width) || !Double.isFinite(range))
+        {
+            return sturges(n);
+        }
+        double binCount = Math.ceil(range / width);
+        return (int) Math.max(1, Math.min(MAX_BIN_COUNT, binCount));
+    }
+}
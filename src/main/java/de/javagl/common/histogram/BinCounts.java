@@ -0,0 +1,235 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.geom.Point2D;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Implementation of {@link HistogramData} that stores the number of 
+ * elements and of highlighted elements in each bin in arrays. This is
+ * what is needed for rendering a histogram, without referring to the
+ * elements.
+ */
+final class BinCounts implements HistogramData
+{
+    /**
+     * The number of elements in each bin
+     */
+    private final int bins[];
+    
+    /**
+     * The number of highlighted elements in each bin
+     */
+    private final int highlightedBins[];
+    
+    /**
+     * The function that provides the label for each bin
+     */
+    private final IntFunction<String> binLabelFunction;
+    
+    /**
+     * Creates a new instance. References to the given arrays will be 
+     * stored, so they may not be modified after this instance has been 
+     * created.
+     * 
+     * @param bins The number of elements in each bin
+     * @param highlightedBins The number of highlighted elements in each bin
+     * @param binLabelFunction The function that provides the bin labels
+     * @throws IllegalArgumentException If the arrays have different lengths
+     */
+    BinCounts(int bins[], int highlightedBins[], 
+        IntFunction<String> binLabelFunction)
+    {
+        this.bins = Objects.requireNonNull(
+            bins, "The bins may not be null");
+        this.highlightedBins = Objects.requireNonNull(
+            highlightedBins, "The highlightedBins may not be null");
+        this.binLabelFunction = Objects.requireNonNull(
+            binLabelFunction, "The binLabelFunction may not be null");
+        if (bins.length != highlightedBins.length)
+        {
+            throw new IllegalArgumentException("There are " + bins.length 
+                + " bins, but " + highlightedBins.length 
+                + " highlighted bins");
+        }
+    }
+    
+    /**
+     * Compute the bin counts of the given elements and highlighted 
+     * elements, for a numeric binning with the number of bins that is
+     * determined by the given rule
+     * 
+     * @param <T> The element type
+     * @param <K> The key type
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements. If this is
+     * <code>null</code>, then the empty collection will be used.
+     * @param keyExtractor The key extractor
+     * @param binCountRule The {@link BinCountRule}
+     * @return The {@link BinCounts}
+     */
+    static <T, K extends Number> BinCounts computeNumeric(
+        Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements,
+        Function<? super T, ? extends K> keyExtractor, 
+        BinCountRule binCountRule)
+    {
+        ToDoubleFunction<T> valueExtractor = 
+            t -> keyExtractor.apply(t).doubleValue();
+        ValueStatistics statistics = ValueStatistics.compute(
+            elements, valueExtractor, binCountRule.requiresDistribution());
+        Point2D range = 
+            Binnings.computeRange(statistics, null, null, valueExtractor);
+        int binCount = binCountRule.computeBinCount(
+            statistics, range.getY() - range.getX());
+        if (Binnings.isEmpty(range))
+        {
+            binCount = 1;
+        }
+        NumberBinning<T> binning = Binnings.createSimpleNumberBinning(
+            valueExtractor, range, binCount);
+        IntFunction<String> binLabelFunction = 
+            Histograms.defaultBinLabelFunctionProvider().apply(binning);
+        return compute(binning, binLabelFunction, 
+            elements, highlightedElements);
+    }
+    
+    /**
+     * Compute the bin counts of the given elements and highlighted 
+     * elements, with one bin for each distinct key, in the order in 
+     * which the keys first appear in the elements
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements. If this is
+     * <code>null</code>, then the empty collection will be used.
+     * @param keyExtractor The key extractor
+     * @return The {@link BinCounts}
+     */
+    static <T> BinCounts computeCategorical(
+        Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements,
+        Function<? super T, ?> keyExtractor)
+    {
+        DictionaryEncoding encoding = 
+            DictionaryEncoding.create(elements, keyExtractor);
+        KeyIndexMap keyIndices = encoding.getKeyIndices();
+        String binLabels[] = new String[keyIndices.size()];
+        for (int i = 0; i < binLabels.length; i++)
+        {
+            binLabels[i] = String.valueOf(keyIndices.getKey(i));
+        }
+        Binning<T> binning = new GeneralBinning<T>(keyExtractor, keyIndices);
+        return new BinCounts(encoding.getCounts(), 
+            computeHighlightedBins(binning, highlightedElements), 
+            bin -> binLabels[bin]);
+    }
+    
+    /**
+     * Compute the bin counts of the given elements and highlighted 
+     * elements with the given binning
+     * 
+     * @param <T> The element type
+     * 
+     * @param binning The binning
+     * @param binLabelFunction The function that provides the bin labels
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements. If this is
+     * <code>null</code>, then the empty collection will be used.
+     * @return The {@link BinCounts}
+     */
+    static <T> BinCounts compute(Binning<T> binning, 
+        IntFunction<String> binLabelFunction,
+        Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements)
+    {
+        boolean ignoreInvalid = true;
+        int bins[] = binning.compute(elements, ignoreInvalid);
+        return new BinCounts(bins, 
+            computeHighlightedBins(binning, highlightedElements), 
+            binLabelFunction);
+    }
+    
+    /**
+     * Compute the number of highlighted elements in each bin
+     * 
+     * @param <T> The element type
+     * 
+     * @param binning The binning
+     * @param highlightedElements The highlighted elements. If this is
+     * <code>null</code>, then the empty collection will be used.
+     * @return The highlighted bins
+     */
+    private static <T> int[] computeHighlightedBins(Binning<T> binning, 
+        Collection<? extends T> highlightedElements)
+    {
+        boolean ignoreInvalid = true;
+        if (highlightedElements == null)
+        {
+            return binning.compute(Collections.emptyList(), ignoreInvalid);
+        }
+        return binning.compute(highlightedElements, ignoreInvalid);
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return bins.length;
+    }
+    
+    @Override
+    public int getCount(int bin)
+    {
+        return bins[bin];
+    }
+    
+    @Override
+    public int getHighlightedCount(int bin)
+    {
+        return highlightedBins[bin];
+    }
+    
+    @Override
+    public String getBinLabel(int bin)
+    {
+        if (bin < 0 || bin >= bins.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Bin index " + bin + " is not valid for " + bins.length 
+                + " bins");
+        }
+        return binLabelFunction.apply(bin);
+    }
+}
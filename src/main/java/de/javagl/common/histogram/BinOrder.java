@@ -0,0 +1,62 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * An enumeration of the orders in which the bins of a {@link Histogram}
+ * may be shown
+ */
+public enum BinOrder
+{
+    /**
+     * The bins are shown in the order of their indices. For numeric 
+     * histograms, this is the order of the values. For categorical 
+     * histograms, this is the order in which the keys first appeared 
+     * in the elements. This is the default.
+     */
+    INDEX,
+    
+    /**
+     * The bins are shown in descending order of the number of elements 
+     * that they contain, or of the total weight of these elements, for
+     * histograms that have a weight function
+     */
+    DESCENDING_COUNT,
+    
+    /**
+     * The bins are shown in ascending order of the number of elements 
+     * that they contain, or of the total weight of these elements, for
+     * histograms that have a weight function
+     */
+    ASCENDING_COUNT,
+    
+    /**
+     * The bins are shown in the order of their keys. For numeric 
+     * histograms, this is the same as {@link #INDEX}.
+     */
+    KEY
+}
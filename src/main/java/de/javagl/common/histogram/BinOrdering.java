@@ -0,0 +1,211 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+
+/**
+ * A permutation of bin indices that establishes a certain {@link BinOrder}.
+ * <br>
+ * <br>
+ * The permutation is only sorted as far as it is required: When the bins
+ * at certain positions are requested, then a partial selection is used 
+ * to move the smallest remaining entries to the front, and only these
+ * are sorted. This way, showing the first bins of a large number of bins 
+ * does not require sorting all bins.
+ */
+final class BinOrdering
+{
+    /**
+     * The sort keys. The upper 32 bits of each entry contain the value 
+     * that the bins are sorted by, and the lower 32 bits contain the 
+     * bin index. This way, all sort keys are distinct, and bins with
+     * equal values are ordered by their index.
+     */
+    private final long sortKeys[];
+    
+    /**
+     * The number of sort keys at the beginning of the {@link #sortKeys}
+     * that are already sorted, and will not change any more
+     */
+    private int sortedCount;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param binOrder The {@link BinOrder}
+     * @param counts The number of elements in each bin
+     * @param weights The optional total weight of the elements in each 
+     * bin. If this is not <code>null</code>, then the bins will be 
+     * ordered by their weights instead of their counts. The weights are
+     * compared with <code>float</code> precision.
+     * @param keyRanks The rank of each bin in the order of the keys.
+     * If this is <code>null</code>, then the bin indices will be used.
+     */
+    BinOrdering(BinOrder binOrder, int counts[], double weights[], 
+        int keyRanks[])
+    {
+        int n = counts.length;
+        this.sortKeys = new long[n];
+        for (int bin = 0; bin < n; bin++)
+        {
+            long value;
+            switch (binOrder)
+            {
+                case DESCENDING_COUNT:
+                    if (weights != null)
+                    {
+                        value = ~sortableBits(weights[bin]);
+                    }
+                    else
+                    {
+                        value = Integer.MAX_VALUE - counts[bin];
+                    }
+                    break;
+                case ASCENDING_COUNT:
+                    if (weights != null)
+                    {
+                        value = sortableBits(weights[bin]);
+                    }
+                    else
+                    {
+                        value = counts[bin];
+                    }
+                    break;
+                case KEY:
+                    value = keyRanks == null ? bin : keyRanks[bin];
+                    break;
+                default:
+                    value = bin;
+                    break;
+            }
+            sortKeys[bin] = (value << 32) | bin;
+        }
+        this.sortedCount = 0;
+    }
+    
+    /**
+     * Returns an <code>int</code> value for the given value, converted to
+     * <code>float</code>, whose signed integer order is the same as the
+     * numeric order of the <code>float</code> values
+     * 
+     * @param value The value
+     * @return The sortable bits
+     */
+    private static int sortableBits(double value)
+    {
+        int bits = Float.floatToIntBits((float) value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+    
+    /**
+     * Returns the index of the bin that is at the given position
+     * 
+     * @param position The position
+     * @return The bin index
+     * @throws IndexOutOfBoundsException If the position is negative or
+     * not smaller than the number of bins
+     */
+    int getBin(int position)
+    {
+        ensureSorted(position + 1);
+        return (int) sortKeys[position];
+    }
+    
+    /**
+     * Make sure that (at least) the given number of positions at the 
+     * beginning of the permutation are sorted
+     * 
+     * @param count The number of positions
+     */
+    void ensureSorted(int count)
+    {
+        if (count <= sortedCount)
+        {
+            return;
+        }
+        int n = sortKeys.length;
+        int newSortedCount = Math.min(n, Math.max(count, sortedCount * 2));
+        select(sortKeys, sortedCount, n, newSortedCount - 1);
+        Arrays.sort(sortKeys, sortedCount, newSortedCount);
+        sortedCount = newSortedCount;
+    }
+    
+    /**
+     * Rearrange the given range of the given array so that the entry at 
+     * position <code>k</code> is the entry that would be at this position 
+     * if the range was sorted, all entries before it are smaller, and 
+     * all entries after it are larger. The entries must be distinct.
+     * 
+     * @param a The array
+     * @param fromIndex The start of the range, inclusive
+     * @param toIndex The end of the range, exclusive
+     * @param k The position
+     */
+    private static void select(long a[], int fromIndex, int toIndex, int k)
+    {
+        int lo = fromIndex;
+        int hi = toIndex - 1;
+        while (lo < hi)
+        {
+            long pivot = a[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j)
+            {
+                while (a[i] < pivot)
+                {
+                    i++;
+                }
+                while (a[j] > pivot)
+                {
+                    j--;
+                }
+                if (i <= j)
+                {
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+            {
+                hi = j;
+            }
+            else if (k >= i)
+            {
+                lo = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+}
@@ -27,20 +27,28 @@
 package de.javagl.common.histogram;
 
 import java.awt.geom.Point2D;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
+import java.util.function.ToLongFunction;
 
 /**
  * Methods to create {@link Binning} instances
  */
 class Binnings
 {
+    /**
+     * The maximum number of bins for a {@link CalendarBinning}
+     */
+    static final int MAX_CALENDAR_BIN_COUNT = 1 << 20;
+    
     /**
      * Compute a simple numerical {@link Binning} for the given elements.
      * 
@@ -56,17 +64,31 @@ class Binnings
         Collection<? extends T> elements, 
         Function<? super T, ? extends K> keyExtractor, 
         int binCount, T min, T max)
+    {
+        ToDoubleFunction<T> valueExtractor = 
+            t -> keyExtractor.apply(t).doubleValue();
+        Point2D range = computeRange(elements, min, max, valueExtractor);
+        return createSimpleNumberBinning(valueExtractor, range, binCount);
+    }
+    
+    /**
+     * Create a simple numerical {@link Binning} for the given range
+     * 
+     * @param valueExtractor The value extractor
+     * @param range The range
+     * @param binCount The number of bins
+     * @return The {@link Binning}
+     * @throws IllegalArgumentException If the bin count is not positive
+     */
+    static <T> NumberBinning<T> createSimpleNumberBinning(
+        ToDoubleFunction<? super T> valueExtractor, Point2D range, 
+        int binCount)
     {
         if (binCount <= 0)
         {
             throw new IllegalArgumentException(
                 "The binCount must be positive, but is " + binCount);
         }
-        
-        ToDoubleFunction<T> valueExtractor = 
-            t -> keyExtractor.apply(t).doubleValue();
-        Point2D range = computeRange(elements, min, max, valueExtractor);
-        
         NumberBinning<T> numberBinning = new NumberBinning<T>(
             valueExtractor, range.getX(), range.getY(), binCount);
         return numberBinning;
@@ -127,6 +149,60 @@ class Binnings
                 .max()
                 .getAsDouble();
         }
+        return createRange(actualMin, actualMax);
+    }
+    
+    /**
+     * Compute the range of the values, based on the given statistics. 
+     * If the given minimum and maximum are not <code>null</code>, they 
+     * will be used to determine the range. Otherwise, the minimum and
+     * maximum of the given statistics will be used. If there have been
+     * no values that are not <code>NaN</code>, and no minimum or maximum 
+     * have been given, then an unspecified best-effort approach will be 
+     * made to return a reasonable range.
+     * 
+     * @param statistics The {@link ValueStatistics}
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param valueExtractor The value extractor
+     * @return The range
+     */
+    static <T> Point2D computeRange(ValueStatistics statistics, 
+        T min, T max, ToDoubleFunction<T> valueExtractor)
+    {
+        Double actualMin = null;
+        Double actualMax = null;
+        if (min != null)
+        {
+            actualMin = valueExtractor.applyAsDouble(min);
+        }
+        else if (statistics.getMin() <= statistics.getMax())
+        {
+            actualMin = statistics.getMin();
+        }
+        if (max != null)
+        {
+            actualMax = valueExtractor.applyAsDouble(max);
+        }
+        else if (statistics.getMin() <= statistics.getMax())
+        {
+            actualMax = statistics.getMax();
+        }
+        return createRange(actualMin, actualMax);
+    }
+    
+    /**
+     * Create the range from the given minimum and maximum. If only one
+     * of them is <code>null</code>, then it will be replaced by a value
+     * that is 1.0 smaller or larger than the other one. If both are
+     * <code>null</code>, then the range will be [0,1].
+     * 
+     * @param actualMin The optional minimum
+     * @param actualMax The optional maximum
+     * @return The range
+     */
+    private static Point2D createRange(Double actualMin, Double actualMax)
+    {
         if (actualMin != null)
         {
             if (actualMax == null)
@@ -166,23 +242,109 @@ class Binnings
         Collection<? extends T> elements, 
         Function<? super T, ? extends K> keyExtractor)
     {
-        Map<Object, Integer> bins = new LinkedHashMap<Object, Integer>();
-        int index = 0;
-        
-        Set<K> keySet = elements.stream()
-            .map(keyExtractor)
-            .collect(Collectors.toCollection(LinkedHashSet::new));
-        Map<K, Integer> keyIndices = new LinkedHashMap<K, Integer>();
-        for (K key : keySet)
-        {
-            bins.put(key, index);
-            keyIndices.put(key, index);
-            index++;
-        }
-        return new GeneralBinning<T>(bins.size(), 
-            keyExtractor.andThen(k -> keyIndices.get(k)));
+        KeyIndexMap keyIndices = new KeyIndexMap();
+        for (T element : elements)
+        {
+            keyIndices.add(keyExtractor.apply(element));
+        }
+        return new GeneralBinning<T>(keyExtractor, keyIndices);
     }
  
+    /**
+     * Compute a {@link CalendarBinning} for the given elements. The bins
+     * will be the periods of the given unit, aligned to the calendar in 
+     * the given time zone, that cover the range of the timestamps that 
+     * are extracted from the given elements. Weeks start on Monday.
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor, providing milliseconds 
+     * since the epoch
+     * @param unit The unit. This must be one of <code>MINUTES</code>, 
+     * <code>HOURS</code>, <code>DAYS</code>, <code>WEEKS</code>, 
+     * <code>MONTHS</code> or <code>YEARS</code>.
+     * @param zone The time zone
+     * @return The {@link CalendarBinning}
+     * @throws IllegalArgumentException If the unit is not supported, or
+     * the range of the timestamps would require more than 
+     * {@link #MAX_CALENDAR_BIN_COUNT} bins
+     */
+    static <T> CalendarBinning<T> createCalendarBinning(
+        Collection<? extends T> elements, 
+        ToLongFunction<? super T> keyExtractor, 
+        ChronoUnit unit, ZoneId zone)
+    {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (T element : elements)
+        {
+            long value = keyExtractor.applyAsLong(element);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (elements.isEmpty())
+        {
+            min = 0;
+            max = 0;
+        }
+        ZonedDateTime start = 
+            truncate(Instant.ofEpochMilli(min).atZone(zone), unit);
+        long boundaries[] = new long[16];
+        boundaries[0] = start.toInstant().toEpochMilli();
+        int count = 1;
+        ZonedDateTime current = start;
+        while (boundaries[count - 1] <= max)
+        {
+            if (count > MAX_CALENDAR_BIN_COUNT)
+            {
+                throw new IllegalArgumentException(
+                    "The range of the timestamps would require more than "
+                    + MAX_CALENDAR_BIN_COUNT + " bins of " + unit);
+            }
+            current = current.plus(1, unit);
+            if (count == boundaries.length)
+            {
+                boundaries = Arrays.copyOf(boundaries, count * 2);
+            }
+            boundaries[count] = current.toInstant().toEpochMilli();
+            count++;
+        }
+        return new CalendarBinning<T>(keyExtractor, 
+            Arrays.copyOf(boundaries, count));
+    }
+    
+    /**
+     * Truncate the given date-time to the start of the period of the 
+     * given unit that contains it
+     * 
+     * @param dateTime The date-time
+     * @param unit The unit
+     * @return The truncated date-time
+     * @throws IllegalArgumentException If the unit is not supported
+     */
+    private static ZonedDateTime truncate(
+        ZonedDateTime dateTime, ChronoUnit unit)
+    {
+        switch (unit)
+        {
+            case MINUTES:
+            case HOURS:
+            case DAYS:
+                return dateTime.truncatedTo(unit);
+            case WEEKS:
+                return dateTime.truncatedTo(ChronoUnit.DAYS).with(
+                    TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS:
+                return dateTime.truncatedTo(ChronoUnit.DAYS)
+                    .withDayOfMonth(1);
+            case YEARS:
+                return dateTime.truncatedTo(ChronoUnit.DAYS)
+                    .withDayOfYear(1);
+            default:
+                throw new IllegalArgumentException(
+                    "The unit is not supported: " + unit);
+        }
+    }
+    
     /**
      * Private constructor to prevent instantiation
      */
@@ -0,0 +1,201 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementation of a {@link Binning} for timestamps, given as 
+ * milliseconds since the epoch, where the bins are calendar periods 
+ * like hours, days or months.<br>
+ * <br>
+ * The start of each bin is stored as a <code>long</code> value. When all 
+ * bins have the same duration, then the bin of a timestamp is computed 
+ * with an integer division. Otherwise (for example, for months, or for 
+ * days in a time zone with daylight saving time), it is computed with 
+ * a binary search in the bin boundaries.
+ * 
+ * @param <T> The element type
+ */
+class CalendarBinning<T> implements Binning<T>
+{
+    /**
+     * The key extractor, providing milliseconds since the epoch
+     */
+    private final ToLongFunction<? super T> keyExtractor;
+    
+    /**
+     * The boundaries of the bins. This contains the start of each bin,
+     * inclusive, and the end of the last bin, exclusive.
+     */
+    private final long boundaries[];
+    
+    /**
+     * The duration of each bin, if all bins have the same duration, 
+     * or 0 otherwise
+     */
+    private final long uniformDuration;
+    
+    /**
+     * Creates a new instance. A copy of the given array will be stored.
+     * 
+     * @param keyExtractor The key extractor, providing milliseconds 
+     * since the epoch
+     * @param boundaries The boundaries of the bins. This must contain
+     * the start of each bin, inclusive, and the end of the last bin,
+     * exclusive, in strictly ascending order.
+     * @throws IllegalArgumentException If the boundaries contain fewer
+     * than two elements
+     */
+    CalendarBinning(ToLongFunction<? super T> keyExtractor, 
+        long boundaries[])
+    {
+        this.keyExtractor = Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        if (boundaries.length < 2)
+        {
+            throw new IllegalArgumentException(
+                "The boundaries must contain at least 2 elements, but "
+                + "contain " + boundaries.length);
+        }
+        this.boundaries = boundaries.clone();
+        this.uniformDuration = computeUniformDuration(boundaries);
+    }
+    
+    /**
+     * Computes the duration of the bins that are defined by the given 
+     * boundaries, if all bins have the same duration, or returns 0 
+     * otherwise
+     * 
+     * @param boundaries The boundaries
+     * @return The uniform duration
+     */
+    private static long computeUniformDuration(long boundaries[])
+    {
+        long duration = boundaries[1] - boundaries[0];
+        for (int i = 2; i < boundaries.length; i++)
+        {
+            if (boundaries[i] - boundaries[i - 1] != duration)
+            {
+                return 0;
+            }
+        }
+        return duration;
+    }
+    
+    /**
+     * Returns the start of the bin with the given index, inclusive, in
+     * milliseconds since the epoch
+     * 
+     * @param bin The bin index
+     * @return The start of the bin
+     */
+    long getBinStart(int bin)
+    {
+        return boundaries[bin];
+    }
+    
+    /**
+     * Returns the end of the bin with the given index, exclusive, in
+     * milliseconds since the epoch
+     * 
+     * @param bin The bin index
+     * @return The end of the bin
+     */
+    long getBinEnd(int bin)
+    {
+        return boundaries[bin + 1];
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return boundaries.length - 1;
+    }
+
+    @Override
+    public int computeBin(T object)
+    {
+        long value = keyExtractor.applyAsLong(object);
+        return computeBin(value);
+    }
+    
+    /**
+     * Computes the index of the bin that the given value belongs to, or
+     * -1 if the value is not contained in any bin
+     * 
+     * @param value The value, in milliseconds since the epoch
+     * @return The bin index
+     */
+    int computeBin(long value)
+    {
+        long start = boundaries[0];
+        if (value < start || value >= boundaries[boundaries.length - 1])
+        {
+            return -1;
+        }
+        if (uniformDuration > 0)
+        {
+            return (int) ((value - start) / uniformDuration);
+        }
+        int index = Arrays.binarySearch(boundaries, value);
+        if (index >= 0)
+        {
+            return index;
+        }
+        return -index - 2;
+    }
+    
+    @Override
+    public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
+    {
+        int bins[] = new int[getBinCount()];
+        if (objects != null)
+        {
+            for (T object : objects)
+            {
+                int bin = computeBin(object);
+                if (bin < 0)
+                {
+                    if (!ignoreInvalid)
+                    {
+                        throw new IllegalArgumentException("The object "
+                            + object + " was not part of the binning");
+                    }
+                }
+                else
+                {
+                    bins[bin]++;
+                }
+            }
+        }
+        return bins;
+    }
+    
+}
@@ -0,0 +1,105 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * A fixed number of sums of <code>double</code> values that are computed 
+ * with compensated (Kahan-Babuska-Neumaier) summation. This way, the 
+ * rounding errors do not grow with the number of values that are added, 
+ * which is important when many small weights are added to large sums.
+ */
+final class CompensatedSums
+{
+    /**
+     * The uncompensated sums
+     */
+    private final double sums[];
+    
+    /**
+     * The compensations for the rounding errors of the {@link #sums}
+     */
+    private final double compensations[];
+    
+    /**
+     * Creates a new instance with the given number of sums, which are
+     * all initially zero
+     * 
+     * @param size The number of sums
+     */
+    CompensatedSums(int size)
+    {
+        this.sums = new double[size];
+        this.compensations = new double[size];
+    }
+    
+    /**
+     * Add the given value to the sum with the given index
+     * 
+     * @param index The index
+     * @param value The value
+     */
+    void add(int index, double value)
+    {
+        double sum = sums[index];
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value))
+        {
+            compensations[index] += (sum - t) + value;
+        }
+        else
+        {
+            compensations[index] += (value - t) + sum;
+        }
+        sums[index] = t;
+    }
+    
+    /**
+     * Returns the compensated sum with the given index
+     * 
+     * @param index The index
+     * @return The sum
+     */
+    double getSum(int index)
+    {
+        return sums[index] + compensations[index];
+    }
+    
+    /**
+     * Returns a new array containing the compensated sums
+     * 
+     * @return The sums
+     */
+    double[] getSums()
+    {
+        double result[] = new double[sums.length];
+        for (int i = 0; i < sums.length; i++)
+        {
+            result[i] = sums[i] + compensations[i];
+        }
+        return result;
+    }
+}
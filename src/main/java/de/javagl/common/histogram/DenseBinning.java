@@ -0,0 +1,155 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Implementation of a {@link Binning} for small, dense ranges of integer 
+ * keys. The bin index of each object is its key minus an offset, so that
+ * no hashing and no floating point computations are required. Keys that
+ * are not <code>Integer</code>, <code>Short</code> or <code>Byte</code>
+ * values, or that are outside of the range of the bins, do not belong
+ * to any bin.
+ * 
+ * @param <T> The type of the elements
+ */
+class DenseBinning<T> implements Binning<T>
+{
+    /**
+     * The function that provides the keys for the objects
+     */
+    private final Function<? super T, ?> keyExtractor;
+    
+    /**
+     * The key of the first bin
+     */
+    private final int offset;
+    
+    /**
+     * The bin count
+     */
+    private final int binCount;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param keyExtractor The key extractor
+     * @param offset The key of the first bin
+     * @param binCount The number of bins
+     * @throws IllegalArgumentException If the bin count is negative
+     */
+    DenseBinning(Function<? super T, ?> keyExtractor, 
+        int offset, int binCount)
+    {
+        this.keyExtractor = Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        if (binCount < 0)
+        {
+            throw new IllegalArgumentException(
+                "The binCount may not be negative, but is " + binCount);
+        }
+        this.offset = offset;
+        this.binCount = binCount;
+    }
+    
+    /**
+     * Returns whether the given key is an integer key that may be handled
+     * by this binning
+     * 
+     * @param key The key
+     * @return Whether the key is an integer key
+     */
+    static boolean isIntegerKey(Object key)
+    {
+        return key instanceof Integer 
+            || key instanceof Short 
+            || key instanceof Byte;
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return binCount;
+    }
+
+    @Override
+    public int computeBin(T object)
+    {
+        Object key = keyExtractor.apply(object);
+        if (!isIntegerKey(key))
+        {
+            return -1;
+        }
+        return computeBin(((Number) key).intValue());
+    }
+    
+    /**
+     * Computes the index of the bin for the given key, or -1 if the key
+     * is not contained in any bin
+     * 
+     * @param key The key
+     * @return The bin index
+     */
+    int computeBin(int key)
+    {
+        long bin = (long) key - offset;
+        if (bin < 0 || bin >= binCount)
+        {
+            return -1;
+        }
+        return (int) bin;
+    }
+    
+    @Override
+    public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
+    {
+        int bins[] = new int[getBinCount()];
+        if (objects != null)
+        {
+            for (T object : objects)
+            {
+                int bin = computeBin(object);
+                if (bin < 0)
+                {
+                    if (!ignoreInvalid)
+                    {
+                        throw new IllegalArgumentException("The object "
+                            + object + " was not part of the binning");
+                    }
+                }
+                else
+                {
+                    bins[bin]++;
+                }
+            }
+        }
+        return bins;
+    }
+    
+}
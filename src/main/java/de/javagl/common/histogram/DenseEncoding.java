@@ -0,0 +1,322 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * An encoding of the keys of a collection of elements, for keys that are
+ * integers from a small, dense range, or constants of a single enum type.
+ * The code of each element is the index of its bin in a 
+ * {@link DenseBinning} or an {@link EnumBinning}, and is computed 
+ * directly from the key, without hashing. The codes and the number of 
+ * elements for each code are computed in a single pass over the 
+ * elements, calling the key extractor once for each element.
+ */
+final class DenseEncoding
+{
+    /**
+     * The maximum number of bins of a dense encoding
+     */
+    static final int MAX_BIN_COUNT = 1 << 16;
+    
+    /**
+     * The enum type, or <code>null</code> if the keys are integers
+     */
+    private final Class<? extends Enum<?>> enumType;
+    
+    /**
+     * The integer key of the first bin
+     */
+    private final int offset;
+    
+    /**
+     * The code for each element
+     */
+    private final int codes[];
+    
+    /**
+     * The number of elements for each code
+     */
+    private final int counts[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param enumType The optional enum type
+     * @param offset The offset
+     * @param codes The codes
+     * @param counts The counts
+     */
+    private DenseEncoding(Class<? extends Enum<?>> enumType, 
+        int offset, int codes[], int counts[])
+    {
+        this.enumType = enumType;
+        this.offset = offset;
+        this.codes = codes;
+        this.counts = counts;
+    }
+    
+    /**
+     * Try to compute the dense encoding for the given elements.<br>
+     * <br>
+     * This will return <code>null</code> if the keys are not all 
+     * <code>Integer</code>, <code>Short</code> or <code>Byte</code> 
+     * values of the same type, or not all constants of the same enum 
+     * type. It will also return <code>null</code> if the number of bins 
+     * would be larger than {@link #MAX_BIN_COUNT}, or if less than half 
+     * of the bins would contain elements. For integer keys, the bins 
+     * cover the range between the minimum and the maximum key. For enum 
+     * keys, there is one bin for each constant of the enum type.<br>
+     * <br>
+     * When this returns <code>null</code>, then the keys of all elements 
+     * have been added to the given builder, so that the key extractor 
+     * is still called only once for each element. 
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param fallback The builder that receives the keys of all elements
+     * if the dense encoding can not be computed
+     * @return The {@link DenseEncoding}, or <code>null</code>
+     */
+    static <T> DenseEncoding create(
+        Collection<? extends T> elements, 
+        Function<? super T, ?> keyExtractor,
+        DictionaryEncoding.Builder fallback)
+    {
+        if (elements.isEmpty())
+        {
+            return null;
+        }
+        Class<? extends Enum<?>> enumType = null;
+        Class<?> integerType = null;
+        int codes[] = new int[elements.size()];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int index = 0;
+        Iterator<? extends T> iterator = elements.iterator();
+        while (iterator.hasNext())
+        {
+            Object key = keyExtractor.apply(iterator.next());
+            if (index == 0)
+            {
+                if (key instanceof Enum<?>)
+                {
+                    enumType = declaringClassOf((Enum<?>) key);
+                }
+                else if (DenseBinning.isIntegerKey(key))
+                {
+                    integerType = key.getClass();
+                }
+            }
+            boolean valid = false;
+            int code = 0;
+            if (enumType != null)
+            {
+                valid = enumType.isInstance(key);
+                if (valid)
+                {
+                    code = ((Enum<?>) key).ordinal();
+                }
+            }
+            else if (integerType != null && integerType.isInstance(key))
+            {
+                code = ((Number) key).intValue();
+                min = Math.min(min, code);
+                max = Math.max(max, code);
+                valid = (long) max - min < MAX_BIN_COUNT;
+            }
+            if (!valid)
+            {
+                addKeys(fallback, codes, index, enumType, integerType);
+                fallback.add(key);
+                while (iterator.hasNext())
+                {
+                    fallback.add(keyExtractor.apply(iterator.next()));
+                }
+                return null;
+            }
+            codes[index] = code;
+            index++;
+        }
+        int offset = 0;
+        int binCount = 0;
+        if (enumType != null)
+        {
+            binCount = enumType.getEnumConstants().length;
+        }
+        else
+        {
+            offset = min;
+            binCount = max - min + 1;
+        }
+        int counts[] = null;
+        int occupied = 0;
+        if (binCount <= MAX_BIN_COUNT)
+        {
+            counts = new int[binCount];
+            for (int i = 0; i < codes.length; i++)
+            {
+                int code = codes[i] - offset;
+                if (counts[code] == 0)
+                {
+                    occupied++;
+                }
+                counts[code]++;
+            }
+        }
+        if (counts == null || occupied * 2 < binCount)
+        {
+            addKeys(fallback, codes, codes.length, enumType, integerType);
+            return null;
+        }
+        for (int i = 0; i < codes.length; i++)
+        {
+            codes[i] -= offset;
+        }
+        return new DenseEncoding(enumType, offset, codes, counts);
+    }
+    
+    /**
+     * Add the keys for the given codes to the given builder, in the order
+     * of the codes. The codes are the ordinals of enum constants of the 
+     * given enum type, if it is not <code>null</code>, or the values of 
+     * integer keys of the given type otherwise.
+     * 
+     * @param builder The builder
+     * @param codes The codes
+     * @param count The number of codes to add
+     * @param enumType The optional enum type
+     * @param integerType The type of the integer keys
+     */
+    private static void addKeys(DictionaryEncoding.Builder builder, 
+        int codes[], int count, Class<? extends Enum<?>> enumType,
+        Class<?> integerType)
+    {
+        if (enumType != null)
+        {
+            Object constants[] = enumType.getEnumConstants();
+            for (int i = 0; i < count; i++)
+            {
+                builder.add(constants[codes[i]]);
+            }
+        }
+        else if (integerType == Short.class)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                builder.add(Short.valueOf((short) codes[i]));
+            }
+        }
+        else if (integerType == Byte.class)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                builder.add(Byte.valueOf((byte) codes[i]));
+            }
+        }
+        else
+        {
+            for (int i = 0; i < count; i++)
+            {
+                builder.add(Integer.valueOf(codes[i]));
+            }
+        }
+    }
+    
+    /**
+     * Returns the class that declares the given enum constant
+     * 
+     * @param key The enum constant
+     * @return The enum type
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Enum<?>> declaringClassOf(Enum<?> key)
+    {
+        return (Class<? extends Enum<?>>) key.getDeclaringClass();
+    }
+    
+    /**
+     * Create the {@link Binning} that assigns the elements to the bins of
+     * this encoding. This is an {@link EnumBinning} for enum keys, and a
+     * {@link DenseBinning} for integer keys.
+     * 
+     * @param <T> The element type
+     * 
+     * @param keyExtractor The key extractor
+     * @return The {@link Binning}
+     */
+    <T> Binning<T> createBinning(Function<? super T, ?> keyExtractor)
+    {
+        if (enumType != null)
+        {
+            return new EnumBinning<T>(keyExtractor, enumType);
+        }
+        return new DenseBinning<T>(keyExtractor, offset, counts.length);
+    }
+    
+    /**
+     * Returns the key of the bin with the given index
+     * 
+     * @param bin The bin index
+     * @return The key
+     */
+    Object getKey(int bin)
+    {
+        if (enumType != null)
+        {
+            return enumType.getEnumConstants()[bin];
+        }
+        return offset + bin;
+    }
+    
+    /**
+     * Returns the code for each element. The returned array may not be
+     * modified.
+     * 
+     * @return The codes
+     */
+    int[] getCodes()
+    {
+        return codes;
+    }
+    
+    /**
+     * Returns the number of elements for each code. The returned array 
+     * may not be modified.
+     * 
+     * @return The counts
+     */
+    int[] getCounts()
+    {
+        return counts;
+    }
+}
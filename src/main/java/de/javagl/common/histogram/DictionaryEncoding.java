@@ -0,0 +1,204 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * A dictionary encoding of the keys of a collection of elements. It 
+ * consists of a {@link KeyIndexMap} that contains the distinct keys in 
+ * the order in which they appear, a code for each element (namely, the
+ * index of its key), and the number of elements for each key. All this
+ * information is computed in a single pass over the elements, calling 
+ * the key extractor once for each element.
+ */
+final class DictionaryEncoding
+{
+    /**
+     * The mapping from keys to indices
+     */
+    private final KeyIndexMap keyIndices;
+    
+    /**
+     * The code for each element
+     */
+    private final int codes[];
+    
+    /**
+     * The number of elements for each key
+     */
+    private final int counts[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param keyIndices The key indices
+     * @param codes The codes
+     * @param counts The counts
+     */
+    private DictionaryEncoding(
+        KeyIndexMap keyIndices, int codes[], int counts[])
+    {
+        this.keyIndices = keyIndices;
+        this.codes = codes;
+        this.counts = counts;
+    }
+    
+    /**
+     * Compute the dictionary encoding for the given elements
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @return The {@link DictionaryEncoding}
+     */
+    static <T> DictionaryEncoding create(
+        Collection<? extends T> elements, 
+        Function<? super T, ?> keyExtractor)
+    {
+        Builder builder = new Builder(elements.size());
+        for (T element : elements)
+        {
+            builder.add(keyExtractor.apply(element));
+        }
+        return builder.build();
+    }
+    
+    /**
+     * A class for building a {@link DictionaryEncoding} from the keys of
+     * the elements, which are added one by one, in the order of the 
+     * elements
+     */
+    static final class Builder
+    {
+        /**
+         * The mapping from keys to indices
+         */
+        private final KeyIndexMap keyIndices;
+        
+        /**
+         * The code for each element
+         */
+        private final int codes[];
+        
+        /**
+         * The number of elements for each key
+         */
+        private int counts[];
+        
+        /**
+         * The number of keys that have been added
+         */
+        private int size;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param elementCount The number of elements
+         */
+        Builder(int elementCount)
+        {
+            this.keyIndices = new KeyIndexMap();
+            this.codes = new int[elementCount];
+            this.counts = new int[16];
+            this.size = 0;
+        }
+        
+        /**
+         * Add the key of the next element
+         * 
+         * @param key The key
+         * @throws IndexOutOfBoundsException If the keys of all elements
+         * have already been added
+         */
+        void add(Object key)
+        {
+            int code = keyIndices.add(key);
+            if (code == counts.length)
+            {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            codes[size] = code;
+            counts[code]++;
+            size++;
+        }
+        
+        /**
+         * Build the {@link DictionaryEncoding} from the keys that have
+         * been added
+         * 
+         * @return The {@link DictionaryEncoding}
+         * @throws IllegalStateException If the keys of not all elements 
+         * have been added
+         */
+        DictionaryEncoding build()
+        {
+            if (size != codes.length)
+            {
+                throw new IllegalStateException("Expected the keys of " 
+                    + codes.length + " elements, but found " + size);
+            }
+            return new DictionaryEncoding(keyIndices, codes, 
+                Arrays.copyOf(counts, keyIndices.size()));
+        }
+    }
+    
+    /**
+     * Returns the mapping from keys to indices
+     * 
+     * @return The key indices
+     */
+    KeyIndexMap getKeyIndices()
+    {
+        return keyIndices;
+    }
+    
+    /**
+     * Returns the code for each element. The returned array may not be
+     * modified.
+     * 
+     * @return The codes
+     */
+    int[] getCodes()
+    {
+        return codes;
+    }
+    
+    /**
+     * Returns the number of elements for each key. The returned array may 
+     * not be modified.
+     * 
+     * @return The counts
+     */
+    int[] getCounts()
+    {
+        return counts;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.function.Supplier;
+
+/**
+ * An enumeration of the ways of how a {@link Histogram} may retain the 
+ * elements that are shown in the histogram, after the elements have been
+ * assigned to the bins.<br>
+ * <br>
+ * As long as the elements are retained, the binning may be changed (for
+ * example, with {@link NumberHistogram#setBinCount(int)}), and the
+ * {@link HistogramMouseEvent} instances will contain the elements of the
+ * bins. When the elements are no longer retained, the histogram only
+ * stores the counts of the bins.<br>
+ * <br>
+ * When the elements are not retained strongly, the bin index of each 
+ * element (one <code>int</code> per element) is only stored while the
+ * highlighted elements are given as indices, for example, when the 
+ * histogram is part of {@link LinkedHistograms}. Highlighted indices 
+ * can therefore only be set while the elements are still retained, or
+ * when they have been set before the elements were dropped.
+ */
+public enum ElementRetention
+{
+    /**
+     * The elements are always retained. This is the default.
+     */
+    STRONG,
+    
+    /**
+     * The elements are retained with a soft reference, so that they may
+     * be garbage collected when memory is low
+     */
+    SOFT,
+    
+    /**
+     * The elements are retained with a weak reference, so that they may
+     * be garbage collected when they are no longer referenced elsewhere
+     */
+    WEAK,
+    
+    /**
+     * The elements are not retained at all
+     */
+    NONE;
+    
+    /**
+     * Returns a supplier that provides the given object, as long as it
+     * is retained according to this retention. When the object is no
+     * longer retained, the supplier will return <code>null</code>.
+     * 
+     * @param <C> The type of the object
+     * 
+     * @param object The object
+     * @return The supplier
+     */
+    <C> Supplier<C> retain(C object)
+    {
+        switch (this)
+        {
+            case SOFT:
+            {
+                SoftReference<C> reference = new SoftReference<C>(object);
+                return reference::get;
+            }
+            case WEAK:
+            {
+                WeakReference<C> reference = new WeakReference<C>(object);
+                return reference::get;
+            }
+            case NONE:
+                return () -> null;
+            default:
+                return () -> object;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Implementation of a {@link Binning} for enum keys. There is one bin 
+ * for each constant of the enum type, and the bin index of each object 
+ * is the ordinal of its key. Keys that are not constants of the enum 
+ * type do not belong to any bin.
+ * 
+ * @param <T> The type of the elements
+ */
+class EnumBinning<T> implements Binning<T>
+{
+    /**
+     * The function that provides the keys for the objects
+     */
+    private final Function<? super T, ?> keyExtractor;
+    
+    /**
+     * The enum type
+     */
+    private final Class<?> enumType;
+    
+    /**
+     * The constants of the enum type
+     */
+    private final Object constants[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param keyExtractor The key extractor
+     * @param enumType The enum type
+     * @throws IllegalArgumentException If the given type is not an
+     * enum type
+     */
+    EnumBinning(Function<? super T, ?> keyExtractor, 
+        Class<? extends Enum<?>> enumType)
+    {
+        this.keyExtractor = Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        Objects.requireNonNull(enumType, "The enumType may not be null");
+        if (!enumType.isEnum())
+        {
+            throw new IllegalArgumentException(
+                "The type is not an enum type: " + enumType);
+        }
+        this.enumType = enumType;
+        this.constants = enumType.getEnumConstants();
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return constants.length;
+    }
+
+    @Override
+    public int computeBin(T object)
+    {
+        Object key = keyExtractor.apply(object);
+        if (!enumType.isInstance(key))
+        {
+            return -1;
+        }
+        return ((Enum<?>) key).ordinal();
+    }
+    
+    @Override
+    public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
+    {
+        int bins[] = new int[getBinCount()];
+        if (objects != null)
+        {
+            for (T object : objects)
+            {
+                int bin = computeBin(object);
+                if (bin < 0)
+                {
+                    if (!ignoreInvalid)
+                    {
+                        throw new IllegalArgumentException("The object "
+                            + object + " was not part of the binning");
+                    }
+                }
+                else
+                {
+                    bins[bin]++;
+                }
+            }
+        }
+        return bins;
+    }
+    
+}
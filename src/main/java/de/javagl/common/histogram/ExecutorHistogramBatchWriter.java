@@ -0,0 +1,331 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of a {@link HistogramBatchWriter} that processes the 
+ * jobs with a fixed thread pool. The number of pending jobs is bounded 
+ * with a semaphore.
+ */
+final class ExecutorHistogramBatchWriter implements HistogramBatchWriter
+{
+    /**
+     * The maximum number of failures that are added as suppressed 
+     * exceptions to the first failure
+     */
+    private static final int MAX_SUPPRESSED_FAILURES = 100;
+    
+    /**
+     * The directory that the files are written to
+     */
+    private final Path directory;
+    
+    /**
+     * The {@link HistogramWriter}s
+     */
+    private final List<HistogramWriter> histogramWriters;
+    
+    /**
+     * The executor service that processes the jobs
+     */
+    private final ExecutorService executorService;
+    
+    /**
+     * The permits for the pending jobs
+     */
+    private final Semaphore pendingJobPermits;
+    
+    /**
+     * The first failure that occurred while processing the jobs, or
+     * <code>null</code> if there was no failure
+     */
+    private Throwable failure;
+    
+    /**
+     * The number of failures that occurred while processing the jobs
+     */
+    private int failureCount;
+    
+    /**
+     * Whether this writer was closed
+     */
+    private boolean closed;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param directory The directory that the files are written to
+     * @param threadCount The number of worker threads
+     * @param maximumPendingJobs The maximum number of jobs that have been
+     * submitted but not finished yet
+     * @param histogramWriters The {@link HistogramWriter}s
+     * @throws IllegalArgumentException If the thread count or the maximum
+     * number of pending jobs is not positive, or there are no writers
+     */
+    ExecutorHistogramBatchWriter(Path directory, int threadCount, 
+        int maximumPendingJobs, 
+        List<? extends HistogramWriter> histogramWriters)
+    {
+        Objects.requireNonNull(directory, "The directory may not be null");
+        Objects.requireNonNull(
+            histogramWriters, "The histogramWriters may not be null");
+        if (threadCount < 1)
+        {
+            throw new IllegalArgumentException(
+                "The threadCount must be positive, but is " + threadCount);
+        }
+        if (maximumPendingJobs < 1)
+        {
+            throw new IllegalArgumentException(
+                "The maximumPendingJobs must be positive, but is " 
+                + maximumPendingJobs);
+        }
+        if (histogramWriters.isEmpty())
+        {
+            throw new IllegalArgumentException(
+                "At least one histogram writer must be given");
+        }
+        for (HistogramWriter histogramWriter : histogramWriters)
+        {
+            Objects.requireNonNull(
+                histogramWriter, "The histogramWriters may not contain null");
+        }
+        this.directory = directory.toAbsolutePath().normalize();
+        this.histogramWriters = 
+            new ArrayList<HistogramWriter>(histogramWriters);
+        this.executorService = Executors.newFixedThreadPool(
+            threadCount, createThreadFactory());
+        this.pendingJobPermits = new Semaphore(maximumPendingJobs);
+    }
+    
+    /**
+     * Create the factory for the daemon worker threads
+     * 
+     * @return The thread factory
+     */
+    private static ThreadFactory createThreadFactory()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> 
+        {
+            Thread thread = new Thread(runnable, 
+                "HistogramBatchWriter-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    @Override
+    public void submit(HistogramJob histogramJob) throws InterruptedException
+    {
+        Objects.requireNonNull(
+            histogramJob, "The histogramJob may not be null");
+        List<Path> files = resolveFiles(histogramJob.getName());
+        synchronized (this)
+        {
+            if (closed)
+            {
+                throw new IllegalStateException(
+                    "The batch writer was already closed");
+            }
+        }
+        pendingJobPermits.acquire();
+        try
+        {
+            executorService.execute(() -> process(histogramJob, files));
+        }
+        catch (RejectedExecutionException e)
+        {
+            pendingJobPermits.release();
+            throw new IllegalStateException(
+                "The batch writer was already closed", e);
+        }
+    }
+    
+    /**
+     * Resolve the files for the job with the given name, one for each
+     * {@link HistogramWriter}
+     * 
+     * @param name The name of the job
+     * @return The files
+     * @throws IllegalArgumentException If one of the files is not 
+     * contained in the output directory
+     */
+    private List<Path> resolveFiles(String name)
+    {
+        List<Path> files = new ArrayList<Path>(histogramWriters.size());
+        for (HistogramWriter histogramWriter : histogramWriters)
+        {
+            String fileName = name + "." + histogramWriter.getFileExtension();
+            Path file = directory.resolve(fileName).normalize();
+            if (!file.startsWith(directory) || file.equals(directory))
+            {
+                throw new IllegalArgumentException("The job name " + name 
+                    + " does not denote a file in " + directory);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+    
+    /**
+     * Process the given job: Compute its {@link HistogramData} once, and 
+     * write it to the given files with the {@link HistogramWriter}s.
+     * Failures are stored, to be thrown when this writer is closed.
+     * 
+     * @param histogramJob The {@link HistogramJob}
+     * @param files The files, one for each {@link HistogramWriter}
+     */
+    private void process(HistogramJob histogramJob, List<Path> files)
+    {
+        try
+        {
+            HistogramData histogramData = histogramJob.computeHistogramData();
+            for (int i = 0; i < histogramWriters.size(); i++)
+            {
+                Path file = files.get(i);
+                Files.createDirectories(file.getParent());
+                try (OutputStream outputStream = new BufferedOutputStream(
+                    Files.newOutputStream(file)))
+                {
+                    histogramWriters.get(i).write(histogramData, outputStream);
+                }
+            }
+        }
+        catch (Throwable t)
+        {
+            addFailure(t);
+        }
+        finally
+        {
+            pendingJobPermits.release();
+        }
+    }
+    
+    /**
+     * Store the given failure. The first failure is stored directly, and
+     * up to {@link #MAX_SUPPRESSED_FAILURES} further failures are added 
+     * to it as suppressed exceptions.
+     * 
+     * @param t The failure
+     */
+    private synchronized void addFailure(Throwable t)
+    {
+        if (failure == null)
+        {
+            failure = t;
+        }
+        else if (failureCount <= MAX_SUPPRESSED_FAILURES && failure != t)
+        {
+            failure.addSuppressed(t);
+        }
+        failureCount++;
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+        }
+        executorService.shutdown();
+        try
+        {
+            while (!executorService.awaitTermination(1, TimeUnit.MINUTES))
+            {
+                // Wait until all jobs are finished
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = 
+                new InterruptedIOException(
+                    "Interrupted while waiting for the jobs to finish");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        throwFailure();
+    }
+    
+    /**
+     * Throw the first {@link #failure}, which contains the other failures
+     * as suppressed exceptions. If there was no failure, then nothing is 
+     * done.
+     * 
+     * @throws IOException If the first failure is an IO error
+     */
+    private synchronized void throwFailure() throws IOException
+    {
+        if (failure == null)
+        {
+            return;
+        }
+        Throwable first = failure;
+        int omittedCount = failureCount - 1 - MAX_SUPPRESSED_FAILURES;
+        if (omittedCount > 0)
+        {
+            first.addSuppressed(new IOException(
+                omittedCount + " further failures were omitted"));
+        }
+        if (first instanceof IOException)
+        {
+            throw (IOException) first;
+        }
+        if (first instanceof RuntimeException)
+        {
+            throw (RuntimeException) first;
+        }
+        if (first instanceof Error)
+        {
+            throw (Error) first;
+        }
+        throw new IOException(first);
+    }
+}
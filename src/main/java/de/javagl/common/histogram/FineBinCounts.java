@@ -0,0 +1,559 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * The number of elements in each bin of a fine binning of a range, from
+ * which the number of elements in the bins of any coarser 
+ * {@link RangeBinning} can be computed without iterating over the 
+ * elements.<br>
+ * <br>
+ * The range is divided into {@link #BIN_COUNT} fine bins. The prefix sums
+ * of their counts are stored, so that the number of elements in any range
+ * of fine bins is a difference of two prefix sums. A bin of a coarser 
+ * binning whose limits are limits of fine bins is the sum of these fine
+ * bins. This is the case, for example, for any power of two as the bin
+ * count, when the range is the same. When a limit is inside of a fine bin,
+ * then the elements of this fine bin are assumed to be distributed 
+ * uniformly in the fine bin, and the number of its elements is counted 
+ * as the error bound of the adjacent coarse bins.<br>
+ * <br>
+ * For a {@link LongBinning}, the fine bins are computed by a 
+ * {@link LongBinning} from the <code>long</code> keys, so that keys that 
+ * can not be represented exactly as <code>double</code> values are 
+ * counted exactly, and the limits of the fine bins and the coarse bins 
+ * are compared exactly.
+ */
+final class FineBinCounts
+{
+    /**
+     * The number of fine bins
+     */
+    static final int BIN_COUNT = 1 << 16;
+    
+    /**
+     * The tolerance, in units of fine bins, for considering a limit 
+     * of a coarse bin to be equal to a limit of a fine bin
+     */
+    private static final double ALIGNMENT_TOLERANCE = 1e-6;
+    
+    /**
+     * The minimum value of the range
+     */
+    private final double min;
+    
+    /**
+     * The maximum value of the range
+     */
+    private final double max;
+    
+    /**
+     * The number of elements in each fine bin
+     */
+    private final int counts[];
+    
+    /**
+     * The prefix sums of the {@link #counts}, with one more entry than 
+     * there are fine bins
+     */
+    private final int prefixSums[];
+    
+    /**
+     * The number of elements that are not contained in any fine bin
+     */
+    private final int outsideCount;
+    
+    /**
+     * The binning that computes the fine bins from <code>long</code> keys,
+     * or <code>null</code> if the fine bins are computed from 
+     * <code>double</code> keys
+     */
+    private final LongBinning<?> longFineBinning;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param min The minimum value of the range
+     * @param max The maximum value of the range
+     * @param counts The number of elements in each fine bin
+     * @param outsideCount The number of elements that are not contained
+     * in any fine bin
+     * @param longFineBinning The optional binning that computes the fine 
+     * bins from <code>long</code> keys
+     */
+    private FineBinCounts(double min, double max, int counts[], 
+        int outsideCount, LongBinning<?> longFineBinning)
+    {
+        this.min = min;
+        this.max = max;
+        this.longFineBinning = longFineBinning;
+        this.counts = counts;
+        this.prefixSums = new int[counts.length + 1];
+        for (int i = 0; i < counts.length; i++)
+        {
+            prefixSums[i + 1] = prefixSums[i] + counts[i];
+        }
+        this.outsideCount = outsideCount;
+    }
+    
+    /**
+     * Compute the fine bin counts for the given elements, in the range of
+     * the given binning, using the keys of the given binning. The bins of
+     * the elements are computed in chunks, without storing the bin of each
+     * element.
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param binning The binning
+     * @return The {@link FineBinCounts}
+     */
+    static <T> FineBinCounts compute(
+        Iterable<? extends T> elements, RangeBinning<T> binning)
+    {
+        double min = binning.getMinimum();
+        double max = binning.getMaximum();
+        if (binning instanceof LongBinning<?>)
+        {
+            LongBinning<T> longFineBinning = 
+                createLongFineBinning((LongBinning<T>) binning);
+            int counts[] = new int[longFineBinning.getBinCount()];
+            int outsideCount = 
+                longFineBinning.countBins(elements, counts, null);
+            return new FineBinCounts(
+                min, max, counts, outsideCount, longFineBinning);
+        }
+        NumberBinning<T> fineBinning = 
+            new NumberBinning<T>(binning::computeKey, min, max, BIN_COUNT);
+        int counts[] = new int[BIN_COUNT];
+        int outsideCount = fineBinning.countBins(elements, counts);
+        return new FineBinCounts(min, max, counts, outsideCount, null);
+    }
+    
+    /**
+     * Creates the binning that computes the fine bins for the range of
+     * the given binning, using the same key extractor. It has fewer than
+     * {@link #BIN_COUNT} bins if the range contains fewer values.
+     * 
+     * @param <T> The element type
+     * 
+     * @param binning The binning
+     * @return The fine binning
+     */
+    private static <T> LongBinning<T> createLongFineBinning(
+        LongBinning<T> binning)
+    {
+        return binning.createForBins(0, binning.getBinCount(), BIN_COUNT);
+    }
+    
+    /**
+     * Returns whether {@link FineBinCounts} can be computed for the range
+     * of the given binning. This is always the case for a 
+     * {@link LongBinning}. Otherwise, this is the case when the minimum 
+     * and maximum are finite, and the maximum is larger than the minimum
+     * 
+     * @param binning The binning
+     * @return Whether the range is valid
+     */
+    static boolean isValidRange(RangeBinning<?> binning)
+    {
+        if (binning instanceof LongBinning<?>)
+        {
+            return true;
+        }
+        double min = binning.getMinimum();
+        double max = binning.getMaximum();
+        return Double.isFinite(min) && Double.isFinite(max) && min < max;
+    }
+    
+    /**
+     * A class for building {@link FineBinCounts} from chunks of keys, 
+     * for example, while the elements are assigned to the bins of 
+     * another {@link RangeBinning}
+     */
+    static final class Builder implements KeyChunkConsumer
+    {
+        /**
+         * The minimum value of the range
+         */
+        private final double min;
+        
+        /**
+         * The maximum value of the range
+         */
+        private final double max;
+        
+        /**
+         * The binning that computes the fine bins of <code>double</code> 
+         * keys, or <code>null</code> if the fine bins are computed from 
+         * <code>long</code> keys. Its key extractor is not used.
+         */
+        private final NumberBinning<Object> fineBinning;
+        
+        /**
+         * The binning that computes the fine bins of <code>long</code> 
+         * keys, or <code>null</code> if the fine bins are computed from 
+         * <code>double</code> keys. Its key extractor is not used.
+         */
+        private final LongBinning<?> longFineBinning;
+        
+        /**
+         * The array that receives the fine bins of a chunk of keys
+         */
+        private final int chunkBins[];
+        
+        /**
+         * The number of elements in each fine bin
+         */
+        private final int counts[];
+        
+        /**
+         * The number of elements that are not contained in any fine bin
+         */
+        private int outsideCount;
+        
+        /**
+         * Creates a new builder for the range of the given binning
+         * 
+         * @param binning The binning
+         */
+        Builder(RangeBinning<?> binning)
+        {
+            this.min = binning.getMinimum();
+            this.max = binning.getMaximum();
+            if (binning instanceof LongBinning<?>)
+            {
+                this.fineBinning = null;
+                this.longFineBinning = 
+                    createLongFineBinning((LongBinning<?>) binning);
+                this.counts = new int[longFineBinning.getBinCount()];
+            }
+            else
+            {
+                this.fineBinning = new NumberBinning<Object>(
+                    object -> Double.NaN, min, max, BIN_COUNT);
+                this.longFineBinning = null;
+                this.counts = new int[BIN_COUNT];
+            }
+            this.chunkBins = new int[NumberBinning.CHUNK_SIZE];
+        }
+        
+        /**
+         * {@inheritDoc}
+         * 
+         * @throws IllegalStateException If the fine bins are computed 
+         * from <code>long</code> keys
+         */
+        @Override
+        public void accept(double keys[], int count)
+        {
+            if (fineBinning == null)
+            {
+                throw new IllegalStateException(
+                    "The keys of a LongBinning must be long values");
+            }
+            int bins[] = chunkBins;
+            if (count > bins.length)
+            {
+                bins = new int[count];
+            }
+            fineBinning.computeBins(keys, count, bins, 0);
+            for (int i = 0; i < count; i++)
+            {
+                countBin(bins[i]);
+            }
+        }
+        
+        @Override
+        public void accept(long keys[], int count)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                long key = keys[i];
+                if (longFineBinning != null)
+                {
+                    countBin(longFineBinning.computeBin(key));
+                }
+                else
+                {
+                    countBin(fineBinning.computeBin((double) key));
+                }
+            }
+        }
+        
+        /**
+         * Count the given fine bin
+         * 
+         * @param bin The fine bin, or a negative value if the key is not
+         * contained in any fine bin
+         */
+        private void countBin(int bin)
+        {
+            if (bin >= 0)
+            {
+                counts[bin]++;
+            }
+            else
+            {
+                outsideCount++;
+            }
+        }
+        
+        /**
+         * Create the {@link FineBinCounts} from the keys that have been
+         * received
+         * 
+         * @return The {@link FineBinCounts}
+         */
+        FineBinCounts build()
+        {
+            return new FineBinCounts(min, max, counts.clone(), 
+                outsideCount, longFineBinning);
+        }
+    }
+    
+    /**
+     * Compute the number of elements in each bin of the given binning, and
+     * write them into the given array, which must have at least as many 
+     * elements as there are bins. The binning must use the same keys as 
+     * the binning that these counts have been computed with.<br>
+     * <br>
+     * Returns an upper bound for the difference between each computed 
+     * count and the number of elements that the binning would assign to 
+     * the respective bin. This bound does not include elements whose key
+     * is within the tolerance that {@link NumberBinning} applies at the 
+     * limits of its bins. 
+     * 
+     * @param binning The binning
+     * @param bins The array that receives the counts
+     * @return The error bound
+     * @throws IllegalArgumentException If these counts have been computed
+     * for a {@link LongBinning}, and the given binning is not a
+     * {@link LongBinning}
+     */
+    int aggregate(RangeBinning<?> binning, int bins[])
+    {
+        if (longFineBinning != null)
+        {
+            if (!(binning instanceof LongBinning<?>))
+            {
+                throw new IllegalArgumentException(
+                    "The counts for long keys can only be aggregated "
+                    + "for a LongBinning, but got " + binning);
+            }
+            return aggregate((LongBinning<?>) binning, bins);
+        }
+        int binCount = binning.getBinCount();
+        double lowerPosition = computePosition(binning.getBinMinimum(0));
+        long lowerCount = Math.round(computeCumulativeCount(lowerPosition));
+        int lowerError = computeError(lowerPosition, false);
+        int maxError = 0;
+        for (int bin = 0; bin < binCount; bin++)
+        {
+            boolean last = bin == binCount - 1;
+            double upperLimit = last ? 
+                binning.getMaximum() : binning.getBinMinimum(bin + 1);
+            double upperPosition = computePosition(upperLimit);
+            long upperCount = 
+                Math.round(computeCumulativeCount(upperPosition));
+            int upperError = computeError(upperPosition, last);
+            bins[bin] = (int) (upperCount - lowerCount);
+            maxError = Math.max(maxError, lowerError + upperError);
+            lowerCount = upperCount;
+            lowerError = upperError;
+        }
+        return maxError;
+    }
+    
+    /**
+     * Implementation of {@link #aggregate(RangeBinning, int[])} for 
+     * counts that have been computed for a {@link LongBinning}. The 
+     * inclusive limits of the bins are compared to the inclusive limits
+     * of the fine bins exactly.
+     * 
+     * @param binning The binning
+     * @param bins The array that receives the counts
+     * @return The error bound
+     */
+    private int aggregate(LongBinning<?> binning, int bins[])
+    {
+        int binCount = binning.getBinCount();
+        long lowerCount = 0;
+        int lowerError = 0;
+        long binMin = binning.getBinMin(0);
+        if (binMin != Long.MIN_VALUE)
+        {
+            lowerCount = Math.round(computeCumulativeCount(binMin - 1));
+            lowerError = computeError(binMin - 1);
+        }
+        int maxError = 0;
+        for (int bin = 0; bin < binCount; bin++)
+        {
+            long binMax = binning.getBinMax(bin);
+            long upperCount = Math.round(computeCumulativeCount(binMax));
+            int upperError = computeError(binMax);
+            bins[bin] = (int) (upperCount - lowerCount);
+            maxError = Math.max(maxError, lowerError + upperError);
+            lowerCount = upperCount;
+            lowerError = upperError;
+        }
+        return maxError;
+    }
+    
+    /**
+     * Computes the number of elements with keys that are at most the
+     * given value, for counts that have been computed for a 
+     * {@link LongBinning}. For a value inside of a fine bin, the elements 
+     * of this bin are assumed to be distributed uniformly.
+     * 
+     * @param value The value
+     * @return The number of elements
+     */
+    private double computeCumulativeCount(long value)
+    {
+        if (value < longFineBinning.getBinMin(0))
+        {
+            return 0;
+        }
+        int fineBinCount = counts.length;
+        if (value >= longFineBinning.getBinMax(fineBinCount - 1))
+        {
+            return prefixSums[fineBinCount];
+        }
+        int index = longFineBinning.computeBin(value);
+        long fineBinMin = longFineBinning.getBinMin(index);
+        long fineBinMax = longFineBinning.getBinMax(index);
+        if (value == fineBinMax)
+        {
+            return prefixSums[index + 1];
+        }
+        double fraction = 
+            (double) (value - fineBinMin + 1) / (fineBinMax - fineBinMin + 1);
+        return prefixSums[index] + fraction * counts[index];
+    }
+    
+    /**
+     * Computes the maximum number of elements that may be assigned to 
+     * the wrong side of a limit that is between the given value and the
+     * next larger value, for counts that have been computed for a 
+     * {@link LongBinning}
+     * 
+     * @param value The value
+     * @return The error bound
+     */
+    private int computeError(long value)
+    {
+        long fineMin = longFineBinning.getBinMin(0);
+        if (value < fineMin)
+        {
+            return value == fineMin - 1 ? 0 : outsideCount;
+        }
+        int fineBinCount = counts.length;
+        long fineMax = longFineBinning.getBinMax(fineBinCount - 1);
+        if (value >= fineMax)
+        {
+            return value == fineMax ? 0 : outsideCount;
+        }
+        int index = longFineBinning.computeBin(value);
+        if (value == longFineBinning.getBinMax(index))
+        {
+            return 0;
+        }
+        return counts[index];
+    }
+    
+    /**
+     * Computes the position of the given value, in units of fine bins, 
+     * relative to the minimum. Positions that are within the
+     * {@link #ALIGNMENT_TOLERANCE} of an integer are rounded.
+     * 
+     * @param value The value
+     * @return The position
+     */
+    private double computePosition(double value)
+    {
+        double position = (value - min) / (max - min) * BIN_COUNT;
+        double rounded = Math.rint(position);
+        if (Math.abs(position - rounded) < ALIGNMENT_TOLERANCE)
+        {
+            return rounded;
+        }
+        return position;
+    }
+    
+    /**
+     * Computes the number of elements before the given position. For 
+     * a position inside of a fine bin, the elements of this bin are 
+     * assumed to be distributed uniformly.
+     * 
+     * @param position The position
+     * @return The number of elements
+     */
+    private double computeCumulativeCount(double position)
+    {
+        if (!(position > 0))
+        {
+            return 0;
+        }
+        if (position >= BIN_COUNT)
+        {
+            return prefixSums[BIN_COUNT];
+        }
+        int index = (int) position;
+        double fraction = position - index;
+        return prefixSums[index] + fraction * counts[index];
+    }
+    
+    /**
+     * Computes the maximum number of elements that may be assigned to 
+     * the wrong side of a limit at the given position. When the limit 
+     * is inclusive, then the elements that are equal to the limit belong 
+     * to the lower side, and they may be contained in the fine bin that
+     * starts at the limit. 
+     * 
+     * @param position The position
+     * @param inclusive Whether the limit is inclusive
+     * @return The error bound
+     */
+    private int computeError(double position, boolean inclusive)
+    {
+        if (position <= 0)
+        {
+            return position < 0 ? outsideCount : 0;
+        }
+        if (position >= BIN_COUNT)
+        {
+            return position > BIN_COUNT ? outsideCount : 0;
+        }
+        int index = (int) position;
+        if (index == position && !inclusive)
+        {
+            return 0;
+        }
+        return counts[index];
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * Methods for emitting JDK Flight Recorder events for the 
+ * {@link HistogramOperation}s.<br>
+ * <br>
+ * This is the implementation for Java 8, which does not emit any events.
+ * The multi-release JAR contains another implementation for Java 17 and 
+ * above, which emits events when the <code>jdk.jfr</code> module is 
+ * available at runtime.
+ */
+final class FlightRecorderEvents
+{
+    /**
+     * Begin an event for the given operation. Returns an object that 
+     * has to be passed to {@link #end(Object, int, int)} when the 
+     * operation is finished. If no event will be recorded, then this 
+     * is <code>null</code>.
+     * 
+     * @param operation The {@link HistogramOperation}
+     * @return The event, or <code>null</code>
+     */
+    static Object begin(HistogramOperation operation)
+    {
+        return null;
+    }
+    
+    /**
+     * End the given event, and commit it if it should be recorded. If the 
+     * given event is <code>null</code>, then nothing is done.
+     * 
+     * @param event The event that was returned by 
+     * {@link #begin(HistogramOperation)}
+     * @param elementCount The number of elements of the histogram
+     * @param binCount The number of bins of the histogram
+     */
+    static void end(Object event, int elementCount, int binCount)
+    {
+        // No events are emitted in Java 8
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private FlightRecorderEvents()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -30,7 +30,9 @@ import java.util.Objects;
 import java.util.function.Function;
 
 /**
- * General implementation of a {@link Binning} for categorical data
+ * General implementation of a {@link Binning} for categorical data. 
+ * The bin index of each object is the index of its key in a 
+ * {@link KeyIndexMap}.
  * 
  * @param <T> The type of the elements
  */
@@ -42,22 +44,63 @@ class GeneralBinning<T> implements Binning<T>
     private final int binCount;
     
     /**
-     * The function that provides the bin indices for the objects
+     * The function that provides the keys for the objects
      */
-    private final Function<? super T, Integer> binningFunction;
+    private final Function<? super T, ?> keyExtractor;
     
     /**
-     * Creates a new instance. This will store references to the given 
-     * collections.
+     * The mapping from keys to bin indices
+     */
+    private final KeyIndexMap keyIndices;
+    
+    /**
+     * The index of the bin for all keys that are not contained in the
+     * {@link #keyIndices}, or -1 if there is no such bin
+     */
+    private final int otherBin;
+    
+    /**
+     * Creates a new instance. This will store a reference to the given
+     * map, which may not be modified afterwards. The bin count will be
+     * the number of keys in the given map.
+     * 
+     * @param keyExtractor The key extractor
+     * @param keyIndices The mapping from keys to bin indices
+     */
+    GeneralBinning(Function<? super T, ?> keyExtractor, 
+        KeyIndexMap keyIndices)
+    {
+        this(keyExtractor, keyIndices, false);
+    }
+    
+    /**
+     * Creates a new instance. This will store a reference to the given
+     * map, which may not be modified afterwards. The bin count will be
+     * the number of keys in the given map, plus one if there should be
+     * a bin for all other keys. This bin will be the last one.
      * 
-     * @param binCount The bin count
-     * @param binningFunction The mapping from objects to bin indices
+     * @param keyExtractor The key extractor
+     * @param keyIndices The mapping from keys to bin indices
+     * @param withOtherBin Whether there should be a bin for all keys
+     * that are not contained in the given map
      */
-    GeneralBinning(int binCount, Function<? super T, Integer> binningFunction)
+    GeneralBinning(Function<? super T, ?> keyExtractor, 
+        KeyIndexMap keyIndices, boolean withOtherBin)
     {
-        this.binCount = binCount;
-        this.binningFunction = Objects.requireNonNull(
-            binningFunction, "The binningFunction may not be null");
+        this.keyExtractor = Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        this.keyIndices = Objects.requireNonNull(
+            keyIndices, "The keyIndices may not be null");
+        if (withOtherBin)
+        {
+            this.otherBin = keyIndices.size();
+            this.binCount = keyIndices.size() + 1;
+        }
+        else
+        {
+            this.otherBin = -1;
+            this.binCount = keyIndices.size();
+        }
     }
     
     @Override
@@ -69,10 +112,11 @@ class GeneralBinning<T> implements Binning<T>
     @Override
     public int computeBin(T object)
     {
-        Integer bin = binningFunction.apply(object);
-        if (bin == null)
+        Object key = keyExtractor.apply(object);
+        int bin = keyIndices.indexOf(key);
+        if (bin < 0 || bin >= binCount)
         {
-            return -1;
+            return otherBin;
         }
         return bin;
     }
@@ -0,0 +1,201 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Objects;
+
+/**
+ * Implementation of a two-dimensional {@link Binning}, based on two 
+ * {@link NumberBinning} instances for the x- and y-axis. The bins are
+ * the cells of a grid. The bin index of an object is 
+ * <code>binY * binCountX + binX</code>, where <code>binX</code> and
+ * <code>binY</code> are the bin indices on both axes.
+ * 
+ * @param <T> The element type
+ */
+class GridBinning<T> implements Binning<T>
+{
+    /**
+     * The binning for the x-axis
+     */
+    private final NumberBinning<T> binningX;
+    
+    /**
+     * The binning for the y-axis
+     */
+    private final NumberBinning<T> binningY;
+    
+    /**
+     * The number of bins on the x-axis
+     */
+    private final int binCountX;
+    
+    /**
+     * The number of bins on the y-axis
+     */
+    private final int binCountY;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param binningX The binning for the x-axis
+     * @param binningY The binning for the y-axis
+     * @throws IllegalArgumentException If the total number of cells is
+     * larger than <code>Integer.MAX_VALUE</code>
+     */
+    GridBinning(NumberBinning<T> binningX, NumberBinning<T> binningY)
+    {
+        this.binningX = Objects.requireNonNull(
+            binningX, "The binningX may not be null");
+        this.binningY = Objects.requireNonNull(
+            binningY, "The binningY may not be null");
+        this.binCountX = binningX.getBinCount();
+        this.binCountY = binningY.getBinCount();
+        if ((long) binCountX * binCountY > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("The number of cells for "
+                + binCountX + "x" + binCountY + " bins is too large");
+        }
+    }
+    
+    /**
+     * Returns the binning for the x-axis
+     * 
+     * @return The binning
+     */
+    NumberBinning<T> getBinningX()
+    {
+        return binningX;
+    }
+    
+    /**
+     * Returns the binning for the y-axis
+     * 
+     * @return The binning
+     */
+    NumberBinning<T> getBinningY()
+    {
+        return binningY;
+    }
+    
+    /**
+     * Returns the number of bins on the x-axis
+     * 
+     * @return The number of bins
+     */
+    int getBinCountX()
+    {
+        return binCountX;
+    }
+    
+    /**
+     * Returns the number of bins on the y-axis
+     * 
+     * @return The number of bins
+     */
+    int getBinCountY()
+    {
+        return binCountY;
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return binCountX * binCountY;
+    }
+
+    @Override
+    public int computeBin(T object)
+    {
+        int binX = binningX.computeBin(object);
+        if (binX < 0)
+        {
+            return -1;
+        }
+        int binY = binningY.computeBin(object);
+        if (binY < 0)
+        {
+            return -1;
+        }
+        return binY * binCountX + binX;
+    }
+    
+    @Override
+    public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
+    {
+        int bins[] = new int[getBinCount()];
+        if (objects != null)
+        {
+            for (T object : objects)
+            {
+                int bin = computeBin(object);
+                if (bin < 0)
+                {
+                    if (!ignoreInvalid)
+                    {
+                        throw new IllegalArgumentException("The object "
+                            + object + " was not part of the binning");
+                    }
+                }
+                else
+                {
+                    bins[bin]++;
+                }
+            }
+        }
+        return bins;
+    }
+    
+    /**
+     * Compute the number of objects in each cell, in a single pass over 
+     * the given objects. The cell index of each object will be written
+     * into the given array, which must have at least as many elements
+     * as there are objects. Objects that are not contained in any cell
+     * will receive the index -1.
+     * 
+     * @param objects The objects
+     * @param cells The array that receives the cell of each object
+     * @return The number of objects in each cell
+     */
+    int[] compute(Iterable<? extends T> objects, int cells[])
+    {
+        int bins[] = new int[getBinCount()];
+        int index = 0;
+        for (T object : objects)
+        {
+            int bin = computeBin(object);
+            cells[index] = bin;
+            if (bin >= 0)
+            {
+                bins[bin]++;
+            }
+            index++;
+        }
+        return bins;
+    }
+    
+}
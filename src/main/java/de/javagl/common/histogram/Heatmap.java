@@ -0,0 +1,75 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Collection;
+
+import javax.swing.JComponent;
+
+/**
+ * Interface for a heatmap. A heatmap is the visualization of a 
+ * two-dimensional binning that is applied to a set of elements: 
+ * The elements are assigned to the cells of a grid, and the number 
+ * of elements in each cell is shown as a color.
+ *  
+ * @param <T> The type of the elements
+ */
+public interface Heatmap<T>
+{
+    /**
+     * Returns the visualization component for this heatmap
+     * 
+     * @return The visualization component
+     */
+    JComponent getComponent();
+    
+    /**
+     * Set the elements that this heatmap should be shown for. The given
+     * collection will be copied. If it is <code>null</code>, then the 
+     * empty collection will be used instead.
+     * 
+     * @param elements The elements
+     */
+    void setElements(Collection<? extends T> elements);
+    
+    /**
+     * Add the given {@link HeatmapMouseListener} to be informed about
+     * mouse events on the heatmap
+     * 
+     * @param heatmapMouseListener The listener to add
+     */
+    void addHeatmapMouseListener(
+        HeatmapMouseListener<T> heatmapMouseListener);
+
+    /**
+     * Remove the given {@link HeatmapMouseListener}
+     * 
+     * @param heatmapMouseListener The listener to remove
+     */
+    void removeHeatmapMouseListener(
+        HeatmapMouseListener<T> heatmapMouseListener);
+}
@@ -0,0 +1,147 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.event.MouseEvent;
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * An event that indicates that a mouse interaction occurred on a cell
+ * of a {@link Heatmap}
+ * 
+ * @param <T> The type of the elements
+ */
+public final class HeatmapMouseEvent<T> extends EventObject
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The mouse event that caused this event
+     */
+    private final MouseEvent mouseEvent;
+    
+    /**
+     * The index of the bin on the x-axis of the cell
+     */
+    private final int binX;
+    
+    /**
+     * The index of the bin on the y-axis of the cell
+     */
+    private final int binY;
+    
+    /**
+     * The elements in the cell that the action appeared on
+     */
+    private final List<T> cellElements;
+    
+    /**
+     * The number of elements in the cell that the action appeared on
+     */
+    private final int cellElementCount;
+    
+    /**
+     * Creates a new instance. A reference to the given list will be stored
+     * and returned, so it should be unmodifiable and may not change after
+     * this instance has been created 
+     * 
+     * @param heatmap The {@link Heatmap}
+     * @param mouseEvent The original mouse event
+     * @param binX The index of the bin on the x-axis
+     * @param binY The index of the bin on the y-axis
+     * @param cellElements The elements in the cell 
+     * @param cellElementCount The number of elements in the cell
+     */
+    HeatmapMouseEvent(Heatmap<T> heatmap, MouseEvent mouseEvent, 
+        int binX, int binY, List<T> cellElements, int cellElementCount)
+    {
+        super(heatmap);
+        this.mouseEvent = mouseEvent;
+        this.binX = binX;
+        this.binY = binY;
+        this.cellElements = cellElements;
+        this.cellElementCount = cellElementCount;
+    }
+    
+    /**
+     * Returns the mouse event that caused this event
+     * 
+     * @return The mouse event
+     */
+    public MouseEvent getMouseEvent()
+    {
+        return mouseEvent;
+    }
+
+    /**
+     * Returns the index of the bin on the x-axis of the cell that the 
+     * action appeared on
+     * 
+     * @return The index of the bin on the x-axis
+     */
+    public int getBinX()
+    {
+        return binX;
+    }
+
+    /**
+     * Returns the index of the bin on the y-axis of the cell that the 
+     * action appeared on
+     * 
+     * @return The index of the bin on the y-axis
+     */
+    public int getBinY()
+    {
+        return binY;
+    }
+
+    /**
+     * Returns an unmodifiable list of the elements in the cell that the 
+     * action appeared on
+     * 
+     * @return The elements in the cell
+     */
+    public List<T> getCellElements()
+    {
+        return cellElements;
+    }
+    
+    /**
+     * Returns the number of elements in the cell that the action 
+     * appeared on
+     * 
+     * @return The number of elements in the cell
+     */
+    public int getCellElementCount()
+    {
+        return cellElementCount;
+    }
+}
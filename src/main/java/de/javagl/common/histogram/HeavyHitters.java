@@ -0,0 +1,278 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * A class for determining the most frequent keys of a collection of
+ * elements, in a single pass and with bounded memory.<br>
+ * <br>
+ * As long as the number of distinct keys is small, the keys are counted
+ * exactly, with a {@link KeyIndexMap}. When the number of distinct keys 
+ * exceeds a certain limit, the exact counts are passed to a 
+ * {@link SpaceSaving} sketch, which is used for the remaining elements. 
+ * The number of distinct keys that has been seen so far thus serves as 
+ * the estimate of the cardinality that decides between the exact and 
+ * the sketched mode.
+ */
+final class HeavyHitters
+{
+    /**
+     * The number of distinct keys up to which the keys are counted exactly
+     */
+    static final int EXACT_LIMIT = 1 << 16;
+    
+    /**
+     * The factor by which the capacity of the sketch is larger than the
+     * number of requested keys
+     */
+    private static final int SKETCH_CAPACITY_FACTOR = 10;
+    
+    /**
+     * The minimum capacity of the sketch
+     */
+    private static final int MIN_SKETCH_CAPACITY = 1024;
+    
+    /**
+     * The most frequent keys, in descending order of their counts
+     */
+    private final KeyIndexMap topKeys;
+    
+    /**
+     * Whether there have been more distinct keys than the top keys
+     */
+    private final boolean hasOtherKeys;
+    
+    /**
+     * The index of the top key of each element, or the number of top keys
+     * for elements with other keys. This is <code>null</code> if the keys
+     * have not been counted exactly.
+     */
+    private final int elementBins[];
+    
+    /**
+     * The number of elements for each top key, and for the other keys.
+     * This is <code>null</code> if the keys have not been counted exactly.
+     */
+    private final int bins[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param topKeys The top keys
+     * @param hasOtherKeys Whether there are other keys
+     * @param elementBins The element bins
+     * @param bins The bins
+     */
+    private HeavyHitters(KeyIndexMap topKeys, boolean hasOtherKeys, 
+        int elementBins[], int bins[])
+    {
+        this.topKeys = topKeys;
+        this.hasOtherKeys = hasOtherKeys;
+        this.elementBins = elementBins;
+        this.bins = bins;
+    }
+    
+    /**
+     * Compute the (at most) <code>k</code> most frequent keys that are
+     * extracted from the given elements
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param k The maximum number of keys
+     * @return The {@link HeavyHitters}
+     * @throws IllegalArgumentException If <code>k</code> is not positive
+     */
+    static <T> HeavyHitters compute(Collection<? extends T> elements, 
+        Function<? super T, ?> keyExtractor, int k)
+    {
+        if (k <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of keys must be positive, but is " + k);
+        }
+        int sketchCapacity = (int) Math.min(Integer.MAX_VALUE / 2, 
+            Math.max((long) k * SKETCH_CAPACITY_FACTOR, MIN_SKETCH_CAPACITY));
+        int exactLimit = Math.max(EXACT_LIMIT, sketchCapacity);
+        
+        KeyIndexMap keyIndices = new KeyIndexMap();
+        int codes[] = new int[elements.size()];
+        int counts[] = new int[16];
+        SpaceSaving sketch = null;
+        int index = 0;
+        for (T element : elements)
+        {
+            Object key = keyExtractor.apply(element);
+            if (sketch != null)
+            {
+                sketch.offer(key, 1);
+                continue;
+            }
+            int code = keyIndices.add(key);
+            if (code == counts.length)
+            {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            codes[index] = code;
+            counts[code]++;
+            index++;
+            if (keyIndices.size() > exactLimit)
+            {
+                sketch = new SpaceSaving(sketchCapacity);
+                for (int i = 0; i < keyIndices.size(); i++)
+                {
+                    sketch.offer(keyIndices.getKey(i), counts[i]);
+                }
+                keyIndices = null;
+                codes = null;
+                counts = null;
+            }
+        }
+        if (sketch != null)
+        {
+            return createSketched(sketch, k);
+        }
+        return createExact(keyIndices, codes, counts, k);
+    }
+    
+    /**
+     * Create the {@link HeavyHitters} from the given sketch
+     * 
+     * @param sketch The sketch
+     * @param k The maximum number of keys
+     * @return The {@link HeavyHitters}
+     */
+    private static HeavyHitters createSketched(SpaceSaving sketch, int k)
+    {
+        int topSlots[] = sketch.computeTopSlots(k);
+        KeyIndexMap topKeys = new KeyIndexMap();
+        for (int slot : topSlots)
+        {
+            topKeys.add(sketch.getKey(slot));
+        }
+        return new HeavyHitters(topKeys, true, null, null);
+    }
+    
+    /**
+     * Create the {@link HeavyHitters} from the given exact counts
+     * 
+     * @param keyIndices The indices of all keys
+     * @param codes The key index of each element
+     * @param counts The number of elements for each key
+     * @param k The maximum number of keys
+     * @return The {@link HeavyHitters}
+     */
+    private static HeavyHitters createExact(
+        KeyIndexMap keyIndices, int codes[], int counts[], int k)
+    {
+        int keyCount = keyIndices.size();
+        int sorted[] = TopIndices.select(keyCount, code -> counts[code], k);
+        
+        int topCount = sorted.length;
+        boolean hasOtherKeys = keyCount > topCount;
+        KeyIndexMap topKeys = new KeyIndexMap();
+        int binForCode[] = new int[keyCount];
+        Arrays.fill(binForCode, topCount);
+        for (int i = 0; i < topCount; i++)
+        {
+            int code = sorted[i];
+            topKeys.add(keyIndices.getKey(code));
+            binForCode[code] = i;
+        }
+        int bins[] = new int[hasOtherKeys ? topCount + 1 : topCount];
+        int elementBins[] = new int[codes.length];
+        for (int i = 0; i < codes.length; i++)
+        {
+            int bin = binForCode[codes[i]];
+            elementBins[i] = bin;
+            bins[bin]++;
+        }
+        return new HeavyHitters(topKeys, hasOtherKeys, elementBins, bins);
+    }
+    
+    /**
+     * Returns the most frequent keys, in descending order of their counts.
+     * In the sketched mode, the order is based on the estimated counts.
+     * 
+     * @return The top keys
+     */
+    KeyIndexMap getTopKeys()
+    {
+        return topKeys;
+    }
+    
+    /**
+     * Returns whether there have been more distinct keys than the 
+     * {@link #getTopKeys() top keys}
+     * 
+     * @return Whether there are other keys
+     */
+    boolean hasOtherKeys()
+    {
+        return hasOtherKeys;
+    }
+    
+    /**
+     * Returns whether the keys have been counted exactly
+     * 
+     * @return Whether the keys have been counted exactly
+     */
+    boolean isExact()
+    {
+        return elementBins != null;
+    }
+    
+    /**
+     * Returns the index of the top key of each element, or the number 
+     * of top keys for elements with other keys. This is <code>null</code>
+     * if the keys have not been {@link #isExact() counted exactly}.
+     * 
+     * @return The element bins
+     */
+    int[] getElementBins()
+    {
+        return elementBins;
+    }
+    
+    /**
+     * Returns the number of elements for each top key, followed by the 
+     * number of elements with other keys, if there are other keys. This 
+     * is <code>null</code> if the keys have not been 
+     * {@link #isExact() counted exactly}.
+     * 
+     * @return The bins
+     */
+    int[] getBins()
+    {
+        return bins;
+    }
+}
@@ -26,7 +26,9 @@
  */
 package de.javagl.common.histogram;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.function.ToDoubleFunction;
 
 import javax.swing.JComponent;
 
@@ -45,6 +47,53 @@ public interface Histogram<T>
      */
     JComponent getComponent();
     
+    /**
+     * Set whether the collections that are passed to this histogram should
+     * be copied. By default, this is <code>true</code>, and the histogram 
+     * will store copies of the collections that are passed to the methods
+     * of this interface.<br>
+     * <br>
+     * When this is set to <code>false</code>, then the histogram will store
+     * references to the given elements if they are a <code>List</code> that
+     * implements the <code>RandomAccess</code> interface, and references to
+     * any given collection of highlighted elements. These collections are 
+     * then owned by the histogram: They may not be modified until they 
+     * have been replaced with another call to one of the methods for setting 
+     * the elements. This allows showing very large lists of elements, or 
+     * unmodifiable views on such lists, without storing a copy of them. 
+     * Elements that are not given as a random access list will still be 
+     * copied.<br>
+     * <br>
+     * This setting only affects the collections that are passed to this
+     * histogram after the setting was changed.
+     * 
+     * @param copyingElements Whether the collections should be copied
+     */
+    void setCopyingElements(boolean copyingElements);
+    
+    /**
+     * Set the way how this histogram retains the elements after they
+     * have been assigned to the bins. By default, this is
+     * {@link ElementRetention#STRONG}.<br>
+     * <br>
+     * For all other retention modes, the collections that are passed to 
+     * this histogram will not be copied, regardless of the
+     * {@link #setCopyingElements(boolean) copying} setting. Instead, the 
+     * histogram will store references to these collections, as determined 
+     * by the retention mode. The collections may not be modified until
+     * they have been replaced with another call to one of the methods for 
+     * setting the elements.<br>
+     * <br>
+     * This setting will be applied to the current elements immediately. 
+     * Elements that are no longer retained can not be restored: When the
+     * elements have already been dropped, then they remain unavailable 
+     * after switching to {@link ElementRetention#STRONG}, until new 
+     * elements are set.
+     * 
+     * @param elementRetention The {@link ElementRetention}
+     */
+    void setElementRetention(ElementRetention elementRetention);
+    
     /**
      * Set the elements that this histogram should be shown for.<br>
      * <br>
@@ -61,6 +110,82 @@ public interface Histogram<T>
         Collection<? extends T> elements, 
         Collection<? extends T> highlightedElements);
     
+    /**
+     * Set the highlighted elements of this histogram, keeping the elements
+     * that have been set with {@link #setElements(Collection, Collection)}.
+     * <br>
+     * <br>
+     * Only the highlighted elements will be assigned to the bins. The
+     * total counts of the bins remain unchanged.<br>
+     * <br>
+     * If the given collection is <code>null</code>, then the empty 
+     * collection will be used instead.
+     * 
+     * @param highlightedElements The highlighted elements
+     */
+    void setHighlightedElements(Collection<? extends T> highlightedElements);
+    
+    /**
+     * Set the highlighted elements of this histogram, as a set of indices.
+     * Each set bit of the given bit set is the index of an element in the
+     * iteration order of the elements that have been set with 
+     * {@link #setElements(Collection, Collection)}.<br>
+     * <br>
+     * The bins of the highlighted elements will be obtained from the bins 
+     * that have already been computed for the elements, so this is the 
+     * preferred way of updating the highlighting of large sets of elements.
+     * <br>
+     * <br>
+     * The given bit set will be copied. If it is <code>null</code>, then 
+     * no element will be highlighted.
+     * 
+     * @param highlightedIndices The indices of the highlighted elements
+     * @throws IllegalArgumentException If the given bit set contains an
+     * index that is not smaller than the number of elements
+     */
+    void setHighlightedIndices(BitSet highlightedIndices);
+    
+    /**
+     * Set the function that provides the weight of each element. If this 
+     * is not <code>null</code>, then the bins will show the total weight 
+     * of the elements and of the highlighted elements that they contain, 
+     * instead of the number of these elements. If it is <code>null</code>,
+     * then the bins will show the number of elements. By default, there 
+     * is no weight function.<br>
+     * <br>
+     * The weight function will be called once for each element, when the
+     * elements or the weight function are set. The weights are then 
+     * stored, and reused when the highlighting is changed with 
+     * {@link #setHighlightedIndices(BitSet)}.
+     * 
+     * @param weightFunction The weight function
+     * @throws IllegalStateException If the weight function is not 
+     * <code>null</code> and the elements are no longer retained 
+     * according to the {@link ElementRetention}
+     */
+    void setWeightFunction(ToDoubleFunction<? super T> weightFunction);
+    
+    /**
+     * Set the maximum number of bins that should be shown at once. If the
+     * histogram has more bins, then only this number of bins will be shown,
+     * and the visualization component will allow scrolling through the 
+     * bins. A value of zero means that all bins are shown.
+     * 
+     * @param maximumVisibleBinCount The maximum visible bin count
+     * @throws IllegalArgumentException If the given value is negative
+     */
+    void setMaximumVisibleBinCount(int maximumVisibleBinCount);
+    
+    /**
+     * Set the order in which the bins should be shown. The default is
+     * {@link BinOrder#INDEX}. The bin indices that are passed to the
+     * {@link HistogramMouseListener} instances are not affected by the
+     * order.
+     * 
+     * @param binOrder The {@link BinOrder}
+     */
+    void setBinOrder(BinOrder binOrder);
+    
     /**
      * Add the given {@link HistogramMouseListener} to be informed about
      * mouse events on the histogram
@@ -77,4 +202,24 @@ public interface Histogram<T>
      */
     void removeHistogramMouseListener(
         HistogramMouseListener<T> histogramMouseListener);
+    
+    /**
+     * Add the given {@link HistogramMetricsListener} to be informed about
+     * the time that this histogram spends in its different phases.<br>
+     * <br>
+     * The phases are only measured while at least one listener is 
+     * registered. 
+     * 
+     * @param histogramMetricsListener The listener to add
+     */
+    void addHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener);
+    
+    /**
+     * Remove the given {@link HistogramMetricsListener}
+     * 
+     * @param histogramMetricsListener The listener to remove
+     */
+    void removeHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener);
 }
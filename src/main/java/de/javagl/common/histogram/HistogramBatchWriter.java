@@ -0,0 +1,74 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.io.IOException;
+
+/**
+ * Interface for classes that compute and write many histograms in 
+ * parallel. The {@link HistogramJob}s that are submitted are processed 
+ * by a bounded number of worker threads. Each job is distributed among 
+ * its bins once, and the result is written with each of the 
+ * {@link HistogramWriter}s of the batch writer.<br>
+ * <br>
+ * The number of jobs that are submitted but not yet finished is bounded.
+ * When this bound is reached, then {@link #submit(HistogramJob)} blocks
+ * until a job has been finished, so that the memory that is required by
+ * the pending jobs remains bounded.
+ */
+public interface HistogramBatchWriter extends AutoCloseable
+{
+    /**
+     * Submit the given job for processing. This will block when the 
+     * maximum number of pending jobs is reached.
+     * 
+     * @param histogramJob The {@link HistogramJob}
+     * @throws InterruptedException If the calling thread is interrupted
+     * while waiting for a pending job to finish
+     * @throws IllegalArgumentException If the name of the job does not 
+     * denote a file in the output directory
+     * @throws IllegalStateException If this writer was already closed
+     */
+    void submit(HistogramJob histogramJob) throws InterruptedException;
+    
+    /**
+     * Wait until all submitted jobs are finished, and shut down the 
+     * worker threads. If writing any of the histograms failed, then the 
+     * first failure will be thrown, with (a bounded number of) the other
+     * failures added as suppressed exceptions.<br>
+     * <br>
+     * If the calling thread is interrupted while waiting for the jobs to
+     * finish, then an <code>InterruptedIOException</code> is thrown, and
+     * the interrupted status of the thread is set. The jobs that are 
+     * still pending will then be finished in the background.
+     * 
+     * @throws IOException If writing any of the histograms caused an
+     * IO error, or the calling thread was interrupted
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,74 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * Interface for the result of distributing elements among the bins of a
+ * histogram: The number of elements and of highlighted elements in each 
+ * bin, together with the labels of the bins. This is the information 
+ * that a {@link HistogramWriter} needs for writing a histogram.
+ */
+public interface HistogramData
+{
+    /**
+     * Returns the number of bins
+     * 
+     * @return The number of bins
+     */
+    int getBinCount();
+    
+    /**
+     * Returns the number of elements in the given bin
+     * 
+     * @param bin The bin index
+     * @return The number of elements
+     * @throws IndexOutOfBoundsException If the index is negative or not 
+     * smaller than the {@link #getBinCount() bin count}
+     */
+    int getCount(int bin);
+    
+    /**
+     * Returns the number of highlighted elements in the given bin
+     * 
+     * @param bin The bin index
+     * @return The number of highlighted elements
+     * @throws IndexOutOfBoundsException If the index is negative or not 
+     * smaller than the {@link #getBinCount() bin count}
+     */
+    int getHighlightedCount(int bin);
+    
+    /**
+     * Returns the label of the given bin. The label may consist of 
+     * multiple lines, which are separated by <code>'\n'</code>.
+     * 
+     * @param bin The bin index
+     * @return The label
+     * @throws IndexOutOfBoundsException If the index is negative or not 
+     * smaller than the {@link #getBinCount() bin count}
+     */
+    String getBinLabel(int bin);
+}
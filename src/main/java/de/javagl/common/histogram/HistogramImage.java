@@ -0,0 +1,274 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * An image that {@link HistogramData} is painted into, with plain Java2D,
+ * without creating any Swing or JFreeChart components. The image and the 
+ * PNG writer are reused for all rendering operations. Instances of this 
+ * class are not thread-safe.
+ */
+final class HistogramImage
+{
+    /**
+     * The color for the highlighted parts of the bars
+     */
+    static final Color HIGHLIGHTED_COLOR = new Color(128, 255, 128);
+    
+    /**
+     * The color for the parts of the bars that are not highlighted
+     */
+    static final Color ELEMENTS_COLOR = new Color(128, 128, 255);
+    
+    /**
+     * The font for the axis labels
+     */
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 10);
+    
+    /**
+     * The gap between the plot area and the labels, and around the image
+     */
+    private static final int GAP = 3;
+    
+    /**
+     * The image
+     */
+    private final BufferedImage image;
+    
+    /**
+     * The writer for PNG images, created lazily
+     */
+    private ImageWriter pngWriter;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param width The width of the image
+     * @param height The height of the image
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    HistogramImage(int width, int height)
+    {
+        if (width < 1 || height < 1)
+        {
+            throw new IllegalArgumentException(
+                "The size must be positive, but is " + width + "x" + height);
+        }
+        this.image = new BufferedImage(
+            width, height, BufferedImage.TYPE_INT_RGB);
+    }
+    
+    /**
+     * Returns the image
+     * 
+     * @return The image
+     */
+    BufferedImage getImage()
+    {
+        return image;
+    }
+    
+    /**
+     * Render the given {@link HistogramData} into the image
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @return The image
+     */
+    BufferedImage render(HistogramData histogramData)
+    {
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            paint(g, histogramData, image.getWidth(), image.getHeight());
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return image;
+    }
+    
+    /**
+     * Write the current image as a PNG to the given stream, without 
+     * closing the stream
+     * 
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    void writePng(OutputStream outputStream) throws IOException
+    {
+        if (pngWriter == null)
+        {
+            Iterator<ImageWriter> writers = 
+                ImageIO.getImageWritersByFormatName("png");
+            if (!writers.hasNext())
+            {
+                throw new IOException("No PNG image writer available");
+            }
+            pngWriter = writers.next();
+        }
+        ImageOutputStream imageOutputStream = 
+            new MemoryCacheImageOutputStream(outputStream);
+        try
+        {
+            pngWriter.setOutput(imageOutputStream);
+            pngWriter.write(image);
+        }
+        finally
+        {
+            pngWriter.setOutput(null);
+            imageOutputStream.close();
+        }
+    }
+    
+    /**
+     * Paint the given {@link HistogramData} as a histogram with the given 
+     * size, using the given graphics. The bars are stacked, with the 
+     * highlighted part at the bottom. The maximum count is shown at the
+     * top of the y-axis, and the first line of the label of the first 
+     * bin and the last line of the label of the last bin are shown below 
+     * the x-axis.
+     * 
+     * @param g The graphics
+     * @param histogramData The {@link HistogramData}
+     * @param width The width
+     * @param height The height
+     */
+    static void paint(Graphics2D g, HistogramData histogramData, 
+        int width, int height)
+    {
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, 
+            RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(FONT);
+        FontMetrics fm = g.getFontMetrics();
+        
+        int binCount = histogramData.getBinCount();
+        int maximumCount = computeMaximumCount(histogramData);
+        String maxLabel = String.valueOf(maximumCount);
+        int left = GAP + fm.stringWidth(maxLabel) + GAP;
+        int top = GAP + fm.getAscent() / 2;
+        int right = width - GAP;
+        int bottom = height - GAP - fm.getHeight();
+        int plotWidth = Math.max(1, right - left);
+        int plotHeight = Math.max(1, bottom - top);
+        
+        for (int bin = 0; bin < binCount && maximumCount > 0; bin++)
+        {
+            int x0 = left + (int) ((long) bin * plotWidth / binCount);
+            int x1 = left + (int) ((long) (bin + 1) * plotWidth / binCount);
+            int w = Math.max(1, x1 - x0);
+            int count = histogramData.getCount(bin);
+            int highlightedCount = histogramData.getHighlightedCount(bin);
+            int h = (int) ((long) count * plotHeight / maximumCount);
+            int hh = (int) ((long) highlightedCount * plotHeight 
+                / maximumCount);
+            g.setColor(ELEMENTS_COLOR);
+            g.fillRect(x0, bottom - h, w, h - hh);
+            g.setColor(HIGHLIGHTED_COLOR);
+            g.fillRect(x0, bottom - hh, w, hh);
+        }
+        g.setColor(Color.GRAY);
+        g.drawLine(left, top, left, bottom);
+        g.drawLine(left, bottom, right, bottom);
+        
+        g.setColor(Color.BLACK);
+        g.drawString(maxLabel, left - GAP - fm.stringWidth(maxLabel), 
+            top + fm.getAscent() / 2);
+        g.drawString("0", left - GAP - fm.stringWidth("0"), bottom);
+        if (binCount > 0)
+        {
+            int y = bottom + GAP + fm.getAscent();
+            String minKey = firstLine(histogramData.getBinLabel(0));
+            g.drawString(minKey, left, y);
+            String maxKey = 
+                lastLine(histogramData.getBinLabel(binCount - 1));
+            g.drawString(maxKey, right - fm.stringWidth(maxKey), y);
+        }
+    }
+    
+    /**
+     * Returns the maximum number of elements in any bin of the given 
+     * {@link HistogramData}
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @return The maximum count
+     */
+    static int computeMaximumCount(HistogramData histogramData)
+    {
+        int result = 0;
+        for (int bin = 0; bin < histogramData.getBinCount(); bin++)
+        {
+            result = Math.max(result, histogramData.getCount(bin));
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the first line of the given string
+     * 
+     * @param s The string
+     * @return The first line
+     */
+    static String firstLine(String s)
+    {
+        int index = s.indexOf('\n');
+        if (index < 0)
+        {
+            return s;
+        }
+        return s.substring(0, index);
+    }
+    
+    /**
+     * Returns the last line of the given string
+     * 
+     * @param s The string
+     * @return The last line
+     */
+    static String lastLine(String s)
+    {
+        return s.substring(s.lastIndexOf('\n') + 1);
+    }
+}
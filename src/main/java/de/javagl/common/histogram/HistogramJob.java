@@ -0,0 +1,89 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A job for a {@link HistogramBatchWriter}: A set of elements, together 
+ * with the way how they are distributed among bins, and the name of the 
+ * files that the histogram is written to. Instances of this class are 
+ * created with the methods of the {@link Histograms} class.
+ */
+public final class HistogramJob
+{
+    /**
+     * The name
+     */
+    private final String name;
+    
+    /**
+     * The supplier that computes the {@link HistogramData}
+     */
+    private final Supplier<? extends HistogramData> histogramDataSupplier;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param name The name
+     * @param histogramDataSupplier The supplier that computes the 
+     * {@link HistogramData}
+     */
+    HistogramJob(String name, 
+        Supplier<? extends HistogramData> histogramDataSupplier)
+    {
+        this.name = Objects.requireNonNull(
+            name, "The name may not be null");
+        this.histogramDataSupplier = Objects.requireNonNull(
+            histogramDataSupplier, 
+            "The histogramDataSupplier may not be null");
+    }
+    
+    /**
+     * Returns the name of this job. This is the name of the files that
+     * the histogram is written to, without the file extension.
+     * 
+     * @return The name
+     */
+    public String getName()
+    {
+        return name;
+    }
+    
+    /**
+     * Distribute the elements of this job among the bins. This will 
+     * iterate over the elements, and call the key extractor for each
+     * element. 
+     * 
+     * @return The {@link HistogramData}
+     */
+    public HistogramData computeHistogramData()
+    {
+        return histogramDataSupplier.get();
+    }
+}
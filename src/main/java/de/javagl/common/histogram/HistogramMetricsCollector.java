@@ -0,0 +1,349 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Implementation of a {@link HistogramMetricsListener} that accumulates
+ * the metrics of a {@link Histogram}, and exposes them as a 
+ * {@link HistogramMetricsMXBean}. The metrics may be read from any thread.
+ */
+final class HistogramMetricsCollector 
+    implements HistogramMetricsListener, HistogramMetricsMXBean
+{
+    /**
+     * The domain of the object names of the MBeans
+     */
+    private static final String DOMAIN = "de.javagl.common.histogram";
+    
+    /**
+     * The histograms whose collectors have been registered, for each
+     * object name
+     */
+    private static final Map<ObjectName, Registration> REGISTRATIONS = 
+        new LinkedHashMap<ObjectName, Registration>();
+    
+    /**
+     * A registered collector, together with its histogram
+     */
+    private static final class Registration
+    {
+        /**
+         * The histogram
+         */
+        private final Histogram<?> histogram;
+        
+        /**
+         * The collector
+         */
+        private final HistogramMetricsCollector collector;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param histogram The histogram
+         * @param collector The collector
+         */
+        Registration(Histogram<?> histogram, 
+            HistogramMetricsCollector collector)
+        {
+            this.histogram = histogram;
+            this.collector = collector;
+        }
+    }
+    
+    /**
+     * Register a new collector as a listener of the given histogram, and 
+     * as an MBean at the platform MBean server
+     * 
+     * @param histogram The histogram
+     * @param name The name of the histogram
+     * @return The object name of the MBean
+     * @throws IllegalArgumentException If the name is not a valid value
+     * of an object name, or an MBean with this name is already registered
+     * @throws IllegalStateException If the MBean could not be registered
+     */
+    static ObjectName register(Histogram<?> histogram, String name)
+    {
+        Objects.requireNonNull(histogram, "The histogram may not be null");
+        Objects.requireNonNull(name, "The name may not be null");
+        ObjectName objectName = createObjectName(name);
+        HistogramMetricsCollector collector = new HistogramMetricsCollector();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (REGISTRATIONS)
+        {
+            try
+            {
+                server.registerMBean(collector, objectName);
+            }
+            catch (InstanceAlreadyExistsException e)
+            {
+                throw new IllegalArgumentException(
+                    "An MBean with the name " + objectName 
+                    + " is already registered", e);
+            }
+            catch (JMException e)
+            {
+                throw new IllegalStateException(
+                    "Could not register MBean " + objectName, e);
+            }
+            REGISTRATIONS.put(objectName, 
+                new Registration(histogram, collector));
+        }
+        histogram.addHistogramMetricsListener(collector);
+        return objectName;
+    }
+    
+    /**
+     * Unregister the MBean with the given name, and remove its collector
+     * from the histogram. If no MBean was registered with the given name 
+     * by {@link #register(Histogram, String)}, then nothing is done.
+     * 
+     * @param objectName The object name
+     * @throws IllegalStateException If the MBean could not be unregistered
+     */
+    static void unregister(ObjectName objectName)
+    {
+        Registration registration = null;
+        synchronized (REGISTRATIONS)
+        {
+            registration = REGISTRATIONS.remove(objectName);
+            if (registration == null)
+            {
+                return;
+            }
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try
+            {
+                server.unregisterMBean(objectName);
+            }
+            catch (InstanceNotFoundException e)
+            {
+                // The MBean was already unregistered directly at the
+                // server. The collector will still be removed.
+            }
+            catch (JMException e)
+            {
+                throw new IllegalStateException(
+                    "Could not unregister MBean " + objectName, e);
+            }
+        }
+        registration.histogram.removeHistogramMetricsListener(
+            registration.collector);
+    }
+    
+    /**
+     * Create the object name for the MBean of the histogram with the 
+     * given name
+     * 
+     * @param name The name
+     * @return The object name
+     * @throws IllegalArgumentException If the name can not be used in
+     * an object name
+     */
+    private static ObjectName createObjectName(String name)
+    {
+        try
+        {
+            return new ObjectName(DOMAIN + ":type=Histogram,name=" 
+                + ObjectName.quote(name));
+        }
+        catch (MalformedObjectNameException e)
+        {
+            throw new IllegalArgumentException(
+                "Invalid histogram name: " + name, e);
+        }
+    }
+    
+    /**
+     * The number of operations
+     */
+    private final LongAdder operationCount;
+    
+    /**
+     * The total duration of each phase, indexed by the ordinal of the phase
+     */
+    private final LongAdder durationsNanos[];
+    
+    /**
+     * The maximum duration of a single operation
+     */
+    private final LongAccumulator maximumOperationNanos;
+    
+    /**
+     * The element count of the last operation
+     */
+    private volatile int elementCount;
+    
+    /**
+     * The bin count of the last operation
+     */
+    private volatile int binCount;
+    
+    /**
+     * The retained bytes of the last operation
+     */
+    private volatile long retainedBytes;
+    
+    /**
+     * Creates a new instance
+     */
+    HistogramMetricsCollector()
+    {
+        this.operationCount = new LongAdder();
+        HistogramPhase phases[] = HistogramPhase.values();
+        this.durationsNanos = new LongAdder[phases.length];
+        for (int i = 0; i < phases.length; i++)
+        {
+            durationsNanos[i] = new LongAdder();
+        }
+        this.maximumOperationNanos = new LongAccumulator(Math::max, 0);
+    }
+    
+    @Override
+    public void measured(HistogramMetricsEvent histogramMetricsEvent)
+    {
+        operationCount.increment();
+        for (HistogramPhase phase : HistogramPhase.values())
+        {
+            durationsNanos[phase.ordinal()].add(
+                histogramMetricsEvent.getDurationNanos(phase));
+        }
+        maximumOperationNanos.accumulate(
+            histogramMetricsEvent.getTotalDurationNanos());
+        elementCount = histogramMetricsEvent.getElementCount();
+        binCount = histogramMetricsEvent.getBinCount();
+        retainedBytes = histogramMetricsEvent.getRetainedBytes();
+    }
+    
+    /**
+     * Returns the total duration of the given phase
+     * 
+     * @param phase The phase
+     * @return The duration, in nanoseconds
+     */
+    private long getNanos(HistogramPhase phase)
+    {
+        return durationsNanos[phase.ordinal()].sum();
+    }
+    
+    @Override
+    public long getOperationCount()
+    {
+        return operationCount.sum();
+    }
+    
+    @Override
+    public long getKeyExtractionNanos()
+    {
+        return getNanos(HistogramPhase.KEY_EXTRACTION);
+    }
+    
+    @Override
+    public long getBinningNanos()
+    {
+        return getNanos(HistogramPhase.BINNING);
+    }
+    
+    @Override
+    public long getWeightingNanos()
+    {
+        return getNanos(HistogramPhase.WEIGHTING);
+    }
+    
+    @Override
+    public long getHighlightingNanos()
+    {
+        return getNanos(HistogramPhase.HIGHLIGHTING);
+    }
+    
+    @Override
+    public long getDatasetNanos()
+    {
+        return getNanos(HistogramPhase.DATASET);
+    }
+    
+    @Override
+    public long getLabelsNanos()
+    {
+        return getNanos(HistogramPhase.LABELS);
+    }
+    
+    @Override
+    public long getPaintingNanos()
+    {
+        return getNanos(HistogramPhase.PAINTING);
+    }
+    
+    @Override
+    public long getMaximumOperationNanos()
+    {
+        return maximumOperationNanos.get();
+    }
+    
+    @Override
+    public int getElementCount()
+    {
+        return elementCount;
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return binCount;
+    }
+    
+    @Override
+    public long getRetainedBytes()
+    {
+        return retainedBytes;
+    }
+    
+    @Override
+    public void reset()
+    {
+        operationCount.reset();
+        for (LongAdder duration : durationsNanos)
+        {
+            duration.reset();
+        }
+        maximumOperationNanos.reset();
+    }
+}
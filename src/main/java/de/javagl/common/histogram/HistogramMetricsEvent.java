@@ -0,0 +1,146 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.EventObject;
+
+/**
+ * An event that describes the time that a {@link Histogram} spent in the
+ * different {@link HistogramPhase}s of one operation, like updating its 
+ * bins or drawing the chart, together with the size of its data
+ */
+public final class HistogramMetricsEvent extends EventObject
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The duration of each phase, in nanoseconds, indexed by the ordinal
+     * of the phase
+     */
+    private final long durationsNanos[];
+    
+    /**
+     * The number of elements
+     */
+    private final int elementCount;
+    
+    /**
+     * The number of bins
+     */
+    private final int binCount;
+    
+    /**
+     * The estimated number of bytes that are retained for the elements
+     */
+    private final long retainedBytes;
+    
+    /**
+     * Creates a new instance. A reference to the given array will be 
+     * stored, so it may not be modified after this instance has been
+     * created.
+     * 
+     * @param histogram The {@link Histogram}
+     * @param durationsNanos The duration of each phase, in nanoseconds, 
+     * indexed by the ordinal of the phase
+     * @param elementCount The number of elements
+     * @param binCount The number of bins
+     * @param retainedBytes The estimated number of retained bytes
+     */
+    HistogramMetricsEvent(Histogram<?> histogram, long durationsNanos[],
+        int elementCount, int binCount, long retainedBytes)
+    {
+        super(histogram);
+        this.durationsNanos = durationsNanos;
+        this.elementCount = elementCount;
+        this.binCount = binCount;
+        this.retainedBytes = retainedBytes;
+    }
+    
+    /**
+     * Returns the time that was spent in the given phase, in nanoseconds.
+     * This is 0 for phases that have not been part of the operation.
+     * 
+     * @param phase The {@link HistogramPhase}
+     * @return The duration, in nanoseconds
+     */
+    public long getDurationNanos(HistogramPhase phase)
+    {
+        return durationsNanos[phase.ordinal()];
+    }
+    
+    /**
+     * Returns the total time that was spent in all phases, in nanoseconds
+     * 
+     * @return The duration, in nanoseconds
+     */
+    public long getTotalDurationNanos()
+    {
+        long sum = 0;
+        for (long duration : durationsNanos)
+        {
+            sum += duration;
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the number of elements of the histogram
+     * 
+     * @return The number of elements
+     */
+    public int getElementCount()
+    {
+        return elementCount;
+    }
+    
+    /**
+     * Returns the number of bins of the histogram
+     * 
+     * @return The number of bins
+     */
+    public int getBinCount()
+    {
+        return binCount;
+    }
+    
+    /**
+     * Returns an estimate of the number of bytes that the histogram 
+     * retains for its elements. This includes the references to the 
+     * elements that are retained strongly, and the bin index and weight 
+     * of each element. It does not include the memory of the elements 
+     * themselves.
+     * 
+     * @return The estimated number of retained bytes
+     */
+    public long getRetainedBytes()
+    {
+        return retainedBytes;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * The management interface for the metrics of a {@link Histogram}, as it
+ * is registered with {@link Histograms#registerMBean(Histogram, String)}.
+ * The durations are accumulated over all operations since the 
+ * registration or the last {@link #reset()}.
+ */
+public interface HistogramMetricsMXBean
+{
+    /**
+     * Returns the number of operations that have been measured
+     * 
+     * @return The number of operations
+     */
+    long getOperationCount();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#KEY_EXTRACTION} 
+     * phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getKeyExtractionNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#BINNING} phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getBinningNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#WEIGHTING} phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getWeightingNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#HIGHLIGHTING} 
+     * phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getHighlightingNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#DATASET} phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getDatasetNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#LABELS} phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getLabelsNanos();
+    
+    /**
+     * Returns the total time of the {@link HistogramPhase#PAINTING} phase
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getPaintingNanos();
+    
+    /**
+     * Returns the longest total duration of a single operation
+     * 
+     * @return The duration, in nanoseconds
+     */
+    long getMaximumOperationNanos();
+    
+    /**
+     * Returns the number of elements, as of the last operation
+     * 
+     * @return The number of elements
+     */
+    int getElementCount();
+    
+    /**
+     * Returns the number of bins, as of the last operation
+     * 
+     * @return The number of bins
+     */
+    int getBinCount();
+    
+    /**
+     * Returns the estimated number of bytes that are retained for the 
+     * elements, as of the last operation
+     * 
+     * @return The number of bytes
+     * @see HistogramMetricsEvent#getRetainedBytes()
+     */
+    long getRetainedBytes();
+    
+    /**
+     * Reset all counters and durations to zero
+     */
+    void reset();
+}
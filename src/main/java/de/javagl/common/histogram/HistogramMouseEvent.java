@@ -68,6 +68,17 @@ public final class HistogramMouseEvent<T> extends EventObject
      */
     private final List<T> highlightedBinElements;
     
+    /**
+     * The number of elements in the bin that the action appeared on
+     */
+    private final int binElementCount;
+    
+    /**
+     * The number of highlighted elements in the bin that the action 
+     * appeared on
+     */
+    private final int highlightedBinElementCount;
+    
     /**
      * Creates a new instance. References to the given lists will be stored
      * and returned, so they should be unmodifiable and may not change after
@@ -79,10 +90,14 @@ public final class HistogramMouseEvent<T> extends EventObject
      * @param highlighted Whether the action appeared on the highlighted part
      * @param binElements The elements in the bin 
      * @param highlightedBinElements The highlighted elements in the bin
+     * @param binElementCount The number of elements in the bin
+     * @param highlightedBinElementCount The number of highlighted elements
+     * in the bin
      */
     HistogramMouseEvent(Histogram<T> histogram,
         MouseEvent mouseEvent, int bin, boolean highlighted, 
-        List<T> binElements, List<T> highlightedBinElements)
+        List<T> binElements, List<T> highlightedBinElements,
+        int binElementCount, int highlightedBinElementCount)
     {
         super(histogram);
         this.mouseEvent = mouseEvent;
@@ -90,6 +105,8 @@ public final class HistogramMouseEvent<T> extends EventObject
         this.highlighted = highlighted;
         this.binElements = binElements;
         this.highlightedBinElements = highlightedBinElements;
+        this.binElementCount = binElementCount;
+        this.highlightedBinElementCount = highlightedBinElementCount;
     }
     
     /**
@@ -124,7 +141,11 @@ public final class HistogramMouseEvent<T> extends EventObject
 
     /**
      * Returns an unmodifiable list of the elements in the bin that the action 
-     * appeared on
+     * appeared on.<br>
+     * <br>
+     * If the histogram does not retain its elements (as determined by its
+     * {@link ElementRetention}), then this list may be empty, even though
+     * the {@link #getBinElementCount() bin element count} is positive.
      * 
      * @return The elements in the bin
      */
@@ -135,7 +156,12 @@ public final class HistogramMouseEvent<T> extends EventObject
 
     /**
      * Returns an unmodifiable list of the highlighted elements in the bin 
-     * that the action appeared on
+     * that the action appeared on.<br>
+     * <br>
+     * If the histogram does not retain its elements (as determined by its
+     * {@link ElementRetention}), then this list may be empty, even though
+     * the {@link #getHighlightedBinElementCount() highlighted bin element 
+     * count} is positive.
      * 
      * @return The highlighted elements in the bin
      */
@@ -143,5 +169,26 @@ public final class HistogramMouseEvent<T> extends EventObject
     {
         return highlightedBinElements;
     }
+    
+    /**
+     * Returns the number of elements in the bin that the action appeared on
+     * 
+     * @return The number of elements in the bin
+     */
+    public int getBinElementCount()
+    {
+        return binElementCount;
+    }
+    
+    /**
+     * Returns the number of highlighted elements in the bin that the action 
+     * appeared on
+     * 
+     * @return The number of highlighted elements in the bin
+     */
+    public int getHighlightedBinElementCount()
+    {
+        return highlightedBinElementCount;
+    }
 }
 
@@ -0,0 +1,78 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * An enumeration of the phases of the work that is done by a 
+ * {@link Histogram}, for which the durations are reported in a
+ * {@link HistogramMetricsEvent}
+ */
+public enum HistogramPhase
+{
+    /**
+     * The extraction of the keys from the elements, for binnings that 
+     * divide a numeric range into bins. These binnings extract the keys 
+     * in chunks, before computing the bins of each chunk. This includes
+     * the keys of the highlighted elements. 
+     */
+    KEY_EXTRACTION,
+    
+    /**
+     * The creation of the binning, and the assignment of the elements to 
+     * the bins. For binnings that do not divide a numeric range into 
+     * bins, for example, for categorical data, the key of each element 
+     * is extracted and assigned to a bin in one step, so this also 
+     * includes the extraction of the keys.
+     */
+    BINNING,
+    
+    /**
+     * The computation of the weights of the elements and of the bins
+     */
+    WEIGHTING,
+    
+    /**
+     * The assignment of the highlighted elements to the bins
+     */
+    HIGHLIGHTING,
+    
+    /**
+     * The ordering of the bins and the update of the chart data
+     */
+    DATASET,
+    
+    /**
+     * The creation of the bin labels and the tool tips while the chart 
+     * is drawn
+     */
+    LABELS,
+    
+    /**
+     * The drawing of the chart, excluding the {@link #LABELS}
+     */
+    PAINTING
+}
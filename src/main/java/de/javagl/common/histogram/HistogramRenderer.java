@@ -0,0 +1,102 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * Interface for classes that render histograms into images, without 
+ * creating a visualization component. This may be used in headless 
+ * environments, for example, for creating many small images of 
+ * histograms on a server.<br>
+ * <br>
+ * A renderer reuses its image for all rendering operations: The image 
+ * that is returned by one call to a <code>render</code> method will be 
+ * overwritten by the next call. Instances of this interface are not
+ * thread-safe.
+ * 
+ * @param <T> The type of the elements
+ */
+public interface HistogramRenderer<T>
+{
+    /**
+     * Returns the width of the images of this renderer
+     * 
+     * @return The width
+     */
+    int getWidth();
+    
+    /**
+     * Returns the height of the images of this renderer
+     * 
+     * @return The height
+     */
+    int getHeight();
+    
+    /**
+     * Render the histogram of the given elements. If any of the given 
+     * collections is <code>null</code>, then the empty collection will 
+     * be used instead.
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements
+     * @return The image. This image will be reused by this renderer.
+     */
+    BufferedImage render(
+        Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements);
+    
+    /**
+     * Render the current state of the given {@link Histogram}, with its
+     * current bins and bin labels
+     * 
+     * @param histogram The {@link Histogram}
+     * @return The image. This image will be reused by this renderer.
+     * @throws IllegalArgumentException If the given histogram was not
+     * created with one of the methods of the {@link Histograms} class
+     */
+    BufferedImage render(Histogram<?> histogram);
+    
+    /**
+     * Render the histogram of the given elements, and write it as a PNG 
+     * image to the given stream. If any of the given collections is 
+     * <code>null</code>, then the empty collection will be used instead.
+     * The given stream will not be closed.
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    void writePng(
+        Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements, 
+        OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,206 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.event.MouseEvent;
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * An event that indicates that a range of bins was selected in a 
+ * {@link NumberHistogram}
+ * 
+ * @param <T> The type of the elements
+ */
+public final class HistogramSelectionEvent<T> extends EventObject
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The mouse event that caused this event
+     */
+    private final MouseEvent mouseEvent;
+    
+    /**
+     * The index of the first selected bin, inclusive
+     */
+    private final int fromBin;
+    
+    /**
+     * The index of the last selected bin, exclusive
+     */
+    private final int toBin;
+    
+    /**
+     * The minimum value of the selected bins
+     */
+    private final double minimum;
+    
+    /**
+     * The maximum value of the selected bins
+     */
+    private final double maximum;
+    
+    /**
+     * The elements in the selected bins
+     */
+    private final List<T> elements;
+    
+    /**
+     * The number of elements in the selected bins
+     */
+    private final int elementCount;
+    
+    /**
+     * The number of highlighted elements in the selected bins
+     */
+    private final int highlightedElementCount;
+    
+    /**
+     * Creates a new instance. A reference to the given list will be stored
+     * and returned, so it should be unmodifiable and may not change after
+     * this instance has been created 
+     * 
+     * @param histogram The {@link NumberHistogram}
+     * @param mouseEvent The original mouse event
+     * @param fromBin The index of the first selected bin, inclusive
+     * @param toBin The index of the last selected bin, exclusive
+     * @param minimum The minimum value of the selected bins
+     * @param maximum The maximum value of the selected bins
+     * @param elements The elements in the selected bins
+     * @param elementCount The number of elements in the selected bins
+     * @param highlightedElementCount The number of highlighted elements
+     * in the selected bins
+     */
+    HistogramSelectionEvent(NumberHistogram<T> histogram,
+        MouseEvent mouseEvent, int fromBin, int toBin, 
+        double minimum, double maximum, List<T> elements,
+        int elementCount, int highlightedElementCount)
+    {
+        super(histogram);
+        this.mouseEvent = mouseEvent;
+        this.fromBin = fromBin;
+        this.toBin = toBin;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.elements = elements;
+        this.elementCount = elementCount;
+        this.highlightedElementCount = highlightedElementCount;
+    }
+    
+    /**
+     * Returns the mouse event that caused this event
+     * 
+     * @return The mouse event
+     */
+    public MouseEvent getMouseEvent()
+    {
+        return mouseEvent;
+    }
+    
+    /**
+     * Returns the index of the first selected bin, inclusive
+     * 
+     * @return The index of the first selected bin
+     */
+    public int getFromBin()
+    {
+        return fromBin;
+    }
+    
+    /**
+     * Returns the index of the last selected bin, exclusive
+     * 
+     * @return The index of the last selected bin
+     */
+    public int getToBin()
+    {
+        return toBin;
+    }
+    
+    /**
+     * Returns the minimum value of the selected bins. This is the 
+     * minimum value of the first selected bin.
+     * 
+     * @return The minimum value
+     */
+    public double getMinimum()
+    {
+        return minimum;
+    }
+    
+    /**
+     * Returns the maximum value of the selected bins. This is the 
+     * maximum value of the last selected bin.
+     * 
+     * @return The maximum value
+     */
+    public double getMaximum()
+    {
+        return maximum;
+    }
+    
+    /**
+     * Returns an unmodifiable list of the elements in the selected bins,
+     * sorted by their keys. This list is a view on the sorted key index 
+     * of the histogram, and is obtained without iterating over the 
+     * elements.<br>
+     * <br>
+     * If the histogram does not retain its elements (as determined by its
+     * {@link ElementRetention}), then this list may be empty, even though
+     * the {@link #getElementCount() element count} is positive.
+     * 
+     * @return The elements in the selected bins
+     */
+    public List<T> getElements()
+    {
+        return elements;
+    }
+    
+    /**
+     * Returns the number of elements in the selected bins
+     * 
+     * @return The number of elements
+     */
+    public int getElementCount()
+    {
+        return elementCount;
+    }
+    
+    /**
+     * Returns the number of highlighted elements in the selected bins
+     * 
+     * @return The number of highlighted elements
+     */
+    public int getHighlightedElementCount()
+    {
+        return highlightedElementCount;
+    }
+}
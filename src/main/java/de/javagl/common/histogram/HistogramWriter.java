@@ -0,0 +1,57 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Interface for classes that write {@link HistogramData} in a certain 
+ * file format. Instances of this interface may be called concurrently
+ * from multiple threads, for example, by a {@link HistogramBatchWriter}.
+ */
+public interface HistogramWriter
+{
+    /**
+     * Returns the extension of the files that are written by this 
+     * writer, without the leading dot. For example, <code>"png"</code>.
+     * 
+     * @return The file extension
+     */
+    String getFileExtension();
+    
+    /**
+     * Write the given {@link HistogramData} to the given stream. The 
+     * stream will not be closed.
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs
+     */
+    void write(HistogramData histogramData, OutputStream outputStream) 
+        throws IOException;
+}
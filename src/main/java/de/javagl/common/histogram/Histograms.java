@@ -29,21 +29,30 @@ package de.javagl.common.histogram;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
 import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
+import javax.management.ObjectName;
+import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
@@ -54,6 +63,12 @@ import javax.swing.SpinnerNumberModel;
  */
 public class Histograms
 {
+    /**
+     * The maximum number of bins that are shown at once in histograms for
+     * categorical data and for calendar periods
+     */
+    private static final int MAXIMUM_VISIBLE_CATEGORY_COUNT = 100;
+    
     /**
      * Creates a new {@link Histogram} with the given elements.
      * 
@@ -72,6 +87,11 @@ public class Histograms
      * distributed among the bins based on the value that is returned 
      * by the given key extractor.<br>
      * <br>
+     * When the keys are integers from a small range, most of which occur 
+     * as keys, or constants of a single enum type, then there will be 
+     * one bin for each integer in this range or each enum constant, in 
+     * ascending order. Otherwise, there will be one bin for each distinct 
+     * key, in the order in which the keys appear.
      * 
      * @param <T> The element type
      *  
@@ -87,25 +107,186 @@ public class Histograms
             elements, "The elements may not be null");
         Objects.requireNonNull(
             keyExtractor, "The keyExtractor may not be null");
-        Set<Object> keySet = new LinkedHashSet<Object>();
-        List<String> binLabels = new ArrayList<String>();
-        for (T element : elements)
+        
+        // Compute the keys, the bin of each element and the bin counts
+        // in a single pass, calling the key extractor once per element.
+        // When the keys turn out not to be dense, then the keys that have
+        // already been extracted are passed on to the dictionary encoding
+        List<T> elementList = new ArrayList<T>(elements);
+        DictionaryEncoding.Builder builder = 
+            new DictionaryEncoding.Builder(elementList.size());
+        DenseEncoding denseEncoding = 
+            DenseEncoding.create(elementList, keyExtractor, builder);
+        if (denseEncoding != null)
         {
-            Object key = keyExtractor.apply(element);
-            if (!keySet.contains(key))
-            {
-                keySet.add(key);
-                binLabels.add(String.valueOf(key));
-            }
+            return createDense(elementList, keyExtractor, denseEncoding);
         }
-        Binning<T> binning =
-            Binnings.createGeneralBinning(elements, keyExtractor);
+        DictionaryEncoding encoding = builder.build();
+        KeyIndexMap keyIndices = encoding.getKeyIndices();
+        String binLabels[] = new String[keyIndices.size()];
+        for (int i = 0; i < binLabels.length; i++)
+        {
+            binLabels[i] = String.valueOf(keyIndices.getKey(i));
+        }
+        Binning<T> binning = 
+            new GeneralBinning<T>(keyExtractor, keyIndices);
         JFreeChartHistogram<T> histogram =
-            new JFreeChartHistogram<T>(binning, binLabels::get);
-        histogram.setElements(elements, null);
+            new JFreeChartHistogram<T>(binning, bin -> binLabels[bin]);
+        histogram.setMaximumVisibleBinCount(MAXIMUM_VISIBLE_CATEGORY_COUNT);
+        histogram.setBinKeyComparator(createBinKeyComparator(keyIndices));
+        histogram.setEncodedElements(
+            elementList, encoding.getCodes(), encoding.getCounts());
         return histogram;
     }
 
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins of the given {@link DenseEncoding}
+     * 
+     * @param <T> The element type
+     *  
+     * @param elementList The elements
+     * @param keyExtractor The key extractor
+     * @param encoding The {@link DenseEncoding} of the elements
+     * @return The {@link Histogram}
+     */
+    private static <T> Histogram<T> createDense(List<T> elementList,
+        Function<? super T, Object> keyExtractor, DenseEncoding encoding)
+    {
+        Binning<T> binning = encoding.createBinning(keyExtractor);
+        String binLabels[] = new String[binning.getBinCount()];
+        for (int i = 0; i < binLabels.length; i++)
+        {
+            binLabels[i] = String.valueOf(encoding.getKey(i));
+        }
+        JFreeChartHistogram<T> histogram =
+            new JFreeChartHistogram<T>(binning, bin -> binLabels[bin]);
+        histogram.setMaximumVisibleBinCount(MAXIMUM_VISIBLE_CATEGORY_COUNT);
+        histogram.setBinKeyComparator(Comparator.naturalOrder());
+        histogram.setEncodedElements(
+            elementList, encoding.getCodes(), encoding.getCounts());
+        return histogram;
+    }
+
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins based on the value that is returned 
+     * by the given key extractor, for keys that may have a very large 
+     * number of distinct values.<br>
+     * <br>
+     * The histogram will contain a bin for each of the (at most) 
+     * <code>k</code> most frequent keys, in descending order of their
+     * frequency, and one additional bin for all other keys, if there 
+     * are more than <code>k</code> distinct keys.<br>
+     * <br>
+     * When the number of distinct keys is small, the most frequent keys 
+     * will be determined exactly, in a single pass over the elements. 
+     * Otherwise, they will be determined with a sketch that requires 
+     * memory that only depends on <code>k</code>, and may then be 
+     * approximate. The counts that are shown for the bins are always 
+     * exact.
+     * 
+     * @param <T> The element type
+     *  
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param k The maximum number of keys that receive their own bin
+     * @return The {@link Histogram}
+     * @throws IllegalArgumentException If <code>k</code> is not positive
+     */
+    public static <T> Histogram<T> createTopK(
+        Collection<? extends T> elements, 
+        Function<? super T, Object> keyExtractor, int k)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        
+        List<T> elementList = new ArrayList<T>(elements);
+        HeavyHitters heavyHitters = 
+            HeavyHitters.compute(elementList, keyExtractor, k);
+        KeyIndexMap topKeys = heavyHitters.getTopKeys();
+        boolean withOtherBin = heavyHitters.hasOtherKeys();
+        String binLabels[] = 
+            new String[topKeys.size() + (withOtherBin ? 1 : 0)];
+        for (int i = 0; i < topKeys.size(); i++)
+        {
+            binLabels[i] = String.valueOf(topKeys.getKey(i));
+        }
+        if (withOtherBin)
+        {
+            binLabels[topKeys.size()] = "(other)";
+        }
+        Binning<T> binning = 
+            new GeneralBinning<T>(keyExtractor, topKeys, withOtherBin);
+        JFreeChartHistogram<T> histogram =
+            new JFreeChartHistogram<T>(binning, bin -> binLabels[bin]);
+        histogram.setMaximumVisibleBinCount(MAXIMUM_VISIBLE_CATEGORY_COUNT);
+        histogram.setBinKeyComparator(createBinKeyComparator(topKeys));
+        if (heavyHitters.isExact())
+        {
+            histogram.setEncodedElements(elementList, 
+                heavyHitters.getElementBins(), heavyHitters.getBins());
+        }
+        else
+        {
+            histogram.setSharedElements(elementList);
+        }
+        return histogram;
+    }
+
+    /**
+     * Creates a comparator for bin indices, which compares the keys that
+     * the given map contains for these indices. Keys that are mutually
+     * comparable will be compared with their natural order. Other keys
+     * will be compared by their string representation. Bin indices for 
+     * which the map does not contain a key (like the bin for other keys 
+     * in a histogram that was created with {@link #createTopK}) will be 
+     * placed at the end.
+     * 
+     * @param keyIndices The key indices
+     * @return The comparator
+     */
+    private static Comparator<Integer> createBinKeyComparator(
+        KeyIndexMap keyIndices)
+    {
+        int keyCount = keyIndices.size();
+        return (b0, b1) -> 
+        {
+            if (b0 >= keyCount || b1 >= keyCount)
+            {
+                return Integer.compare(b0, b1);
+            }
+            return compareKeys(keyIndices.getKey(b0), keyIndices.getKey(b1));
+        };
+    }
+    
+    /**
+     * Compare the given keys. If they are both <code>Comparable</code>
+     * and of the same class, then they will be compared with their natural
+     * order. Otherwise, they will be compared by their string 
+     * representation. <code>null</code> keys are considered to be
+     * smaller than all other keys.
+     * 
+     * @param k0 The first key
+     * @param k1 The second key
+     * @return The comparison result
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareKeys(Object k0, Object k1)
+    {
+        if (k0 == null || k1 == null)
+        {
+            return Boolean.compare(k0 != null, k1 != null);
+        }
+        if (k0 instanceof Comparable && k0.getClass() == k1.getClass())
+        {
+            return ((Comparable) k0).compareTo(k1);
+        }
+        return String.valueOf(k0).compareTo(String.valueOf(k1));
+    }
+    
     /**
      * Create a new {@link Histogram} that shows the given numeric elements.
      * The returned histogram will have a control component for changing
@@ -171,7 +352,7 @@ public class Histograms
             String pattern)
     {
         return createNumeric(elements, null, null, keyExtractor, 
-            dateBinLabelFunctionProvider(pattern));
+            dateBinLabelFunctionProvider(pattern), BinCountRule.STURGES);
     }
 
     /**
@@ -199,9 +380,86 @@ public class Histograms
             String pattern)
     {
         return createNumeric(elements, min, max, keyExtractor, 
-            dateBinLabelFunctionProvider(pattern));
+            dateBinLabelFunctionProvider(pattern), BinCountRule.STURGES);
+    }
+    
+
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among bins that are calendar periods, based on the
+     * timestamp that is returned by the given key extractor.<br>
+     * <br>
+     * The bins will be the periods of the given unit that cover the range
+     * of the timestamps, aligned to the calendar in the given time zone. 
+     * For example, when the unit is <code>ChronoUnit.DAYS</code>, then each 
+     * bin will cover one day, from midnight to midnight. Weeks start on
+     * Monday. The timestamps are assigned to the bins with integer 
+     * arithmetic. Only a window of the bins is shown at once, and the 
+     * labels of the bins are only computed when they are shown.
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor, providing milliseconds 
+     * since the epoch
+     * @param unit The unit. This must be one of <code>MINUTES</code>, 
+     * <code>HOURS</code>, <code>DAYS</code>, <code>WEEKS</code>, 
+     * <code>MONTHS</code> or <code>YEARS</code>.
+     * @param zone The time zone
+     * @return The {@link Histogram}
+     * @throws IllegalArgumentException If the unit is not supported, or
+     * the range of the timestamps would require more than about one 
+     * million bins 
+     */
+    public static <T> Histogram<T> createForDate(
+        Collection<? extends T> elements, 
+        ToLongFunction<? super T> keyExtractor, 
+        ChronoUnit unit, ZoneId zone)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        Objects.requireNonNull(unit, "The unit may not be null");
+        Objects.requireNonNull(zone, "The zone may not be null");
+        
+        CalendarBinning<T> binning = Binnings.createCalendarBinning(
+            elements, keyExtractor, unit, zone);
+        String pattern = calendarPatternFor(unit);
+        DateTimeFormatter formatter = 
+            DateTimeFormatter.ofPattern(pattern).withZone(zone);
+        IntFunction<String> binLabelFunction = bin -> 
+            formatter.format(Instant.ofEpochMilli(binning.getBinStart(bin)));
+        JFreeChartHistogram<T> histogram =
+            new JFreeChartHistogram<T>(binning, binLabelFunction);
+        histogram.setMaximumVisibleBinCount(MAXIMUM_VISIBLE_CATEGORY_COUNT);
+        histogram.setElements(elements, null);
+        return histogram;
     }
     
+    /**
+     * Returns the date-time formatter pattern for the labels of bins that
+     * are calendar periods of the given unit
+     * 
+     * @param unit The unit
+     * @return The pattern
+     */
+    private static String calendarPatternFor(ChronoUnit unit)
+    {
+        switch (unit)
+        {
+            case MINUTES:
+            case HOURS:
+                return "yyyy-MM-dd HH:mm";
+            case DAYS:
+            case WEEKS:
+                return "yyyy-MM-dd";
+            case MONTHS:
+                return "yyyy-MM";
+            default:
+                return "yyyy";
+        }
+    }
 
     /**
      * Create a new {@link Histogram} that shows the given elements, 
@@ -222,9 +480,36 @@ public class Histograms
     public static <T, K extends Number> NumberHistogram<T> 
         createNumeric(Collection<? extends T> elements, 
             Function<? super T, ? extends K> keyExtractor)
+    {
+        return createNumeric(elements, keyExtractor, BinCountRule.STURGES);
+    }
+    
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins based on the numeric value that
+     * is returned by the given key extractor.<br>
+     * <br>
+     * The returned histogram will have a control component for changing
+     * the number of bins. The initial number of bins will be computed
+     * with the given {@link BinCountRule}. The statistics that are 
+     * required for this rule are computed in the same pass over the 
+     * elements as the range of the values.
+     * 
+     * @param <T> The element type
+     * @param <K> The key type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param binCountRule The {@link BinCountRule}
+     * @return The {@link Histogram}
+     */
+    public static <T, K extends Number> NumberHistogram<T> 
+        createNumeric(Collection<? extends T> elements, 
+            Function<? super T, ? extends K> keyExtractor,
+            BinCountRule binCountRule)
     {
         return createNumeric(elements, null, null, keyExtractor, 
-            defaultBinLabelFunctionProvider());
+            defaultBinLabelFunctionProvider(), binCountRule);
     }
     
     /**
@@ -233,8 +518,8 @@ public class Histograms
      * is returned by the given key extractor.<br>
      * <br>
      * The returned histogram will have a control component for changing
-     * the number of bins. The initial number of bins is not specified,
-     * but will be "reasonable" for many application cases.
+     * the number of bins. The initial number of bins will be computed
+     * with the given {@link BinCountRule}.
      * 
      * @param <T> The element type
      * @param <K> The key type
@@ -246,13 +531,14 @@ public class Histograms
      * @param binLabelFunctionProvider the function that, for a given 
      * {@link NumberBinning}, returns the function that provides 
      * the bin labels
+     * @param binCountRule The {@link BinCountRule}
      * @return The {@link Histogram}
      */
     private static <T, K extends Number> NumberHistogram<T> 
         createNumeric(Collection<? extends T> elements,
             T min, T max, Function<? super T, ? extends K> keyExtractor,
             Function<? super NumberBinning<?>, ? extends IntFunction<String>> 
-                binLabelFunctionProvider)
+                binLabelFunctionProvider, BinCountRule binCountRule)
     {
         Objects.requireNonNull(
             elements, "The elements may not be null");
@@ -261,22 +547,219 @@ public class Histograms
         Objects.requireNonNull(
             binLabelFunctionProvider, 
             "The binLabelFunctionProvider may not be null");
+        Objects.requireNonNull(
+            binCountRule, "The binCountRule may not be null");
         
-        int initialNumBins = computeNumBins(elements.size());
-        
+        // Compute the range and the statistics for the bin count rule
+        // in a single pass
         ToDoubleFunction<T> valueExtractor = 
             t -> keyExtractor.apply(t).doubleValue();
+        ValueStatistics statistics = ValueStatistics.compute(
+            elements, valueExtractor, binCountRule.requiresDistribution());
         Point2D range = 
-            Binnings.computeRange(elements, min, max, valueExtractor);
+            Binnings.computeRange(statistics, min, max, valueExtractor);
+        int initialNumBins = binCountRule.computeBinCount(
+            statistics, range.getY() - range.getX());
         if (Binnings.isEmpty(range))
         {
             initialNumBins = 1;
         }
         
+        // The range is computed only once, so that the binning provider
+        // does not have to retain the elements
         IntFunction<NumberBinning<T>> binningProvider = binCount ->
             Binnings.createSimpleNumberBinning(
-                elements, keyExtractor, binCount, min, max);
-        NumberBinning<T> binning = binningProvider.apply(initialNumBins);
+                valueExtractor, range, binCount);
+        RangeBinningProvider<NumberBinning<T>> rangeBinningProvider = 
+            new RangeBinningProvider<NumberBinning<T>>()
+        {
+            @Override
+            public NumberBinning<T> createBinning(
+                double zoomMin, double zoomMax, int binCount)
+            {
+                if (zoomMin >= zoomMax)
+                {
+                    throw new IllegalArgumentException("The range [" 
+                        + zoomMin + ", " + zoomMax + "] is empty");
+                }
+                return Binnings.createSimpleNumberBinning(valueExtractor, 
+                    new Point2D.Double(zoomMin, zoomMax), binCount);
+            }
+            
+            @Override
+            public NumberBinning<T> createBinning(NumberBinning<T> binning,
+                int fromBin, int toBin, int binCount)
+            {
+                return createBinning(binning.getBinMinimum(fromBin), 
+                    binning.getBinMaximum(toBin - 1), binCount);
+            }
+        };
+        return createNumberHistogram(elements, initialNumBins, 
+            binningProvider, rangeBinningProvider, binLabelFunctionProvider);
+    }
+    
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins based on the <code>long</code> value 
+     * that is returned by the given key extractor.<br>
+     * <br>
+     * In contrast to {@link #createNumeric(Collection, Function)}, the 
+     * bins will be computed exactly, with integer arithmetic. This is 
+     * appropriate for large integer values, like identifiers or 
+     * timestamps, which can not be represented exactly as 
+     * <code>double</code> values. Each bin will contain at least one 
+     * integer value, so the number of bins will not be larger than the 
+     * number of values in the range of the keys.<br>
+     * <br>
+     * The returned histogram will have a control component for changing
+     * the number of bins. The initial number of bins is not specified,
+     * but will be "reasonable" for many application cases.
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @return The {@link Histogram}
+     */
+    public static <T> NumberHistogram<T> createForLong(
+        Collection<? extends T> elements, 
+        ToLongFunction<? super T> keyExtractor)
+    {
+        return createForLong(elements, keyExtractor, 
+            longBinLabelFunctionProvider());
+    }
+    
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins based on the timestamp that is returned 
+     * by the given key extractor.<br>
+     * <br>
+     * The timestamps are given as <code>long</code> values, in the given 
+     * resolution, since the epoch. For example, when the resolution is
+     * <code>ChronoUnit.NANOS</code>, then the timestamps are nanoseconds 
+     * since the epoch. The bins will be computed exactly, as described in 
+     * {@link #createForLong(Collection, ToLongFunction)}, and the bin 
+     * limits will be shown as dates that are formatted with the given
+     * pattern, in UTC.
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param resolution The resolution of the timestamps. This must be
+     * one of <code>SECONDS</code>, <code>MILLIS</code>, 
+     * <code>MICROS</code> or <code>NANOS</code>
+     * @param pattern The pattern for the date-time formatter
+     * @return The {@link Histogram}
+     * @throws IllegalArgumentException If the resolution is not supported
+     */
+    public static <T> NumberHistogram<T> createForTimestamp(
+        Collection<? extends T> elements, 
+        ToLongFunction<? super T> keyExtractor,
+        ChronoUnit resolution, String pattern)
+    {
+        // Validate the resolution early
+        toInstant(0, resolution);
+        return createForLong(elements, keyExtractor, 
+            longDateBinLabelFunctionProvider(resolution, pattern));
+    }
+    
+    /**
+     * Create a new {@link Histogram} that shows the given elements, 
+     * distributed among the bins based on the <code>long</code> value 
+     * that is returned by the given key extractor.<br>
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param binLabelFunctionProvider the function that, for a given 
+     * {@link LongBinning}, returns the function that provides 
+     * the bin labels
+     * @return The {@link Histogram}
+     */
+    private static <T> NumberHistogram<T> createForLong(
+        Collection<? extends T> elements, 
+        ToLongFunction<? super T> keyExtractor,
+        Function<? super LongBinning<T>, ? extends IntFunction<String>> 
+            binLabelFunctionProvider)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        
+        long min = 0;
+        long max = 0;
+        if (!elements.isEmpty())
+        {
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            for (T element : elements)
+            {
+                long value = keyExtractor.applyAsLong(element);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        int initialNumBins = computeNumBins(elements.size());
+        if (min == max)
+        {
+            initialNumBins = 1;
+        }
+        long rangeMin = min;
+        long rangeMax = max;
+        IntFunction<LongBinning<T>> binningProvider = binCount -> 
+            new LongBinning<T>(keyExtractor, rangeMin, rangeMax, binCount);
+        RangeBinningProvider<LongBinning<T>> rangeBinningProvider = 
+            new RangeBinningProvider<LongBinning<T>>()
+        {
+            @Override
+            public LongBinning<T> createBinning(
+                double zoomMin, double zoomMax, int binCount)
+            {
+                return new LongBinning<T>(keyExtractor, 
+                    (long) Math.floor(zoomMin), (long) Math.ceil(zoomMax), 
+                    binCount);
+            }
+            
+            @Override
+            public LongBinning<T> createBinning(LongBinning<T> binning,
+                int fromBin, int toBin, int binCount)
+            {
+                return binning.createForBins(fromBin, toBin, binCount);
+            }
+        };
+        return createNumberHistogram(elements, initialNumBins, 
+            binningProvider, rangeBinningProvider, binLabelFunctionProvider);
+    }
+    
+    /**
+     * Create a new {@link NumberHistogram} that shows the given elements,
+     * with a control component for changing the number of bins, and for
+     * zooming into a range of bins that was selected by dragging the mouse.
+     * 
+     * @param <T> The element type
+     * @param <B> The binning type
+     * 
+     * @param elements The elements
+     * @param initialNumBins The initial number of bins
+     * @param binningProvider The function that provides the binning
+     * for a given number of bins
+     * @param rangeBinningProvider The provider for the binnings of a 
+     * range that was zoomed into
+     * @param binLabelFunctionProvider the function that, for a given 
+     * binning, returns the function that provides the bin labels
+     * @return The {@link NumberHistogram}
+     */
+    private static <T, B extends RangeBinning<T>> NumberHistogram<T> 
+        createNumberHistogram(Collection<? extends T> elements,
+            int initialNumBins, IntFunction<? extends B> binningProvider,
+            RangeBinningProvider<B> rangeBinningProvider,
+            Function<? super B, ? extends IntFunction<String>> 
+                binLabelFunctionProvider)
+    {
+        B binning = binningProvider.apply(initialNumBins);
         IntFunction<String> binLabelFunction = 
             binLabelFunctionProvider.apply(binning);
         JFreeChartHistogram<T> histogram = 
@@ -287,40 +770,451 @@ public class Histograms
         label.setFont(label.getFont().deriveFont(10.f));
         controlPanel.add(label, BorderLayout.WEST);
         JSpinner spinner = new JSpinner(
-            new SpinnerNumberModel(initialNumBins, 1, 100000, 1));
+            new SpinnerNumberModel(
+                initialNumBins, 1, BinCountRule.MAX_BIN_COUNT, 1));
         controlPanel.add(spinner, BorderLayout.CENTER);
         spinner.setFont(spinner.getFont().deriveFont(10.f));
+        
+        JPanel zoomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 0));
+        JButton zoomButton = new JButton("Zoom");
+        zoomButton.setFont(zoomButton.getFont().deriveFont(10.f));
+        zoomButton.setToolTipText(
+            "Zoom into the bins that have been selected by dragging");
+        zoomButton.setEnabled(false);
+        zoomPanel.add(zoomButton);
+        JButton resetZoomButton = new JButton("Reset");
+        resetZoomButton.setFont(resetZoomButton.getFont().deriveFont(10.f));
+        resetZoomButton.setToolTipText("Show the full range of values");
+        resetZoomButton.setEnabled(false);
+        zoomPanel.add(resetZoomButton);
+        controlPanel.add(zoomPanel, BorderLayout.EAST);
 
         // The bin count handling should be kept out of the 
         // JFreeChartHistogram implementation. But the spinner 
         // should still be updated when the bin count changes.
         // This solution is a bit odd, but not visible to the user:
-        JFreeChartNumberHistogram<T> numberHistogram = 
-            new JFreeChartNumberHistogram<T>(
-                histogram, binningProvider, binLabelFunctionProvider)
+        JFreeChartNumberHistogram<T, B> numberHistogram = 
+            new JFreeChartNumberHistogram<T, B>(histogram, binningProvider, 
+                rangeBinningProvider, binLabelFunctionProvider)
         {
             @Override
             public void setBinCount(int binCount) 
             {
                 super.setBinCount(binCount);
                 spinner.setValue(binCount);
+                zoomButton.setEnabled(false);
+            }
+            
+            @Override
+            public void zoom(double minimum, double maximum)
+            {
+                super.zoom(minimum, maximum);
+                zoomButton.setEnabled(false);
+                resetZoomButton.setEnabled(true);
+            }
+            
+            @Override
+            public void zoomToBins(int fromBin, int toBin)
+            {
+                super.zoomToBins(fromBin, toBin);
+                zoomButton.setEnabled(false);
+                resetZoomButton.setEnabled(true);
+            }
+            
+            @Override
+            public void resetZoom()
+            {
+                super.resetZoom();
+                zoomButton.setEnabled(false);
+                resetZoomButton.setEnabled(false);
             }
         };
         
+        // The selected bins are stored when a selection was made, and 
+        // used when the zoom button is pressed
+        int selectedBins[] = new int[2];
+        numberHistogram.addHistogramSelectionListener(e -> 
+        {
+            selectedBins[0] = e.getFromBin();
+            selectedBins[1] = e.getToBin();
+            zoomButton.setEnabled(true);
+        });
+        
+        // When the elements are no longer retained and the counts can 
+        // not be computed approximately, then the binning can not be 
+        // changed, and the controls do not have any effect
+        zoomButton.addActionListener(e -> 
+        {
+            zoomButton.setEnabled(false);
+            if (numberHistogram.canChangeBinning() 
+                && selectedBins[1] <= numberHistogram.getBinCount())
+            {
+                numberHistogram.zoomToBins(selectedBins[0], selectedBins[1]);
+            }
+        });
+        resetZoomButton.addActionListener(e -> 
+        {
+            if (numberHistogram.canChangeBinning())
+            {
+                numberHistogram.resetZoom();
+            }
+        });
+        
         spinner.addChangeListener(e -> 
         {
             Object value = spinner.getValue();
             Number number = (Number)value;
             int binCount = number.intValue();
-            numberHistogram.setBinCount(binCount);
+            if (binCount != numberHistogram.getBinCount())
+            {
+                if (numberHistogram.canChangeBinning())
+                {
+                    numberHistogram.setBinCount(binCount);
+                }
+                else
+                {
+                    spinner.setValue(numberHistogram.getBinCount());
+                }
+            }
         });
         JPanel p = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
         p.add(controlPanel);
         histogram.addControlComponent(p);
-        histogram.setElements(elements, null);
+        numberHistogram.setElements(elements, null);
         return numberHistogram;
     }
     
+    /**
+     * Create a new {@link Heatmap} that shows the given elements, 
+     * distributed among the cells of a grid based on the values that 
+     * are returned by the given key extractors for the x- and y-axis.
+     * The cells are computed in a single pass over the elements.
+     * 
+     * @param <T> The element type
+     * @param <X> The key type for the x-axis
+     * @param <Y> The key type for the y-axis
+     * 
+     * @param elements The elements
+     * @param keyExtractorX The key extractor for the x-axis
+     * @param keyExtractorY The key extractor for the y-axis
+     * @param binCountX The number of bins on the x-axis
+     * @param binCountY The number of bins on the y-axis
+     * @return The {@link Heatmap}
+     * @throws IllegalArgumentException If one of the bin counts is not
+     * positive, or the number of cells is too large
+     */
+    public static <T, X extends Number, Y extends Number> Heatmap<T> 
+        createHeatmap(Collection<? extends T> elements, 
+            Function<? super T, ? extends X> keyExtractorX,
+            Function<? super T, ? extends Y> keyExtractorY,
+            int binCountX, int binCountY)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractorX, "The keyExtractorX may not be null");
+        Objects.requireNonNull(
+            keyExtractorY, "The keyExtractorY may not be null");
+        ToDoubleFunction<T> valueExtractorX = 
+            t -> keyExtractorX.apply(t).doubleValue();
+        ToDoubleFunction<T> valueExtractorY = 
+            t -> keyExtractorY.apply(t).doubleValue();
+        
+        // Compute the ranges of both axes in a single pass, ignoring
+        // NaN values
+        ValueStatistics statisticsX = new ValueStatistics(false);
+        ValueStatistics statisticsY = new ValueStatistics(false);
+        for (T element : elements)
+        {
+            statisticsX.add(valueExtractorX.applyAsDouble(element));
+            statisticsY.add(valueExtractorY.applyAsDouble(element));
+        }
+        Point2D rangeX = Binnings.computeRange(
+            statisticsX, null, null, valueExtractorX);
+        Point2D rangeY = Binnings.computeRange(
+            statisticsY, null, null, valueExtractorY);
+        NumberBinning<T> binningX = Binnings.createSimpleNumberBinning(
+            valueExtractorX, rangeX, binCountX);
+        NumberBinning<T> binningY = Binnings.createSimpleNumberBinning(
+            valueExtractorY, rangeY, binCountY);
+        GridBinning<T> binning = new GridBinning<T>(binningX, binningY);
+        ImageHeatmap<T> heatmap = new ImageHeatmap<T>(binning);
+        heatmap.setElements(elements);
+        return heatmap;
+    }
+    
+    /**
+     * Create a new {@link HistogramRenderer} that renders histograms of 
+     * elements into images with the given size, with one bin for each
+     * distinct key that is returned by the given key extractor, in the 
+     * order in which the keys first appear in the elements.<br>
+     * <br>
+     * The renderer does not create any Swing components, and may be used
+     * in headless environments.
+     * 
+     * @param <T> The element type
+     * 
+     * @param keyExtractor The key extractor
+     * @param width The width of the images
+     * @param height The height of the images
+     * @return The {@link HistogramRenderer}
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    public static <T> HistogramRenderer<T> createRenderer(
+        Function<? super T, Object> keyExtractor, int width, int height)
+    {
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        return new ImageHistogramRenderer<T>(
+            (elements, highlightedElements) -> BinCounts.computeCategorical(
+                elements, highlightedElements, keyExtractor),
+            width, height);
+    }
+    
+    /**
+     * Create a new {@link HistogramRenderer} that renders histograms of 
+     * elements into images with the given size, where the elements are 
+     * distributed among the bins based on the numeric value that is 
+     * returned by the given key extractor. The range of the bins is the 
+     * range of the values of the elements that are rendered, and the 
+     * number of bins is determined with the given {@link BinCountRule}.
+     * <br>
+     * <br>
+     * The renderer does not create any Swing components, and may be used
+     * in headless environments.
+     * 
+     * @param <T> The element type
+     * @param <K> The key type
+     * 
+     * @param keyExtractor The key extractor
+     * @param binCountRule The {@link BinCountRule}
+     * @param width The width of the images
+     * @param height The height of the images
+     * @return The {@link HistogramRenderer}
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    public static <T, K extends Number> HistogramRenderer<T> 
+        createNumericRenderer(Function<? super T, ? extends K> keyExtractor,
+            BinCountRule binCountRule, int width, int height)
+    {
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        Objects.requireNonNull(
+            binCountRule, "The binCountRule may not be null");
+        return new ImageHistogramRenderer<T>(
+            (elements, highlightedElements) -> BinCounts.computeNumeric(
+                elements, highlightedElements, keyExtractor, binCountRule),
+            width, height);
+    }
+    
+    /**
+     * Create a new {@link HistogramWriter} that writes PNG images with 
+     * the given size. The images are rendered in the same way as with 
+     * a {@link HistogramRenderer}.
+     * 
+     * @param width The width of the images
+     * @param height The height of the images
+     * @return The {@link HistogramWriter}
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    public static HistogramWriter createPngWriter(int width, int height)
+    {
+        return new PngHistogramWriter(width, height);
+    }
+    
+    /**
+     * Create a new {@link HistogramWriter} that writes SVG documents with 
+     * the given size. The documents are written directly to the output 
+     * stream while the bins are visited, without building a document 
+     * tree in memory.<br>
+     * <br>
+     * The bars are written as paths that follow the outline of the bars.
+     * Adjacent bins whose bar heights differ by at most the given 
+     * tolerance are merged into a single segment of such a path. With a 
+     * tolerance of 0, only bins with equal heights are merged, which 
+     * does not change the appearance. Larger tolerances result in 
+     * smaller documents for histograms with many bins.
+     * 
+     * @param width The width of the documents
+     * @param height The height of the documents
+     * @param mergeTolerance The maximum difference of the heights of 
+     * adjacent bars that are merged, in the units of the document
+     * @return The {@link HistogramWriter}
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive, or the tolerance is negative or not finite
+     */
+    public static HistogramWriter createSvgWriter(
+        int width, int height, double mergeTolerance)
+    {
+        return new SvgHistogramWriter(width, height, mergeTolerance);
+    }
+    
+    /**
+     * Write the given {@link HistogramData} as an SVG document to the 
+     * given writer, in the same way as a writer that was created with 
+     * {@link #createSvgWriter(int, int, double)}. The writer will not 
+     * be flushed or closed.
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @param width The width of the document
+     * @param height The height of the document
+     * @param mergeTolerance The maximum difference of the heights of 
+     * adjacent bars that are merged, in the units of the document
+     * @param writer The writer
+     * @throws IOException If an IO error occurs
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive, or the tolerance is negative or not finite
+     */
+    public static void writeSvg(HistogramData histogramData, 
+        int width, int height, double mergeTolerance, Writer writer) 
+        throws IOException
+    {
+        new SvgHistogramWriter(width, height, mergeTolerance).write(
+            histogramData, writer);
+    }
+    
+    /**
+     * Returns a snapshot of the {@link HistogramData} of the given 
+     * histogram, with its current bins and bin labels, in the order of 
+     * the bin indices. This may be passed to a {@link HistogramWriter}
+     * in order to export the histogram.
+     * 
+     * @param histogram The {@link Histogram}
+     * @return The {@link HistogramData}
+     * @throws IllegalArgumentException If the given histogram was not
+     * created with one of the methods of this class
+     */
+    public static HistogramData getHistogramData(Histogram<?> histogram)
+    {
+        Objects.requireNonNull(histogram, "The histogram may not be null");
+        return getImplementation(histogram).createBinCounts();
+    }
+    
+    /**
+     * Create a new {@link HistogramJob} for a {@link HistogramBatchWriter}, 
+     * with one bin for each distinct key that is returned by the given 
+     * key extractor, in the order in which the keys first appear in the
+     * elements. A reference to the given elements will be stored, so they 
+     * may not be modified until the job has been processed.
+     * 
+     * @param <T> The element type
+     * 
+     * @param name The name of the job, which will be the name of the 
+     * files, without the extension
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @return The {@link HistogramJob}
+     */
+    public static <T> HistogramJob createJob(String name,
+        Collection<? extends T> elements, 
+        Function<? super T, Object> keyExtractor)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        return new HistogramJob(name, () -> BinCounts.computeCategorical(
+            elements, null, keyExtractor));
+    }
+    
+    /**
+     * Create a new {@link HistogramJob} for a {@link HistogramBatchWriter}, 
+     * where the elements are distributed among the bins based on the 
+     * numeric value that is returned by the given key extractor. The 
+     * number of bins is determined with the given {@link BinCountRule}.
+     * A reference to the given elements will be stored, so they may not 
+     * be modified until the job has been processed.
+     * 
+     * @param <T> The element type
+     * @param <K> The key type
+     * 
+     * @param name The name of the job, which will be the name of the 
+     * files, without the extension
+     * @param elements The elements
+     * @param keyExtractor The key extractor
+     * @param binCountRule The {@link BinCountRule}
+     * @return The {@link HistogramJob}
+     */
+    public static <T, K extends Number> HistogramJob createNumericJob(
+        String name, Collection<? extends T> elements, 
+        Function<? super T, ? extends K> keyExtractor, 
+        BinCountRule binCountRule)
+    {
+        Objects.requireNonNull(
+            elements, "The elements may not be null");
+        Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        Objects.requireNonNull(
+            binCountRule, "The binCountRule may not be null");
+        return new HistogramJob(name, () -> BinCounts.computeNumeric(
+            elements, null, keyExtractor, binCountRule));
+    }
+    
+    /**
+     * Create a new {@link HistogramBatchWriter} that processes the jobs 
+     * with the given number of worker threads, and writes the histograms 
+     * into files in the given directory, with each of the given writers. 
+     * The files are named after the {@link HistogramJob#getName() job
+     * name} and the {@link HistogramWriter#getFileExtension() file 
+     * extension} of the writer.
+     * 
+     * @param directory The output directory
+     * @param threadCount The number of worker threads
+     * @param maximumPendingJobs The maximum number of jobs that may have
+     * been submitted without being finished
+     * @param histogramWriters The {@link HistogramWriter}s
+     * @return The {@link HistogramBatchWriter}
+     * @throws IllegalArgumentException If the thread count or the maximum
+     * number of pending jobs is not positive, or no writers are given
+     */
+    public static HistogramBatchWriter createBatchWriter(Path directory, 
+        int threadCount, int maximumPendingJobs,
+        HistogramWriter ... histogramWriters)
+    {
+        Objects.requireNonNull(
+            histogramWriters, "The histogramWriters may not be null");
+        return new ExecutorHistogramBatchWriter(directory, threadCount, 
+            maximumPendingJobs, Arrays.asList(histogramWriters));
+    }
+    
+    /**
+     * Register an MBean at the platform MBean server that exposes the
+     * {@link HistogramMetricsMXBean metrics} of the given histogram. The
+     * MBean is a {@link HistogramMetricsListener} of the histogram, and 
+     * the histogram will be referenced until the MBean is unregistered 
+     * with {@link #unregisterMBean(ObjectName)}.
+     * 
+     * @param histogram The {@link Histogram}
+     * @param name The name of the histogram, which will be the value of
+     * the <code>name</code> property of the object name
+     * @return The object name of the MBean
+     * @throws IllegalArgumentException If an MBean with the resulting
+     * object name is already registered
+     * @throws IllegalStateException If the MBean could not be registered
+     */
+    public static ObjectName registerMBean(
+        Histogram<?> histogram, String name)
+    {
+        return HistogramMetricsCollector.register(histogram, name);
+    }
+    
+    /**
+     * Unregister an MBean that was registered with
+     * {@link #registerMBean(Histogram, String)}, and stop collecting the
+     * metrics of its histogram. If there is no such MBean, then nothing 
+     * is done.
+     * 
+     * @param objectName The object name of the MBean
+     * @throws IllegalStateException If the MBean could not be unregistered
+     */
+    public static void unregisterMBean(ObjectName objectName)
+    {
+        HistogramMetricsCollector.unregister(objectName);
+    }
+    
     /**
      * Compute the number of bins for the given number of elements
      * 
@@ -329,9 +1223,7 @@ public class Histograms
      */
     private static int computeNumBins(int n)
     {
-    	// Sturges rule for the number of bins:
-        int numBins = (int)(Math.ceil(Math.log(n) / Math.log(2)) + 1);
-        return numBins;
+        return BinCountRule.sturges(n);
     }
     
 
@@ -360,15 +1252,57 @@ public class Histograms
      */
     private static IntFunction<String> createDateBinLabelFunction(
         NumberBinning<?> binning, String pattern)
+    {
+        return createDateBinLabelFunction(
+            bin -> (long) binning.getBinMin(bin), 
+            bin -> (long) binning.getBinMax(bin), 
+            ChronoUnit.MILLIS, pattern);
+    }
+    
+    /**
+     * Returns the function that, for a given {@link LongBinning}, returns
+     * the function that provides the bin labels. The function assumes that 
+     * the values in the given binning are timestamps of the given 
+     * resolution since the epoch, and returns them as a date formatted 
+     * with the given pattern
+     * 
+     * @param resolution The resolution of the timestamps
+     * @param pattern The date-time formatter pattern
+     * @return The bin label function provider
+     */
+    static Function<LongBinning<?>, IntFunction<String>> 
+        longDateBinLabelFunctionProvider(
+            ChronoUnit resolution, String pattern)
+    {
+        return binning -> createDateBinLabelFunction(
+            binning::getBinMin, binning::getBinMax, resolution, pattern);
+    }
+    
+    /**
+     * Create the function that returns the label for each bin, based on
+     * the given functions that provide the limits of the bins as 
+     * timestamps of the given resolution since the epoch
+     * 
+     * @param binMin The function providing the minimum of each bin
+     * @param binMax The function providing the maximum of each bin
+     * @param resolution The resolution of the timestamps
+     * @param pattern The pattern for the date-time formatter
+     * @return The label function
+     */
+    private static IntFunction<String> createDateBinLabelFunction(
+        IntToLongFunction binMin, IntToLongFunction binMax, 
+        ChronoUnit resolution, String pattern)
     {
         DateTimeFormatter formatter = 
             DateTimeFormatter.ofPattern(pattern);
         return bin -> 
         {
-            double min = binning.getBinMin(bin);
-            double max = binning.getBinMax(bin);
-            String minString = createDateBinLimitLabel(min, formatter);
-            String maxString = createDateBinLimitLabel(max, formatter);
+            long min = binMin.applyAsLong(bin);
+            long max = binMax.applyAsLong(bin);
+            String minString = 
+                createDateBinLimitLabel(min, resolution, formatter);
+            String maxString = 
+                createDateBinLimitLabel(max, resolution, formatter);
             return minString + "\n" + maxString;
         };
     }
@@ -378,19 +1312,73 @@ public class Histograms
      * Creates the label for the given bin limit value
      * 
      * @param value The bin limit value
+     * @param resolution The resolution of the value
      * @param formatter The formatter
      * @return The label
      */
     private static String createDateBinLimitLabel(
-        double value, DateTimeFormatter formatter)
+        long value, ChronoUnit resolution, DateTimeFormatter formatter)
     {
-        long millis = (long)value;
-        Instant instant = Instant.ofEpochMilli(millis);
+        Instant instant = toInstant(value, resolution);
         OffsetDateTime offsetDateTime = 
             OffsetDateTime.ofInstant(instant, ZoneOffset.UTC); 
         return offsetDateTime.format(formatter);
     }
     
+    /**
+     * Converts the given timestamp of the given resolution since the
+     * epoch into an instant
+     * 
+     * @param value The timestamp
+     * @param resolution The resolution
+     * @return The instant
+     * @throws IllegalArgumentException If the resolution is not one of
+     * <code>SECONDS</code>, <code>MILLIS</code>, <code>MICROS</code> 
+     * or <code>NANOS</code>
+     */
+    private static Instant toInstant(long value, ChronoUnit resolution)
+    {
+        switch (resolution)
+        {
+            case SECONDS:
+                return Instant.ofEpochSecond(value);
+            case MILLIS:
+                return Instant.ofEpochMilli(value);
+            case MICROS:
+                return Instant.ofEpochSecond(
+                    Math.floorDiv(value, 1000000L), 
+                    Math.floorMod(value, 1000000L) * 1000L);
+            case NANOS:
+                return Instant.ofEpochSecond(
+                    Math.floorDiv(value, 1000000000L), 
+                    Math.floorMod(value, 1000000000L));
+            default:
+                throw new IllegalArgumentException(
+                    "The resolution is not supported: " + resolution);
+        }
+    }
+    
+    /**
+     * Returns the function that, for a given {@link LongBinning}, returns
+     * the function that provides the bin labels
+     * 
+     * @return The bin label function provider
+     */
+    static Function<LongBinning<?>, IntFunction<String>> 
+        longBinLabelFunctionProvider()
+    {
+        return binning -> bin -> 
+        {
+            long min = binning.getBinMin(bin);
+            long max = binning.getBinMax(bin);
+            if (min == max)
+            {
+                return String.valueOf(min);
+            }
+            return min + "\n" + max;
+        };
+    }
+    
     /**
      * Returns the function that, for a given {@link NumberBinning}, returns
      * the function that provides the bin labels
@@ -465,6 +1453,34 @@ public class Histograms
     
     
     
+    /**
+     * Returns the {@link JFreeChartHistogram} that is the implementation
+     * of the given {@link Histogram}
+     * 
+     * @param <T> The element type
+     * 
+     * @param histogram The {@link Histogram}
+     * @return The {@link JFreeChartHistogram}
+     * @throws IllegalArgumentException If the given histogram was not
+     * created with one of the methods of this class
+     */
+    static <T> JFreeChartHistogram<T> getImplementation(Histogram<T> histogram)
+    {
+        if (histogram instanceof JFreeChartHistogram<?>)
+        {
+            return (JFreeChartHistogram<T>) histogram;
+        }
+        if (histogram instanceof JFreeChartNumberHistogram<?, ?>)
+        {
+            JFreeChartNumberHistogram<T, ?> numberHistogram =
+                (JFreeChartNumberHistogram<T, ?>) histogram;
+            return numberHistogram.getDelegate();
+        }
+        throw new IllegalArgumentException(
+            "The histogram was not created with the Histograms class: "
+            + histogram);
+    }
+    
     /**
      * Private constructor to prevent instantiation
      */
@@ -0,0 +1,403 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+/**
+ * Implementation of a {@link Heatmap} that writes the colors of the cells
+ * directly into the pixels of an image, with one pixel per cell, and 
+ * paints this image scaled to the size of the component.
+ * 
+ * @param <T> The type of the elements
+ */
+class ImageHeatmap<T> extends JPanel implements Heatmap<T>
+{
+    /**
+     * Serial UID
+     */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The margin around the image, containing the axis labels
+     */
+    private static final int MARGIN = 40;
+    
+    /**
+     * The color of cells that do not contain any elements
+     */
+    private static final int EMPTY_COLOR = 0xFFFFFF;
+    
+    /**
+     * The color map, in RGB format, for cells with increasing numbers 
+     * of elements
+     */
+    private static final int COLOR_MAP[] = createColorMap(256);
+    
+    /**
+     * The binning
+     */
+    private final GridBinning<T> binning;
+    
+    /**
+     * The format string for the labels of the x-axis
+     */
+    private final String formatStringX;
+    
+    /**
+     * The format string for the labels of the y-axis
+     */
+    private final String formatStringY;
+    
+    /**
+     * The elements
+     */
+    private List<T> elements;
+    
+    /**
+     * The cell of each element, or -1 for elements that are not contained
+     * in any cell
+     */
+    private int elementCells[];
+    
+    /**
+     * The number of elements in each cell
+     */
+    private int cells[];
+    
+    /**
+     * The image that contains one pixel for each cell
+     */
+    private final BufferedImage image;
+    
+    /**
+     * The list of registered {@link HeatmapMouseListener} instances
+     */
+    private final List<HeatmapMouseListener<T>> heatmapMouseListeners;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param binning The binning
+     */
+    ImageHeatmap(GridBinning<T> binning)
+    {
+        this.binning = Objects.requireNonNull(
+            binning, "The binning may not be null");
+        this.formatStringX = formatStringFor(binning.getBinningX());
+        this.formatStringY = formatStringFor(binning.getBinningY());
+        this.image = new BufferedImage(binning.getBinCountX(), 
+            binning.getBinCountY(), BufferedImage.TYPE_INT_RGB);
+        this.heatmapMouseListeners = 
+            new CopyOnWriteArrayList<HeatmapMouseListener<T>>();
+        this.elements = Collections.emptyList();
+        this.elementCells = new int[0];
+        this.cells = new int[binning.getBinCount()];
+        updateImage();
+        
+        setBackground(Color.WHITE);
+        setToolTipText("");
+        addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                int cell = computeCell(e.getX(), e.getY());
+                if (cell >= 0)
+                {
+                    fireClicked(e, cell);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Returns a format string for the labels of the given binning
+     * 
+     * @param binning The binning
+     * @return The format string
+     */
+    private static String formatStringFor(NumberBinning<?> binning)
+    {
+        double min = binning.getBinMin(0);
+        double max = binning.getBinMax(binning.getBinCount() - 1);
+        double difference = max - min;
+        if (difference < NumberBinning.EPSILON)
+        {
+            return Histograms.formatStringFor(min);
+        }
+        return Histograms.formatStringFor(difference);
+    }
+    
+    /**
+     * Creates a color map with the given number of entries, ranging from
+     * a light blue to a dark red
+     * 
+     * @param size The size
+     * @return The color map
+     */
+    private static int[] createColorMap(int size)
+    {
+        int colorMap[] = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            float alpha = (float) i / (size - 1);
+            float hue = (1.0f - alpha) * 0.6f;
+            float brightness = 1.0f - alpha * 0.4f;
+            colorMap[i] = Color.HSBtoRGB(hue, 0.8f, brightness) & 0xFFFFFF;
+        }
+        return colorMap;
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return this;
+    }
+
+    @Override
+    public void setElements(Collection<? extends T> elements)
+    {
+        if (elements == null)
+        {
+            this.elements = Collections.emptyList();
+        }
+        else
+        {
+            this.elements = new ArrayList<T>(elements);
+        }
+        this.elementCells = new int[this.elements.size()];
+        this.cells = binning.compute(this.elements, elementCells);
+        updateImage();
+        repaint();
+    }
+    
+    /**
+     * Write the colors for the current cell counts into the pixels of
+     * the image. The rows of the image are flipped, so that the first
+     * bin on the y-axis is at the bottom.
+     */
+    private void updateImage()
+    {
+        int binCountX = binning.getBinCountX();
+        int binCountY = binning.getBinCountY();
+        int maxCount = 0;
+        for (int count : cells)
+        {
+            maxCount = Math.max(maxCount, count);
+        }
+        int pixels[] = 
+            ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int maxColorIndex = COLOR_MAP.length - 1;
+        for (int y = 0; y < binCountY; y++)
+        {
+            int cellOffset = y * binCountX;
+            int pixelOffset = (binCountY - 1 - y) * binCountX;
+            for (int x = 0; x < binCountX; x++)
+            {
+                int count = cells[cellOffset + x];
+                if (count == 0)
+                {
+                    pixels[pixelOffset + x] = EMPTY_COLOR;
+                }
+                else
+                {
+                    int colorIndex = 
+                        (int) ((long) count * maxColorIndex / maxCount);
+                    pixels[pixelOffset + x] = COLOR_MAP[colorIndex];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the area of this component in which the image is painted
+     * 
+     * @return The image bounds
+     */
+    private Rectangle computeImageBounds()
+    {
+        int w = Math.max(1, getWidth() - MARGIN - MARGIN);
+        int h = Math.max(1, getHeight() - MARGIN - MARGIN);
+        return new Rectangle(MARGIN, MARGIN, w, h);
+    }
+    
+    /**
+     * Computes the index of the cell at the given position, or -1 if the
+     * position is not inside the image
+     * 
+     * @param px The x-coordinate
+     * @param py The y-coordinate
+     * @return The cell index
+     */
+    private int computeCell(int px, int py)
+    {
+        Rectangle bounds = computeImageBounds();
+        if (!bounds.contains(px, py))
+        {
+            return -1;
+        }
+        int binCountX = binning.getBinCountX();
+        int binCountY = binning.getBinCountY();
+        int x = (int) ((long) (px - bounds.x) * binCountX / bounds.width);
+        int row = (int) ((long) (py - bounds.y) * binCountY / bounds.height);
+        int y = binCountY - 1 - row;
+        return y * binCountX + x;
+    }
+    
+    @Override
+    public String getToolTipText(MouseEvent e)
+    {
+        int cell = computeCell(e.getX(), e.getY());
+        if (cell < 0)
+        {
+            return null;
+        }
+        int binCountX = binning.getBinCountX();
+        int binX = cell % binCountX;
+        int binY = cell / binCountX;
+        NumberBinning<T> binningX = binning.getBinningX();
+        NumberBinning<T> binningY = binning.getBinningY();
+        return "<html>" 
+            + "x: " + format(formatStringX, binningX.getBinMin(binX)) 
+            + " - " + format(formatStringX, binningX.getBinMax(binX)) 
+            + "<br>"
+            + "y: " + format(formatStringY, binningY.getBinMin(binY)) 
+            + " - " + format(formatStringY, binningY.getBinMax(binY)) 
+            + "<br>"
+            + "Count: " + cells[cell] 
+            + "</html>";
+    }
+    
+    /**
+     * Format the given value with the given format string
+     * 
+     * @param formatString The format string
+     * @param value The value
+     * @return The formatted value
+     */
+    private static String format(String formatString, double value)
+    {
+        return String.format(Locale.ENGLISH, formatString, value);
+    }
+    
+    @Override
+    protected void paintComponent(Graphics gr)
+    {
+        super.paintComponent(gr);
+        Graphics2D g = (Graphics2D) gr;
+        Rectangle bounds = computeImageBounds();
+        g.drawImage(image, bounds.x, bounds.y, 
+            bounds.width, bounds.height, null);
+        g.setColor(Color.GRAY);
+        g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        
+        g.setColor(Color.BLACK);
+        g.setFont(g.getFont().deriveFont(10.0f));
+        FontMetrics fm = g.getFontMetrics();
+        NumberBinning<T> binningX = binning.getBinningX();
+        NumberBinning<T> binningY = binning.getBinningY();
+        String minX = format(formatStringX, binningX.getBinMin(0));
+        String maxX = format(formatStringX, 
+            binningX.getBinMax(binningX.getBinCount() - 1));
+        String minY = format(formatStringY, binningY.getBinMin(0));
+        String maxY = format(formatStringY, 
+            binningY.getBinMax(binningY.getBinCount() - 1));
+        int bottom = bounds.y + bounds.height;
+        int right = bounds.x + bounds.width;
+        g.drawString(minX, bounds.x, bottom + fm.getAscent() + 2);
+        g.drawString(maxX, right - fm.stringWidth(maxX), 
+            bottom + fm.getAscent() + 2);
+        g.drawString(minY, bounds.x - fm.stringWidth(minY) - 2, bottom);
+        g.drawString(maxY, bounds.x - fm.stringWidth(maxY) - 2, 
+            bounds.y + fm.getAscent());
+    }
+    
+    /**
+     * Fire a {@link HeatmapMouseEvent} to all registered listeners
+     * 
+     * @param mouseEvent The mouse event that caused the event
+     * @param cell The index of the clicked cell
+     */
+    private void fireClicked(MouseEvent mouseEvent, int cell)
+    {
+        if (!heatmapMouseListeners.isEmpty())
+        {
+            List<T> cellElements = new ArrayList<T>();
+            for (int i = 0; i < elementCells.length; i++)
+            {
+                if (elementCells[i] == cell)
+                {
+                    cellElements.add(elements.get(i));
+                }
+            }
+            int binCountX = binning.getBinCountX();
+            HeatmapMouseEvent<T> heatmapMouseEvent = 
+                new HeatmapMouseEvent<T>(this, mouseEvent, 
+                    cell % binCountX, cell / binCountX,
+                    Collections.unmodifiableList(cellElements), 
+                    cells[cell]);
+            for (HeatmapMouseListener<T> listener : heatmapMouseListeners)
+            { 
+                listener.clicked(heatmapMouseEvent);
+            }
+        }
+    }
+    
+    @Override
+    public void addHeatmapMouseListener(
+        HeatmapMouseListener<T> heatmapMouseListener)
+    {
+        heatmapMouseListeners.add(heatmapMouseListener);
+    }
+
+    @Override
+    public void removeHeatmapMouseListener(
+        HeatmapMouseListener<T> heatmapMouseListener)
+    {
+        heatmapMouseListeners.remove(heatmapMouseListener);
+    }
+    
+}
@@ -0,0 +1,146 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Implementation of a {@link HistogramRenderer} that paints the bars 
+ * and the axis labels directly into a reused {@link HistogramImage}.
+ * It does not create any Swing or JFreeChart components.
+ * 
+ * @param <T> The type of the elements
+ */
+final class ImageHistogramRenderer<T> implements HistogramRenderer<T>
+{
+    /**
+     * The function that computes the {@link BinCounts} for elements and
+     * highlighted elements
+     */
+    private final BiFunction<Collection<? extends T>, 
+        Collection<? extends T>, BinCounts> binCountsFunction;
+    
+    /**
+     * The image that is reused for all rendering operations
+     */
+    private final HistogramImage histogramImage;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param binCountsFunction The function that computes the 
+     * {@link BinCounts} for elements and highlighted elements. The
+     * collections that are passed to this function are not 
+     * <code>null</code>.
+     * @param width The width of the images
+     * @param height The height of the images
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    ImageHistogramRenderer(BiFunction<Collection<? extends T>, 
+        Collection<? extends T>, BinCounts> binCountsFunction, 
+        int width, int height)
+    {
+        this.binCountsFunction = Objects.requireNonNull(
+            binCountsFunction, "The binCountsFunction may not be null");
+        this.histogramImage = new HistogramImage(width, height);
+    }
+    
+    @Override
+    public int getWidth()
+    {
+        return histogramImage.getImage().getWidth();
+    }
+    
+    @Override
+    public int getHeight()
+    {
+        return histogramImage.getImage().getHeight();
+    }
+    
+    @Override
+    public BufferedImage render(
+        Collection<? extends T> elements,
+        Collection<? extends T> highlightedElements)
+    {
+        return histogramImage.render(
+            computeBinCounts(elements, highlightedElements));
+    }
+    
+    @Override
+    public BufferedImage render(Histogram<?> histogram)
+    {
+        Objects.requireNonNull(histogram, "The histogram may not be null");
+        return histogramImage.render(
+            Histograms.getImplementation(histogram).createBinCounts());
+    }
+    
+    @Override
+    public void writePng(
+        Collection<? extends T> elements,
+        Collection<? extends T> highlightedElements, 
+        OutputStream outputStream) throws IOException
+    {
+        Objects.requireNonNull(
+            outputStream, "The outputStream may not be null");
+        render(elements, highlightedElements);
+        histogramImage.writePng(outputStream);
+    }
+    
+    /**
+     * Compute the {@link BinCounts} for the given elements, replacing
+     * <code>null</code> collections with empty ones
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements
+     * @return The {@link BinCounts}
+     */
+    private BinCounts computeBinCounts(
+        Collection<? extends T> elements,
+        Collection<? extends T> highlightedElements)
+    {
+        Collection<? extends T> nonNullElements = elements;
+        if (nonNullElements == null)
+        {
+            nonNullElements = Collections.emptyList();
+        }
+        Collection<? extends T> nonNullHighlightedElements = 
+            highlightedElements;
+        if (nonNullHighlightedElements == null)
+        {
+            nonNullHighlightedElements = Collections.emptyList();
+        }
+        return binCountsFunction.apply(
+            nonNullElements, nonNullHighlightedElements);
+    }
+}
@@ -31,17 +31,27 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 import javax.swing.JComponent;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartMouseEvent;
@@ -52,7 +62,10 @@ import org.jfree.chart.axis.CategoryAxis;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.entity.CategoryItemEntity;
 import org.jfree.chart.entity.ChartEntity;
+import org.jfree.chart.event.ChartProgressEvent;
 import org.jfree.chart.labels.CategoryToolTipGenerator;
+import org.jfree.chart.panel.AbstractOverlay;
+import org.jfree.chart.panel.Overlay;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.BarRenderer;
@@ -75,6 +88,39 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
      * Serial UID
      */
     private static final long serialVersionUID = 1L;
+    
+    /**
+     * The number of bytes that are assumed for one reference, when 
+     * estimating the retained memory
+     */
+    private static final int REFERENCE_BYTES = 8;
+    
+    /**
+     * The distance, in pixels, that the mouse has to be dragged before
+     * the drag is considered to select a range of bins
+     */
+    private static final int SELECTION_DRAG_THRESHOLD = 3;
+    
+    /**
+     * The color of the area that shows the selected range of bins
+     */
+    private static final Color SELECTION_COLOR = new Color(255, 192, 0, 64);
+    
+    /**
+     * Interface for the handler that is informed when a range of bins 
+     * is selected by dragging the mouse. Only for internal use.
+     */
+    interface SelectionHandler
+    {
+        /**
+         * Will be called when a range of bins was selected
+         * 
+         * @param mouseEvent The mouse event that completed the selection
+         * @param fromBin The first bin index, inclusive
+         * @param toBin The last bin index, exclusive
+         */
+        void selected(MouseEvent mouseEvent, int fromBin, int toBin);
+    }
 
     /**
      * The binning that is used for this histogram
@@ -88,25 +134,249 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
     private IntFunction<String> binLabelFunction;
     
     /**
-     * The s that are shown in this histogram
+     * The supplier for the elements that are shown in this histogram. 
+     * The supplier will return <code>null</code> when the elements are 
+     * no longer retained.
+     */
+    private Supplier<? extends Collection<? extends T>> elements;
+    
+    /**
+     * A counter that is incremented whenever the elements are set
+     */
+    private int elementsVersion;
+    
+    /**
+     * The bin index for each of the elements. This is computed when the
+     * elements or the binning are changed. Elements that cannot be 
+     * associated with a bin have a negative bin index. This is 
+     * <code>null</code> when the bins have been set with precomputed
+     * counts, until it is required. When the elements are not retained
+     * strongly, then this is only kept while there are highlighted 
+     * indices (see {@link #releaseElementBins()}).
+     */
+    private int elementBins[];
+    
+    /**
+     * The number of elements
+     */
+    private int elementCount;
+    
+    /**
+     * The number of elements in each bin
      */
-    private List<T> elements;
+    private int bins[];
     
     /**
      * The highlighted elements. Should always be a subset of the elements.
+     * This is only used when the {@link #highlightedIndices} are 
+     * <code>null</code>.
+     */
+    private Supplier<? extends Collection<? extends T>> highlightedElements;
+
+    /**
+     * The indices of the highlighted elements. If this is not 
+     * <code>null</code>, then it takes precedence over the
+     * {@link #highlightedElements}
+     */
+    private BitSet highlightedIndices;
+    
+    /**
+     * The number of highlighted elements in each bin
+     */
+    private int highlightedBins[];
+    
+    /**
+     * The optional consumer that receives the keys of the elements when
+     * they are assigned to the bins of a {@link RangeBinning}
+     */
+    private KeyChunkConsumer elementKeyChunkConsumer;
+    
+    /**
+     * The optional consumer that receives the keys of the highlighted
+     * elements when they are assigned to the bins of a 
+     * {@link RangeBinning}
+     */
+    private KeyChunkConsumer highlightedKeyChunkConsumer;
+    
+    /**
+     * The function that provides the weight of each element, or 
+     * <code>null</code> if the bins should show the number of elements
+     */
+    private ToDoubleFunction<? super T> weightFunction;
+    
+    /**
+     * The weight of each of the elements, or <code>null</code> if there 
+     * is no {@link #weightFunction}
+     */
+    private double elementWeights[];
+    
+    /**
+     * The total weight of the elements in each bin, or <code>null</code> 
+     * if there is no {@link #weightFunction}
+     */
+    private double binWeights[];
+    
+    /**
+     * The total weight of the highlighted elements in each bin, or 
+     * <code>null</code> if there is no {@link #weightFunction}
+     */
+    private double highlightedBinWeights[];
+    
+    /**
+     * Whether the cumulative distribution is shown
+     */
+    private boolean cumulative;
+    
+    /**
+     * The prefix sums of the {@link #bins}, with one more entry than
+     * there are bins. This is computed lazily, and reset to 
+     * <code>null</code> when the bins change.
+     */
+    private int cumulativeBins[];
+    
+    /**
+     * The prefix sums of the {@link #highlightedBins}, with one more 
+     * entry than there are bins. This is computed lazily, and reset to 
+     * <code>null</code> when the highlighted bins change.
+     */
+    private int cumulativeHighlightedBins[];
+    
+    /**
+     * The prefix sums of the {@link #binWeights}, with one more entry 
+     * than there are bins, if there is a {@link #weightFunction} and the
+     * {@link #cumulative} distribution is shown. This is computed lazily, 
+     * and reset to <code>null</code> when the bins change.
+     */
+    private double cumulativeBinWeights[];
+    
+    /**
+     * The prefix sums of the {@link #highlightedBinWeights}, with one more
+     * entry than there are bins, if there is a {@link #weightFunction} and
+     * the {@link #cumulative} distribution is shown. This is computed 
+     * lazily, and reset to <code>null</code> when the highlighted bins 
+     * change.
+     */
+    private double cumulativeHighlightedBinWeights[];
+    
+    /**
+     * Whether the collections that are passed to {@link #setElements}
+     * and {@link #setHighlightedElements} are copied
      */
-    private List<T> highlightedElements;
+    private boolean copyingElements;
+    
+    /**
+     * The way how the elements are retained
+     */
+    private ElementRetention elementRetention;
 
     /**
      * The JFreeChart data set
      */
     private DefaultCategoryDataset dataset;
     
+    /**
+     * The range (y-) axis of the chart
+     */
+    private NumberAxis rangeAxis;
+    
+    /**
+     * The maximum number of bins that are shown at once. If this is zero,
+     * then all bins are shown.
+     */
+    private int maximumVisibleBinCount;
+    
+    /**
+     * The index of the first bin that is shown
+     */
+    private int firstVisibleBin;
+    
+    /**
+     * The scroll bar for scrolling through the bins, if there are more 
+     * bins than the {@link #maximumVisibleBinCount}
+     */
+    private final JScrollBar scrollBar;
+    
+    /**
+     * The order in which the bins are shown
+     */
+    private BinOrder binOrder;
+    
+    /**
+     * The optional comparator for the keys of the bins, given as bin
+     * indices. If this is <code>null</code>, then the order of the keys
+     * is the order of the bin indices.
+     */
+    private Comparator<? super Integer> binKeyComparator;
+    
+    /**
+     * The rank of each bin in the order of the keys. This is computed 
+     * lazily, and reset to <code>null</code> when the binning changes.
+     */
+    private int keyRanks[];
+    
+    /**
+     * The {@link BinOrdering} for the current bins. This is created
+     * lazily, and reset to <code>null</code> when the bins change. It
+     * does not depend on the highlighted bins, and is thus kept when 
+     * only the highlighting changes.
+     */
+    private BinOrdering binOrdering;
+    
     /**
      * The list of registered {@link HistogramMouseListener} instances
      */
     private final List<HistogramMouseListener<T>> histogramMouseListeners;
     
+    /**
+     * The {@link HistogramMetricsListener} instances
+     */
+    private final List<HistogramMetricsListener> histogramMetricsListeners;
+    
+    /**
+     * The timer for the phases of the current operation. This is 
+     * <code>null</code> when there are no {@link #histogramMetricsListeners},
+     * so that nothing is measured.
+     */
+    private PhaseTimer phaseTimer;
+    
+    /**
+     * The flight recorder event for the current drawing of the chart, 
+     * or <code>null</code> if no event is recorded
+     */
+    private Object paintEvent;
+    
+    /**
+     * The chart panel
+     */
+    private final ChartPanel chartPanel;
+    
+    /**
+     * The handler that is informed about selections of bin ranges, or 
+     * <code>null</code> if no bin ranges can be selected
+     */
+    private SelectionHandler selectionHandler;
+    
+    /**
+     * The bin where the current selection started, or -1 if there is no
+     * selection
+     */
+    private int selectionAnchorBin;
+    
+    /**
+     * The bin where the current selection ends
+     */
+    private int selectionEndBin;
+    
+    /**
+     * The x-coordinate where the mouse was pressed to start the selection
+     */
+    private int selectionPressX;
+    
+    /**
+     * Whether the mouse was dragged far enough to select a range of bins
+     */
+    private boolean selectionDragged;
+    
     /**
      * The JFreeChart mouse listener that will translate JFreeChart mouse
      * events into {@link HistogramMouseEvent} instances
@@ -142,17 +412,75 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
             binning, "The binning may not be null");
         this.binLabelFunction = Objects.requireNonNull(
             binLabelFunction, "The binLabelFunction may not be null");
-        this.elements = Collections.emptyList();
-        this.highlightedElements = Collections.emptyList();
+        this.elementRetention = ElementRetention.STRONG;
+        this.elements = elementRetention.retain(Collections.emptyList());
+        this.elementBins = new int[0];
+        this.bins = new int[binning.getBinCount()];
+        this.highlightedElements = 
+            elementRetention.retain(Collections.emptyList());
+        this.highlightedIndices = null;
+        this.highlightedBins = new int[binning.getBinCount()];
+        this.copyingElements = true;
         this.histogramMouseListeners = 
             new CopyOnWriteArrayList<HistogramMouseListener<T>>();
+        this.histogramMetricsListeners = 
+            new CopyOnWriteArrayList<HistogramMetricsListener>();
         this.dataset = new DefaultCategoryDataset();
 
         setLayout(new BorderLayout());
 
-        ChartPanel chartPanel = createChartPanel();
+        this.chartPanel = createChartPanel();
         chartPanel.addChartMouseListener(chartMouseListener);
         add(chartPanel, BorderLayout.CENTER);
+        
+        this.selectionAnchorBin = -1;
+        MouseAdapter selectionMouseListener = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                handleSelectionPressed(e);
+            }
+            
+            @Override
+            public void mouseDragged(MouseEvent e)
+            {
+                handleSelectionDragged(e);
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e)
+            {
+                handleSelectionReleased(e);
+            }
+        };
+        chartPanel.addMouseListener(selectionMouseListener);
+        chartPanel.addMouseMotionListener(selectionMouseListener);
+        chartPanel.addOverlay(createSelectionOverlay());
+        
+        this.binOrder = BinOrder.INDEX;
+        this.maximumVisibleBinCount = 0;
+        this.firstVisibleBin = 0;
+        this.scrollBar = new JScrollBar(JScrollBar.HORIZONTAL);
+        scrollBar.setVisible(false);
+        scrollBar.addAdjustmentListener(e -> 
+        {
+            int value = scrollBar.getValue();
+            if (value != firstVisibleBin)
+            {
+                firstVisibleBin = value;
+                updateDataset();
+            }
+        });
+        chartPanel.addMouseWheelListener(e -> 
+        {
+            if (scrollBar.isVisible())
+            {
+                scrollBar.setValue(
+                    scrollBar.getValue() + e.getWheelRotation());
+            }
+        });
+        add(scrollBar, BorderLayout.SOUTH);
     }
     
     /**
@@ -174,6 +502,23 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
                 domainAxisLabel, rangeAxisLabel, dataset,
                 PlotOrientation.VERTICAL, legend, tooltips, urls);
         chart.setBackgroundPaint(Color.WHITE);
+        chart.addProgressListener(e -> 
+        {
+            if (e.getType() == ChartProgressEvent.DRAWING_STARTED)
+            {
+                paintEvent = FlightRecorderEvents.begin(
+                    HistogramOperation.PAINT);
+                beginMeasurement();
+            }
+            else if (e.getType() == ChartProgressEvent.DRAWING_FINISHED)
+            {
+                measurePhase(HistogramPhase.PAINTING);
+                endMeasurement();
+                FlightRecorderEvents.end(
+                    paintEvent, elementCount, bins.length);
+                paintEvent = null;
+            }
+        });
         
         // Set basic colors
         CategoryPlot plot = chart.getCategoryPlot();
@@ -194,23 +539,21 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
             {
                 Comparable<?> columnKey = dataset.getColumnKey(col);
                 Integer binIndex = (Integer)columnKey;
+                measurePhase(HistogramPhase.PAINTING);
                 String label = binLabelFunction.apply(binIndex);
-                Number highlightedCount = dataset.getValue(0, col);
-                Number totalMinusHighlightedCount = dataset.getValue(1, col);
-                int h = highlightedCount.intValue();
-                int t = totalMinusHighlightedCount.intValue() + h;
                 String result = "<html>" 
                     + label.replaceAll("\n", "<br>") 
                     + "<br>"
-                    + h + "/" + t 
+                    + createValueLabel(binIndex) 
                     + "</html>";
+                measurePhase(HistogramPhase.LABELS);
                 return result;
             }
         };
         barRenderer.setBaseToolTipGenerator(generator);
 
         // Only show integer ticks on the y-axis
-        NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis();
+        rangeAxis = (NumberAxis) plot.getRangeAxis();
         rangeAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
         
         // Create the domain/category (x-) axis, which contains labels that
@@ -228,10 +571,12 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
                 width, RectangleEdge edge, Graphics2D g2) 
             {
                 Integer binIndex = (Integer)category;
+                measurePhase(HistogramPhase.PAINTING);
                 String string = binLabelFunction.apply(binIndex);
                 TextBlock label = createTextBlock(string,
                     getTickLabelFont(category), getTickLabelPaint(category), 
                     width, new G2TextMeasurer(g2));
+                measurePhase(HistogramPhase.LABELS);
                 return label;
             }
         };
@@ -261,6 +606,191 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
         return chartPanel;
     }
     
+    /**
+     * Create the overlay that paints the area of the selected bins
+     * 
+     * @return The overlay
+     */
+    private Overlay createSelectionOverlay()
+    {
+        class SelectionOverlay extends AbstractOverlay implements Overlay
+        {
+            @Override
+            public void paintOverlay(Graphics2D g, ChartPanel chartPanel)
+            {
+                paintSelection(g);
+            }
+        }
+        return new SelectionOverlay();
+    }
+    
+    /**
+     * Paint the area of the columns that show the bins of the current
+     * selection, if there is a selection and these columns are visible
+     * 
+     * @param g The graphics
+     */
+    private void paintSelection(Graphics2D g)
+    {
+        if (selectionAnchorBin < 0 || !selectionDragged)
+        {
+            return;
+        }
+        int anchorColumn = dataset.getColumnIndex(selectionAnchorBin);
+        int endColumn = dataset.getColumnIndex(selectionEndBin);
+        if (anchorColumn < 0 || endColumn < 0)
+        {
+            return;
+        }
+        CategoryPlot plot = chartPanel.getChart().getCategoryPlot();
+        CategoryAxis domainAxis = plot.getDomainAxis();
+        RectangleEdge edge = plot.getDomainAxisEdge();
+        Rectangle2D dataArea = chartPanel.getScreenDataArea();
+        int columnCount = dataset.getColumnCount();
+        double x0 = domainAxis.getCategoryStart(
+            Math.min(anchorColumn, endColumn), columnCount, dataArea, edge);
+        double x1 = domainAxis.getCategoryEnd(
+            Math.max(anchorColumn, endColumn), columnCount, dataArea, edge);
+        Rectangle2D area = new Rectangle2D.Double(
+            x0, dataArea.getY(), x1 - x0, dataArea.getHeight());
+        g.setPaint(SELECTION_COLOR);
+        g.fill(area);
+        g.setPaint(SELECTION_COLOR.darker());
+        g.draw(area);
+    }
+    
+    /**
+     * Returns the index of the bin that is shown in the column at the 
+     * given x-coordinate of the chart panel, or the nearest column if 
+     * the coordinate is not inside of a column. Returns -1 if no bins
+     * are shown.
+     * 
+     * @param x The x-coordinate
+     * @return The bin index
+     */
+    private int computeBinAt(int x)
+    {
+        int columnCount = dataset.getColumnCount();
+        if (columnCount == 0)
+        {
+            return -1;
+        }
+        CategoryPlot plot = chartPanel.getChart().getCategoryPlot();
+        CategoryAxis domainAxis = plot.getDomainAxis();
+        RectangleEdge edge = plot.getDomainAxisEdge();
+        Rectangle2D dataArea = chartPanel.getScreenDataArea();
+        int column = columnCount - 1;
+        for (int c = 0; c < columnCount - 1; c++)
+        {
+            double end = 
+                domainAxis.getCategoryEnd(c, columnCount, dataArea, edge);
+            if (x <= end)
+            {
+                column = c;
+                break;
+            }
+        }
+        return (Integer) dataset.getColumnKey(column);
+    }
+    
+    /**
+     * Set the handler that is informed when a range of bins is selected
+     * by dragging the mouse. If this is <code>null</code>, then no bins
+     * can be selected, and dragging the mouse zooms the range axis, as
+     * usual in JFreeChart. Only for internal use.
+     * 
+     * @param selectionHandler The selection handler
+     */
+    void setSelectionHandler(SelectionHandler selectionHandler)
+    {
+        this.selectionHandler = selectionHandler;
+        chartPanel.setRangeZoomable(selectionHandler == null);
+        clearSelection();
+    }
+    
+    /**
+     * Remove the current selection of bins, if there is one
+     */
+    private void clearSelection()
+    {
+        if (selectionAnchorBin >= 0)
+        {
+            selectionAnchorBin = -1;
+            selectionDragged = false;
+            chartPanel.repaint();
+        }
+    }
+    
+    /**
+     * Called when the mouse was pressed in the chart panel. Starts a new
+     * selection if there is a {@link #selectionHandler}.
+     * 
+     * @param e The mouse event
+     */
+    private void handleSelectionPressed(MouseEvent e)
+    {
+        clearSelection();
+        if (selectionHandler == null || e.getButton() != MouseEvent.BUTTON1)
+        {
+            return;
+        }
+        int bin = computeBinAt(e.getX());
+        selectionAnchorBin = bin;
+        selectionEndBin = bin;
+        selectionPressX = e.getX();
+        selectionDragged = false;
+    }
+    
+    /**
+     * Called when the mouse was dragged in the chart panel. Updates the
+     * end of the current selection.
+     * 
+     * @param e The mouse event
+     */
+    private void handleSelectionDragged(MouseEvent e)
+    {
+        if (selectionAnchorBin < 0)
+        {
+            return;
+        }
+        int dx = Math.abs(e.getX() - selectionPressX);
+        if (dx > SELECTION_DRAG_THRESHOLD)
+        {
+            selectionDragged = true;
+        }
+        selectionEndBin = computeBinAt(e.getX());
+        chartPanel.repaint();
+    }
+    
+    /**
+     * Called when the mouse was released in the chart panel. If the mouse
+     * was dragged far enough, then the {@link #selectionHandler} will be
+     * informed about the selected range of bins, and the selection will
+     * remain visible until the next mouse press or the next change of the 
+     * bins.
+     * 
+     * @param e The mouse event
+     */
+    private void handleSelectionReleased(MouseEvent e)
+    {
+        if (selectionAnchorBin < 0)
+        {
+            return;
+        }
+        if (!selectionDragged)
+        {
+            clearSelection();
+            return;
+        }
+        int fromBin = Math.min(selectionAnchorBin, selectionEndBin);
+        int toBin = Math.max(selectionAnchorBin, selectionEndBin) + 1;
+        SelectionHandler handler = selectionHandler;
+        if (handler != null)
+        {
+            handler.selected(e, fromBin, toBin);
+        }
+    }
+    
     /**
      * Create a text block from the given text. This is a specialized
      * variant of the JFreeChart TextUtilites method. It splits the
@@ -307,6 +837,23 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
     }
 
 
+    /**
+     * Creates the label for the highlighted and total count or weight of 
+     * the bin with the given index, as it is shown in the tool tips
+     * 
+     * @param bin The bin index
+     * @return The label
+     */
+    private String createValueLabel(int bin)
+    {
+        if (binWeights == null)
+        {
+            return highlightedBins[bin] + "/" + bins[bin];
+        }
+        return String.format(Locale.ENGLISH, "%.2f/%.2f", 
+            highlightedBinWeights[bin], binWeights[bin]);
+    }
+
     /**
      * Add the given control component to this component. Only for internal use.
      * 
@@ -353,58 +900,310 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
     {
         if (!histogramMouseListeners.isEmpty())
         {
-            List<T> clickedElements = computeElementsInBin(bin, elements);
-            List<T> clickedHighlightedElements = computeElementsInBin(
-                bin, highlightedElements);
+            Object event = FlightRecorderEvents.begin(
+                HistogramOperation.CLICK);
+            Collection<? extends T> currentElements = elements.get();
+            Collection<? extends T> currentHighlightedElements = 
+                highlightedElements.get();
+            List<T> clickedElements = Collections.emptyList();
+            List<T> clickedHighlightedElements = Collections.emptyList();
+            if (currentElements != null)
+            {
+                clickedElements = computeElementsInBin(bin, currentElements);
+                if (highlightedIndices != null)
+                {
+                    clickedHighlightedElements = 
+                        computeHighlightedElementsInBin(bin, currentElements);
+                }
+            }
+            if (highlightedIndices == null && 
+                currentHighlightedElements != null)
+            {
+                clickedHighlightedElements = computeElementsInBin(
+                    bin, currentHighlightedElements, binning);
+            }
             HistogramMouseEvent<T> histogramMouseEvent = 
                 new HistogramMouseEvent<T>(this, mouseEvent, bin, highlighted, 
                     Collections.unmodifiableList(clickedElements), 
-                    Collections.unmodifiableList(clickedHighlightedElements));
+                    Collections.unmodifiableList(clickedHighlightedElements),
+                    bins[bin], highlightedBins[bin]);
             
             for (HistogramMouseListener<T> listener : histogramMouseListeners)
             { 
                 listener.clicked(histogramMouseEvent);
             }
+            FlightRecorderEvents.end(event, elementCount, bins.length);
         }
     }
     
     /**
-     * Compute the list of elements in the given sequence that are contained
-     * in the bin with the given index
+     * Compute the list of elements that are contained in the bin with the 
+     * given index, based on the {@link #elementBins}
      * 
      * @param bin The bin index
-     * @param elements The input elements 
+     * @param elements The elements
      * @return The elements in the given bin
      */
     private List<T> computeElementsInBin(
         int bin, Iterable<? extends T> elements)
     {
+        int currentElementBins[] = requireElementBins();
         List<T> elementsInBin = new ArrayList<T>();
+        int index = 0;
         for (T element : elements)
         {
-            int elementBin = binning.computeBin(element);
-            if (bin == elementBin)
+            if (currentElementBins[index] == bin)
             {
                 elementsInBin.add(element);
             }
+            index++;
         }
         return elementsInBin;
     }
     
     /**
-     * Set the {@link Binning} that should be used for this histogram
+     * Compute the list of highlighted elements that are contained in the 
+     * bin with the given index, based on the {@link #highlightedIndices}
+     * and the {@link #elementBins}
      * 
-     * @param binning The {@link Binning}
-     * @param binLabelFunction The bin label function
+     * @param bin The bin index
+     * @param elements The elements
+     * @return The highlighted elements in the given bin
      */
-    void setBinning(Binning<T> binning, IntFunction<String> binLabelFunction)
+    private List<T> computeHighlightedElementsInBin(
+        int bin, Iterable<? extends T> elements)
     {
-        this.binning = Objects.requireNonNull(
-            binning, "The binning may not be null");
-        this.binLabelFunction = Objects.requireNonNull(
-            binLabelFunction, "The binLabelFunction may not be null");
-        performUpdate();
-    }
+        int currentElementBins[] = requireElementBins();
+        List<T> elementsInBin = new ArrayList<T>();
+        int index = 0;
+        for (T element : elements)
+        {
+            if (currentElementBins[index] == bin 
+                && highlightedIndices.get(index))
+            {
+                elementsInBin.add(element);
+            }
+            index++;
+        }
+        return elementsInBin;
+    }
+    
+    /**
+     * Compute the list of elements in the given sequence that are contained
+     * in the bin with the given index
+     * 
+     * @param bin The bin index
+     * @param elements The input elements 
+     * @param binning The binning
+     * @return The elements in the given bin
+     */
+    private static <T> List<T> computeElementsInBin(
+        int bin, Iterable<? extends T> elements, Binning<T> binning)
+    {
+        List<T> elementsInBin = new ArrayList<T>();
+        for (T element : elements)
+        {
+            int elementBin = binning.computeBin(element);
+            if (bin == elementBin)
+            {
+                elementsInBin.add(element);
+            }
+        }
+        return elementsInBin;
+    }
+    
+    /**
+     * Set the {@link Binning} that should be used for this histogram
+     * 
+     * @param binning The {@link Binning}
+     * @param binLabelFunction The bin label function
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention}
+     */
+    void setBinning(Binning<T> binning, IntFunction<String> binLabelFunction)
+    {
+        Object event = FlightRecorderEvents.begin(
+            HistogramOperation.SET_BINNING);
+        this.binning = Objects.requireNonNull(
+            binning, "The binning may not be null");
+        this.binLabelFunction = Objects.requireNonNull(
+            binLabelFunction, "The binLabelFunction may not be null");
+        this.keyRanks = null;
+        performUpdate();
+        FlightRecorderEvents.end(event, elementCount, bins.length);
+    }
+    
+    /**
+     * Set the {@link Binning} that should be used for this histogram, 
+     * together with the number of elements in each bin, as they have been 
+     * computed without assigning the elements to the bins. These counts 
+     * may be approximate. The bin of each element will only be computed 
+     * when it is required, for example, when a bin is clicked. This may 
+     * only be called when {@link #canSetBinCounts()} returns 
+     * <code>true</code>. Only for internal use.
+     * 
+     * @param binning The {@link Binning}
+     * @param binLabelFunction The bin label function
+     * @param bins The number of elements in each bin. A reference to 
+     * this array will be stored, so it may not be modified afterwards.
+     * @param highlightedBins The optional number of highlighted elements
+     * in each bin. If this is <code>null</code>, then the highlighted 
+     * elements will be assigned to the bins. Otherwise, a reference to 
+     * this array will be stored, so it may not be modified afterwards.
+     * @throws IllegalArgumentException If the length of one of the given 
+     * arrays is not the bin count of the binning
+     * @throws IllegalStateException If the bin counts can not be set, or
+     * the highlighted bins are <code>null</code> and the highlighted 
+     * elements are no longer retained
+     */
+    void setBinning(Binning<T> binning, IntFunction<String> binLabelFunction,
+        int bins[], int highlightedBins[])
+    {
+        Objects.requireNonNull(binning, "The binning may not be null");
+        Objects.requireNonNull(bins, "The bins may not be null");
+        if (!canSetBinCounts())
+        {
+            throw new IllegalStateException(
+                "The bin counts can not be set when there is a weight "
+                + "function or highlighted indices");
+        }
+        checkBinCount(binning, bins);
+        Collection<? extends T> currentHighlightedElements = null;
+        if (highlightedBins != null)
+        {
+            checkBinCount(binning, highlightedBins);
+        }
+        else
+        {
+            currentHighlightedElements = highlightedElements.get();
+            if (currentHighlightedElements == null)
+            {
+                throw new IllegalStateException(
+                    "The highlighted elements are no longer retained, and "
+                    + "can not be assigned to new bins");
+            }
+        }
+        Object event = FlightRecorderEvents.begin(
+            HistogramOperation.SET_BINNING);
+        this.binning = binning;
+        this.binLabelFunction = Objects.requireNonNull(
+            binLabelFunction, "The binLabelFunction may not be null");
+        this.keyRanks = null;
+        beginMeasurement();
+        try
+        {
+            this.bins = bins;
+            this.elementBins = null;
+            this.binOrdering = null;
+            clearSelection();
+            measurePhase(HistogramPhase.BINNING);
+            if (highlightedBins != null)
+            {
+                this.highlightedBins = highlightedBins;
+                this.highlightedBinWeights = null;
+                invalidateCumulativeBins();
+            }
+            else
+            {
+                updateHighlightedBins(currentHighlightedElements);
+            }
+            measurePhase(HistogramPhase.HIGHLIGHTING);
+            updateDataset();
+        }
+        finally
+        {
+            endMeasurement();
+        }
+        FlightRecorderEvents.end(event, elementCount, bins.length);
+    }
+    
+    /**
+     * Check whether the length of the given array is the bin count of
+     * the given binning
+     * 
+     * @param binning The binning
+     * @param counts The counts
+     * @throws IllegalArgumentException If the length is not the bin count
+     */
+    private static void checkBinCount(Binning<?> binning, int counts[])
+    {
+        if (counts.length != binning.getBinCount())
+        {
+            throw new IllegalArgumentException("Expected " 
+                + binning.getBinCount() + " bin counts, but found " 
+                + counts.length);
+        }
+    }
+    
+    /**
+     * Returns whether the bins may be set with precomputed counts, with
+     * {@link #setBinning(Binning, IntFunction, int[], int[])}. This is 
+     * only possible when there is no weight function, and the highlighted 
+     * elements are not given as indices. Only for internal use.
+     * 
+     * @return Whether the bin counts can be set
+     */
+    boolean canSetBinCounts()
+    {
+        return weightFunction == null && highlightedIndices == null;
+    }
+    
+    /**
+     * Returns whether the elements and highlighted elements can be 
+     * assigned to the bins of a new binning, which requires that they
+     * are still retained. Only for internal use.
+     * 
+     * @return Whether the elements can be assigned to new bins
+     */
+    boolean canAssignToNewBins()
+    {
+        return elements.get() != null && 
+            (highlightedIndices != null || highlightedElements.get() != null);
+    }
+    
+    /**
+     * Set the consumers that receive the keys of the elements and of the
+     * highlighted elements, respectively, when they are assigned to the
+     * bins of a {@link RangeBinning} the next time. Either of them may be
+     * <code>null</code>. Only for internal use.
+     * 
+     * @param elementKeyChunkConsumer The consumer for the keys of the 
+     * elements
+     * @param highlightedKeyChunkConsumer The consumer for the keys of the
+     * highlighted elements
+     */
+    void setKeyChunkConsumers(KeyChunkConsumer elementKeyChunkConsumer,
+        KeyChunkConsumer highlightedKeyChunkConsumer)
+    {
+        this.elementKeyChunkConsumer = elementKeyChunkConsumer;
+        this.highlightedKeyChunkConsumer = highlightedKeyChunkConsumer;
+    }
+    
+    /**
+     * Set the comparator for the keys of the bins. The comparator will
+     * receive bin indices, and compare the keys of the respective bins. 
+     * It will be used for the {@link BinOrder#KEY} order. If it is
+     * <code>null</code>, then the order of the bin indices will be used.
+     * Only for internal use.
+     * 
+     * @param binKeyComparator The bin key comparator
+     */
+    void setBinKeyComparator(Comparator<? super Integer> binKeyComparator)
+    {
+        this.binKeyComparator = binKeyComparator;
+        this.keyRanks = null;
+        this.binOrdering = null;
+        updateDataset();
+    }
+    
+    @Override
+    public void setBinOrder(BinOrder binOrder)
+    {
+        this.binOrder = Objects.requireNonNull(
+            binOrder, "The binOrder may not be null");
+        this.binOrdering = null;
+        updateDataset();
+    }
     
     /**
      * Returns the binning of this histogram
@@ -422,69 +1221,1134 @@ class JFreeChartHistogram<T> extends JPanel implements Histogram<T>
         return this;
     }
     
+    @Override
+    public void setCopyingElements(boolean copyingElements)
+    {
+        this.copyingElements = copyingElements;
+    }
+    
+    @Override
+    public void setElementRetention(ElementRetention elementRetention)
+    {
+        this.elementRetention = Objects.requireNonNull(
+            elementRetention, "The elementRetention may not be null");
+        
+        // Collections that have already been dropped remain unavailable
+        Collection<? extends T> currentElements = elements.get();
+        if (currentElements != null)
+        {
+            this.elements = elementRetention.retain(currentElements);
+        }
+        Collection<? extends T> currentHighlightedElements = 
+            highlightedElements.get();
+        if (currentHighlightedElements != null)
+        {
+            this.highlightedElements = 
+                elementRetention.retain(currentHighlightedElements);
+        }
+        releaseElementBins();
+    }
+    
     @Override
     public void setElements(
         Collection<? extends T> elements, 
         Collection<? extends T> highlightedElements)
+    {
+        Object event = FlightRecorderEvents.begin(
+            HistogramOperation.SET_ELEMENTS);
+        Collection<? extends T> newElements = adoptElements(elements);
+        Collection<? extends T> newHighlightedElements = 
+            adoptHighlightedElements(highlightedElements);
+        this.elements = elementRetention.retain(newElements);
+        this.elementsVersion++;
+        this.highlightedElements = 
+            elementRetention.retain(newHighlightedElements);
+        this.highlightedIndices = null;
+        performUpdate(newElements, newHighlightedElements);
+        FlightRecorderEvents.end(event, elementCount, bins.length);
+    }
+    
+    /**
+     * Returns the collection that should be stored as the elements, 
+     * depending on whether {@link #copyingElements} is enabled, and
+     * on the {@link #elementRetention}
+     * 
+     * @param elements The elements
+     * @return The collection to store
+     */
+    private Collection<? extends T> adoptElements(
+        Collection<? extends T> elements)
     {
         if (elements == null)
         {
-            this.elements = Collections.emptyList();
+            return Collections.emptyList();
         }
-        else
+        if (elementRetention != ElementRetention.STRONG)
+        {
+            return elements;
+        }
+        if (!copyingElements && elements instanceof List<?> 
+            && elements instanceof RandomAccess)
         {
-            this.elements = new ArrayList<T>(elements);
+            return elements;
         }
+        return new ArrayList<T>(elements);
+    }
+    
+    /**
+     * Returns the collection that should be stored as the highlighted 
+     * elements, depending on whether {@link #copyingElements} is enabled, 
+     * and on the {@link #elementRetention}
+     * 
+     * @param highlightedElements The highlighted elements
+     * @return The collection to store
+     */
+    private Collection<? extends T> adoptHighlightedElements(
+        Collection<? extends T> highlightedElements)
+    {
         if (highlightedElements == null)
         {
-            this.highlightedElements = Collections.emptyList();
+            return Collections.emptyList();
         }
-        else
+        if (!copyingElements || elementRetention != ElementRetention.STRONG)
         {
-            this.highlightedElements = 
-                new ArrayList<T>(highlightedElements);
+            return highlightedElements;
         }
-        performUpdate();
+        return new ArrayList<T>(highlightedElements);
     }
-
+    
     /**
-     * Update the JFreeChart chart based on the current binning and values
+     * Set the given list as the elements of this histogram. A reference to
+     * the given list will be stored, so it may not be modified afterwards.
+     * Only for internal use.
+     * 
+     * @param elements The elements
      */
-    private void performUpdate()
+    void setSharedElements(List<? extends T> elements)
     {
-        dataset.clear();
-        
-        boolean ignoreInvalid = true;
-        int bins[] = binning.compute(elements, ignoreInvalid);
-        int highlightedBins[] = binning.compute(
-            highlightedElements, ignoreInvalid);
-        
-        for (int i = 0; i < binning.getBinCount(); i++)
+        Objects.requireNonNull(elements, "The elements may not be null");
+        this.elements = elementRetention.retain(elements);
+        this.elementsVersion++;
+        this.highlightedElements = 
+            elementRetention.retain(Collections.emptyList());
+        this.highlightedIndices = new BitSet();
+        performUpdate(elements, Collections.emptyList());
+    }
+    
+    /**
+     * Set the given list as the elements of this histogram, together with 
+     * the bin index of each element and the number of elements in each 
+     * bin, as they have been computed with the current binning. References
+     * to the given objects will be stored, so they may not be modified 
+     * afterwards. Only for internal use.
+     * 
+     * @param elements The elements
+     * @param elementBins The bin index of each element
+     * @param bins The number of elements in each bin
+     */
+    void setEncodedElements(List<? extends T> elements, 
+        int elementBins[], int bins[])
+    {
+        Objects.requireNonNull(elements, "The elements may not be null");
+        this.elements = elementRetention.retain(elements);
+        this.elementsVersion++;
+        this.elementBins = Objects.requireNonNull(
+            elementBins, "The elementBins may not be null");
+        this.elementCount = elementBins.length;
+        this.bins = Objects.requireNonNull(
+            bins, "The bins may not be null");
+        this.binOrdering = null;
+        clearSelection();
+        Collection<? extends T> newHighlightedElements = 
+            Collections.emptyList();
+        this.highlightedElements = 
+            elementRetention.retain(newHighlightedElements);
+        this.highlightedIndices = null;
+        beginMeasurement();
+        try
         {
-            dataset.addValue(
-                highlightedBins[i], "highlightedElements", Integer.valueOf(i));
+            updateWeights(elements);
+            measurePhase(HistogramPhase.WEIGHTING);
+            updateHighlightedBins(newHighlightedElements);
+            measurePhase(HistogramPhase.HIGHLIGHTING);
+            releaseElementBins();
+            updateDataset();
         }
-        for (int i = 0; i < binning.getBinCount(); i++)
+        finally
         {
-            dataset.addValue(
-                bins[i] - highlightedBins[i], "elements", Integer.valueOf(i));
+            endMeasurement();
         }
-        
     }
     
+    /**
+     * Returns the elements of this histogram, or <code>null</code> if 
+     * they are no longer retained. The returned collection may not be 
+     * modified. Only for internal use.
+     * 
+     * @return The elements
+     */
+    Collection<? extends T> getElements()
+    {
+        return elements.get();
+    }
+    
+    /**
+     * Returns the highlighted elements of this histogram, or 
+     * <code>null</code> if they are no longer retained, or given as 
+     * indices. The returned collection may not be modified. Only for 
+     * internal use.
+     * 
+     * @return The highlighted elements
+     */
+    Collection<? extends T> getHighlightedElements()
+    {
+        if (highlightedIndices != null)
+        {
+            return null;
+        }
+        return highlightedElements.get();
+    }
     
-    @Override
-    public void addHistogramMouseListener(
-        HistogramMouseListener<T> histogramMouseListener)
+    /**
+     * Returns the way how the elements are retained. Only for internal use.
+     * 
+     * @return The {@link ElementRetention}
+     */
+    ElementRetention getElementRetention()
     {
-        histogramMouseListeners.add(histogramMouseListener);
+        return elementRetention;
+    }
+    
+    /**
+     * Returns a counter that is incremented whenever the elements of this
+     * histogram are set. Only for internal use.
+     * 
+     * @return The elements version
+     */
+    int getElementsVersion()
+    {
+        return elementsVersion;
+    }
+    
+    /**
+     * Returns the bin index for each of the elements. Elements that could
+     * not be associated with a bin have a negative bin index. The returned
+     * array may not be modified. Only for internal use.
+     * 
+     * @return The element bins
+     */
+    int[] getElementBins()
+    {
+        return requireElementBins();
+    }
+    
+    /**
+     * Set the {@link #elementBins} to <code>null</code> when the elements
+     * are not retained strongly, and there are no highlighted indices. 
+     * In this case, only the counts of the bins are kept, and the bin 
+     * index of each element will be computed again from the elements 
+     * when it is required and the elements are still retained.
+     */
+    private void releaseElementBins()
+    {
+        if (elementRetention != ElementRetention.STRONG 
+            && highlightedIndices == null)
+        {
+            elementBins = null;
+        }
+    }
+    
+    /**
+     * Returns the {@link #elementBins}, computing them with the current 
+     * binning if the bins have been set with precomputed counts
+     * 
+     * @return The element bins
+     * @throws IllegalStateException If the element bins have to be 
+     * computed, but the elements are no longer retained
+     */
+    private int[] requireElementBins()
+    {
+        if (elementBins == null)
+        {
+            Collection<? extends T> currentElements = elements.get();
+            if (currentElements == null)
+            {
+                throw new IllegalStateException(
+                    "The elements are no longer retained, and can not be "
+                    + "assigned to bins");
+            }
+            elementBins = 
+                computeElementBins(binning, currentElements, null);
+        }
+        return elementBins;
+    }
+    
+    /**
+     * Creates a snapshot of the current bin counts, highlighted bin counts
+     * and bin labels of this histogram, in the order of the bin indices.
+     * Only for internal use.
+     * 
+     * @return The {@link BinCounts}
+     */
+    BinCounts createBinCounts()
+    {
+        return new BinCounts(bins.clone(), highlightedBins.clone(), 
+            binLabelFunction);
+    }
+    
+    /**
+     * Set the highlighted indices and the corresponding number of 
+     * highlighted elements in each bin. References to the given objects
+     * will be stored, so they may not be modified afterwards. The caller
+     * is responsible for the bins being consistent with the indices and 
+     * the {@link #getElementBins() element bins}. Only for internal use.
+     * 
+     * @param highlightedIndices The highlighted indices
+     * @param highlightedBins The highlighted bins
+     */
+    void setHighlighted(BitSet highlightedIndices, int highlightedBins[])
+    {
+        this.highlightedIndices = Objects.requireNonNull(
+            highlightedIndices, "The highlightedIndices may not be null");
+        this.highlightedBins = Objects.requireNonNull(
+            highlightedBins, "The highlightedBins may not be null");
+        this.highlightedElements = 
+            elementRetention.retain(Collections.emptyList());
+        if (weightFunction != null)
+        {
+            highlightedBinWeights = computeHighlightedBinWeights();
+        }
+        invalidateCumulativeBins();
+        updateDataset();
     }
     
     @Override
-    public void removeHistogramMouseListener(
-        HistogramMouseListener<T> histogramMouseListener)
+    public void setHighlightedElements(
+        Collection<? extends T> highlightedElements)
     {
-        histogramMouseListeners.remove(histogramMouseListener);
+        Collection<? extends T> newHighlightedElements = 
+            adoptHighlightedElements(highlightedElements);
+        this.highlightedElements = 
+            elementRetention.retain(newHighlightedElements);
+        this.highlightedIndices = null;
+        beginMeasurement();
+        try
+        {
+            updateHighlightedBins(newHighlightedElements);
+            measurePhase(HistogramPhase.HIGHLIGHTING);
+            releaseElementBins();
+            updateDataset();
+        }
+        finally
+        {
+            endMeasurement();
+        }
+    }
+
+    @Override
+    public void setHighlightedIndices(BitSet highlightedIndices)
+    {
+        BitSet newHighlightedIndices = new BitSet();
+        if (highlightedIndices != null)
+        {
+            if (highlightedIndices.length() > elementCount)
+            {
+                throw new IllegalArgumentException(
+                    "The highlighted indices contain index " 
+                    + (highlightedIndices.length() - 1) + ", but there are "
+                    + "only " + elementCount + " elements");
+            }
+            newHighlightedIndices = (BitSet) highlightedIndices.clone();
+        }
+        this.highlightedIndices = newHighlightedIndices;
+        this.highlightedElements = 
+            elementRetention.retain(Collections.emptyList());
+        beginMeasurement();
+        try
+        {
+            updateHighlightedBins(null);
+            measurePhase(HistogramPhase.HIGHLIGHTING);
+            updateDataset();
+        }
+        finally
+        {
+            endMeasurement();
+        }
+    }
+
+    @Override
+    public void setWeightFunction(ToDoubleFunction<? super T> weightFunction)
+    {
+        Collection<? extends T> currentElements = elements.get();
+        Collection<? extends T> currentHighlightedElements = 
+            highlightedElements.get();
+        if (weightFunction != null && (currentElements == null || 
+            (highlightedIndices == null && currentHighlightedElements == null)))
+        {
+            throw new IllegalStateException(
+                "The elements are no longer retained, and can not be "
+                + "weighted");
+        }
+        this.weightFunction = weightFunction;
+        this.binOrdering = null;
+        invalidateCumulativeBins();
+        if (weightFunction == null)
+        {
+            rangeAxis.setStandardTickUnits(
+                NumberAxis.createIntegerTickUnits());
+            elementWeights = null;
+            binWeights = null;
+            highlightedBinWeights = null;
+        }
+        else
+        {
+            rangeAxis.setStandardTickUnits(
+                NumberAxis.createStandardTickUnits());
+            beginMeasurement();
+            try
+            {
+                updateWeights(currentElements);
+                measurePhase(HistogramPhase.WEIGHTING);
+                updateHighlightedBins(currentHighlightedElements);
+                measurePhase(HistogramPhase.HIGHLIGHTING);
+                releaseElementBins();
+                updateDataset();
+            }
+            finally
+            {
+                endMeasurement();
+            }
+            return;
+        }
+        updateDataset();
+    }
+    
+    /**
+     * Update the weights of the given elements and the total weight of
+     * each bin, based on the current {@link #elementBins}. If there is no
+     * {@link #weightFunction}, then the weights will be <code>null</code>.
+     * 
+     * @param elements The elements
+     */
+    private void updateWeights(Iterable<? extends T> elements)
+    {
+        if (weightFunction == null)
+        {
+            elementWeights = null;
+            binWeights = null;
+            return;
+        }
+        int currentElementBins[] = requireElementBins();
+        elementWeights = new double[currentElementBins.length];
+        CompensatedSums sums = new CompensatedSums(binning.getBinCount());
+        int index = 0;
+        for (T element : elements)
+        {
+            double weight = weightFunction.applyAsDouble(element);
+            elementWeights[index] = weight;
+            int bin = currentElementBins[index];
+            if (bin >= 0)
+            {
+                sums.add(bin, weight);
+            }
+            index++;
+        }
+        binWeights = sums.getSums();
+    }
+    
+    /**
+     * Compute the total weight of the highlighted elements in each bin,
+     * based on the {@link #highlightedIndices}, the {@link #elementBins} 
+     * and the {@link #elementWeights}
+     * 
+     * @return The highlighted bin weights
+     */
+    private double[] computeHighlightedBinWeights()
+    {
+        int currentElementBins[] = requireElementBins();
+        CompensatedSums sums = new CompensatedSums(binning.getBinCount());
+        for (int i = highlightedIndices.nextSetBit(0); i >= 0; 
+            i = highlightedIndices.nextSetBit(i + 1))
+        {
+            int bin = currentElementBins[i];
+            if (bin >= 0)
+            {
+                sums.add(bin, elementWeights[i]);
+            }
+        }
+        return sums.getSums();
+    }
+
+    /**
+     * Update the bins of the elements and the highlighted elements based
+     * on the current binning, and update the JFreeChart chart accordingly
+     * 
+     * @throws IllegalStateException If the elements are no longer retained
+     */
+    private void performUpdate()
+    {
+        Collection<? extends T> currentElements = elements.get();
+        Collection<? extends T> currentHighlightedElements = 
+            highlightedElements.get();
+        if (currentElements == null || 
+            (highlightedIndices == null && currentHighlightedElements == null))
+        {
+            throw new IllegalStateException(
+                "The elements are no longer retained, and can not be "
+                + "assigned to new bins");
+        }
+        performUpdate(currentElements, currentHighlightedElements);
+    }
+    
+    /**
+     * Update the bins of the given elements and highlighted elements based
+     * on the current binning, and update the JFreeChart chart accordingly
+     * 
+     * @param elements The elements
+     * @param highlightedElements The highlighted elements. This is only
+     * used when the {@link #highlightedIndices} are <code>null</code>.
+     */
+    private void performUpdate(Collection<? extends T> elements, 
+        Collection<? extends T> highlightedElements)
+    {
+        Object event = FlightRecorderEvents.begin(HistogramOperation.UPDATE);
+        beginMeasurement();
+        try
+        {
+            int binCount = binning.getBinCount();
+            elementBins = computeElementBins(binning, elements, 
+                measureKeyExtraction(
+                    elementKeyChunkConsumer, HistogramPhase.BINNING));
+            elementCount = elementBins.length;
+            bins = new int[binCount];
+            binOrdering = null;
+            clearSelection();
+            for (int bin : elementBins)
+            {
+                if (bin >= 0)
+                {
+                    bins[bin]++;
+                }
+            }
+            measurePhase(HistogramPhase.BINNING);
+            updateWeights(elements);
+            measurePhase(HistogramPhase.WEIGHTING);
+            updateHighlightedBins(highlightedElements);
+            measurePhase(HistogramPhase.HIGHLIGHTING);
+            releaseElementBins();
+            updateDataset();
+        }
+        finally
+        {
+            endMeasurement();
+        }
+        FlightRecorderEvents.end(event, elementCount, bins.length);
+    }
+    
+    /**
+     * Compute the bin index for each of the given elements, using the
+     * given binning. For a {@link RangeBinning}, the bins will be
+     * computed in chunks, with {@link RangeBinning#computeBins}, and 
+     * the keys will be passed to the given consumer.
+     * 
+     * @param <T> The element type
+     * 
+     * @param binning The binning
+     * @param elements The elements
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     * @return The bin index for each element
+     */
+    private static <T> int[] computeElementBins(
+        Binning<T> binning, Collection<? extends T> elements,
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        int elementBins[] = new int[elements.size()];
+        if (binning instanceof RangeBinning<?>)
+        {
+            RangeBinning<T> rangeBinning = (RangeBinning<T>) binning;
+            rangeBinning.computeBins(
+                elements, elementBins, keyChunkConsumer);
+            return elementBins;
+        }
+        int index = 0;
+        for (T element : elements)
+        {
+            elementBins[index] = binning.computeBin(element);
+            index++;
+        }
+        return elementBins;
+    }
+    
+    /**
+     * Update the {@link #highlightedBins}. If there are 
+     * {@link #highlightedIndices}, then the bins will be obtained from
+     * the {@link #elementBins}. Otherwise, the given highlighted elements
+     * will be passed to the current binning.
+     * 
+     * @param highlightedElements The highlighted elements
+     */
+    private void updateHighlightedBins(
+        Collection<? extends T> highlightedElements)
+    {
+        if (highlightedIndices != null)
+        {
+            int currentElementBins[] = requireElementBins();
+            highlightedBins = new int[binning.getBinCount()];
+            for (int i = highlightedIndices.nextSetBit(0); i >= 0; 
+                i = highlightedIndices.nextSetBit(i + 1))
+            {
+                int bin = currentElementBins[i];
+                if (bin >= 0)
+                {
+                    highlightedBins[bin]++;
+                }
+            }
+            if (weightFunction != null)
+            {
+                highlightedBinWeights = computeHighlightedBinWeights();
+            }
+        }
+        else if (weightFunction != null)
+        {
+            highlightedBins = new int[binning.getBinCount()];
+            CompensatedSums sums = 
+                new CompensatedSums(binning.getBinCount());
+            for (T element : highlightedElements)
+            {
+                int bin = binning.computeBin(element);
+                if (bin >= 0)
+                {
+                    highlightedBins[bin]++;
+                    sums.add(bin, weightFunction.applyAsDouble(element));
+                }
+            }
+            highlightedBinWeights = sums.getSums();
+        }
+        else if (binning instanceof RangeBinning<?>)
+        {
+            RangeBinning<T> rangeBinning = (RangeBinning<T>) binning;
+            highlightedBins = new int[binning.getBinCount()];
+            rangeBinning.countBins(highlightedElements, highlightedBins, 
+                measureKeyExtraction(highlightedKeyChunkConsumer, 
+                    HistogramPhase.HIGHLIGHTING));
+        }
+        else
+        {
+            boolean ignoreInvalid = true;
+            highlightedBins = binning.compute(
+                highlightedElements, ignoreInvalid);
+        }
+        if (weightFunction == null)
+        {
+            highlightedBinWeights = null;
+        }
+        invalidateCumulativeBins();
+    }
+    
+    /**
+     * Reset all prefix sums to <code>null</code>, so that they are 
+     * computed again when they are required
+     */
+    private void invalidateCumulativeBins()
+    {
+        cumulativeBins = null;
+        cumulativeHighlightedBins = null;
+        cumulativeBinWeights = null;
+        cumulativeHighlightedBinWeights = null;
+    }
+    
+    /**
+     * Set whether the cumulative distribution is shown. Only for 
+     * internal use.
+     * 
+     * @param cumulative Whether the cumulative distribution is shown
+     */
+    void setCumulative(boolean cumulative)
+    {
+        this.cumulative = cumulative;
+        updateDataset();
+    }
+    
+    /**
+     * Returns the number of elements in the given range of bins. Only 
+     * for internal use.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @return The number of elements
+     * @throws IndexOutOfBoundsException If the range is invalid
+     */
+    int getCount(int fromBin, int toBin)
+    {
+        checkBinRange(fromBin, toBin);
+        if (cumulativeBins == null)
+        {
+            cumulativeBins = computePrefixSums(bins);
+        }
+        return cumulativeBins[toBin] - cumulativeBins[fromBin];
+    }
+    
+    /**
+     * Returns the number of highlighted elements in the given range of 
+     * bins. Only for internal use.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @return The number of highlighted elements
+     * @throws IndexOutOfBoundsException If the range is invalid
+     */
+    int getHighlightedCount(int fromBin, int toBin)
+    {
+        checkBinRange(fromBin, toBin);
+        if (cumulativeHighlightedBins == null)
+        {
+            cumulativeHighlightedBins = computePrefixSums(highlightedBins);
+        }
+        return cumulativeHighlightedBins[toBin] 
+            - cumulativeHighlightedBins[fromBin];
+    }
+    
+    /**
+     * Make sure that the given range of bins is valid
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @throws IndexOutOfBoundsException If the first index is negative, 
+     * the last index is larger than the bin count, or the first index is 
+     * larger than the last index
+     */
+    void checkBinRange(int fromBin, int toBin)
+    {
+        if (fromBin < 0 || toBin > bins.length || fromBin > toBin)
+        {
+            throw new IndexOutOfBoundsException("The range [" + fromBin 
+                + ", " + toBin + ") is not valid for " + bins.length 
+                + " bins");
+        }
+    }
+    
+    /**
+     * Compute the prefix sums of the given values. The result will have
+     * one more entry than the given array, where the entry at index 
+     * <code>i</code> is the sum of the first <code>i</code> values.
+     * 
+     * @param values The values
+     * @return The prefix sums
+     */
+    private static int[] computePrefixSums(int values[])
+    {
+        int result[] = new int[values.length + 1];
+        for (int i = 0; i < values.length; i++)
+        {
+            result[i + 1] = result[i] + values[i];
+        }
+        return result;
+    }
+    
+    /**
+     * Compute the prefix sums of the given values, with compensated 
+     * summation. The result will have one more entry than the given 
+     * array, where the entry at index <code>i</code> is the sum of the 
+     * first <code>i</code> values.
+     * 
+     * @param values The values
+     * @return The prefix sums
+     */
+    private static double[] computePrefixSums(double values[])
+    {
+        double result[] = new double[values.length + 1];
+        CompensatedSums sum = new CompensatedSums(1);
+        for (int i = 0; i < values.length; i++)
+        {
+            sum.add(0, values[i]);
+            result[i + 1] = sum.getSum(0);
+        }
+        return result;
+    }
+
+    /**
+     * Update the JFreeChart chart based on the current bins 
+     */
+    private void updateDataset()
+    {
+        beginMeasurement();
+        try
+        {
+            updateDatasetValues();
+            measurePhase(HistogramPhase.DATASET);
+        }
+        finally
+        {
+            endMeasurement();
+        }
+    }
+    
+    /**
+     * Update the values of the data set and the scroll bar based on the 
+     * current bins 
+     */
+    private void updateDatasetValues()
+    {
+        int binCount = binning.getBinCount();
+        int visibleBinCount = binCount;
+        if (maximumVisibleBinCount > 0)
+        {
+            visibleBinCount = Math.min(binCount, maximumVisibleBinCount);
+        }
+        firstVisibleBin = Math.max(0, 
+            Math.min(firstVisibleBin, binCount - visibleBinCount));
+        int endVisibleBin = firstVisibleBin + visibleBinCount;
+        
+        // Only notify the chart once, after all values have been set
+        dataset.setNotify(false);
+        dataset.clear();
+        if (cumulative)
+        {
+            addCumulativeValues(firstVisibleBin, endVisibleBin);
+        }
+        else
+        {
+            addValues(firstVisibleBin, endVisibleBin);
+        }
+        dataset.setNotify(true);
+        
+        boolean scrolling = visibleBinCount < binCount;
+        scrollBar.setValues(firstVisibleBin, visibleBinCount, 0, binCount);
+        scrollBar.setBlockIncrement(Math.max(1, visibleBinCount));
+        if (scrollBar.isVisible() != scrolling)
+        {
+            scrollBar.setVisible(scrolling);
+            revalidate();
+        }
+    }
+    
+    /**
+     * Add the values of the bins at the given positions of the current
+     * {@link BinOrdering} to the data set
+     * 
+     * @param firstVisibleBin The first position, inclusive
+     * @param endVisibleBin The last position, exclusive
+     */
+    private void addValues(int firstVisibleBin, int endVisibleBin)
+    {
+        BinOrdering ordering = getBinOrdering();
+        ordering.ensureSorted(endVisibleBin);
+        for (int p = firstVisibleBin; p < endVisibleBin; p++)
+        {
+            int i = ordering.getBin(p);
+            double value = highlightedBins[i];
+            if (binWeights != null)
+            {
+                value = highlightedBinWeights[i];
+            }
+            dataset.addValue(
+                value, "highlightedElements", Integer.valueOf(i));
+        }
+        for (int p = firstVisibleBin; p < endVisibleBin; p++)
+        {
+            int i = ordering.getBin(p);
+            double value = Math.max(0, bins[i] - highlightedBins[i]);
+            if (binWeights != null)
+            {
+                value = binWeights[i] - highlightedBinWeights[i];
+            }
+            dataset.addValue(value, "elements", Integer.valueOf(i));
+        }
+    }
+    
+    /**
+     * Add the cumulative values of the bins with the given indices to 
+     * the data set
+     * 
+     * @param firstVisibleBin The first bin index, inclusive
+     * @param endVisibleBin The last bin index, exclusive
+     */
+    private void addCumulativeValues(int firstVisibleBin, int endVisibleBin)
+    {
+        if (cumulativeBins == null)
+        {
+            cumulativeBins = computePrefixSums(bins);
+        }
+        if (cumulativeHighlightedBins == null)
+        {
+            cumulativeHighlightedBins = computePrefixSums(highlightedBins);
+        }
+        if (binWeights != null && cumulativeBinWeights == null)
+        {
+            cumulativeBinWeights = computePrefixSums(binWeights);
+            cumulativeHighlightedBinWeights = 
+                computePrefixSums(highlightedBinWeights);
+        }
+        for (int i = firstVisibleBin; i < endVisibleBin; i++)
+        {
+            double value = cumulativeHighlightedBins[i + 1];
+            if (binWeights != null)
+            {
+                value = cumulativeHighlightedBinWeights[i + 1];
+            }
+            dataset.addValue(
+                value, "highlightedElements", Integer.valueOf(i));
+        }
+        for (int i = firstVisibleBin; i < endVisibleBin; i++)
+        {
+            double value = Math.max(0, 
+                cumulativeBins[i + 1] - cumulativeHighlightedBins[i + 1]);
+            if (binWeights != null)
+            {
+                value = cumulativeBinWeights[i + 1] 
+                    - cumulativeHighlightedBinWeights[i + 1];
+            }
+            dataset.addValue(value, "elements", Integer.valueOf(i));
+        }
+    }
+    
+    /**
+     * Returns the {@link BinOrdering} for the current bins and 
+     * {@link BinOrder}, creating it if necessary
+     * 
+     * @return The {@link BinOrdering}
+     */
+    private BinOrdering getBinOrdering()
+    {
+        if (binOrdering == null)
+        {
+            if (binOrder == BinOrder.KEY && keyRanks == null && 
+                binKeyComparator != null)
+            {
+                keyRanks = computeKeyRanks(bins.length, binKeyComparator);
+            }
+            binOrdering = 
+                new BinOrdering(binOrder, bins, binWeights, keyRanks);
+        }
+        return binOrdering;
+    }
+    
+    /**
+     * Compute the rank of each bin in the order that is established by
+     * the given comparator
+     * 
+     * @param binCount The bin count
+     * @param binKeyComparator The comparator for bin indices
+     * @return The ranks
+     */
+    private static int[] computeKeyRanks(int binCount, 
+        Comparator<? super Integer> binKeyComparator)
+    {
+        Integer sorted[] = new Integer[binCount];
+        for (int i = 0; i < binCount; i++)
+        {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, binKeyComparator);
+        int ranks[] = new int[binCount];
+        for (int i = 0; i < binCount; i++)
+        {
+            ranks[sorted[i]] = i;
+        }
+        return ranks;
+    }
+    
+    @Override
+    public void setMaximumVisibleBinCount(int maximumVisibleBinCount)
+    {
+        if (maximumVisibleBinCount < 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximumVisibleBinCount may not be negative, but is "
+                + maximumVisibleBinCount);
+        }
+        this.maximumVisibleBinCount = maximumVisibleBinCount;
+        updateDataset();
+    }
+    
+    
+    @Override
+    public void addHistogramMouseListener(
+        HistogramMouseListener<T> histogramMouseListener)
+    {
+        histogramMouseListeners.add(histogramMouseListener);
+    }
+    
+    @Override
+    public void removeHistogramMouseListener(
+        HistogramMouseListener<T> histogramMouseListener)
+    {
+        histogramMouseListeners.remove(histogramMouseListener);
+    }
+    
+    @Override
+    public void addHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener)
+    {
+        histogramMetricsListeners.add(histogramMetricsListener);
+        if (phaseTimer == null)
+        {
+            phaseTimer = new PhaseTimer();
+        }
+    }
+    
+    @Override
+    public void removeHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener)
+    {
+        histogramMetricsListeners.remove(histogramMetricsListener);
+        if (histogramMetricsListeners.isEmpty())
+        {
+            phaseTimer = null;
+        }
+    }
+    
+    /**
+     * Begin the measurement of an operation. If there are no 
+     * {@link HistogramMetricsListener} instances, then nothing is done.
+     * Only for internal use.
+     */
+    void beginMeasurement()
+    {
+        if (phaseTimer != null)
+        {
+            phaseTimer.begin();
+        }
+    }
+    
+    /**
+     * Attribute the time since the begin of the current operation or the
+     * previous call to this method to the given phase. If no operation is 
+     * measured, then nothing is done. Only for internal use.
+     * 
+     * @param phase The {@link HistogramPhase}
+     */
+    void measurePhase(HistogramPhase phase)
+    {
+        if (phaseTimer != null && phaseTimer.isActive())
+        {
+            phaseTimer.stop(phase);
+        }
+    }
+    
+    /**
+     * Returns a {@link KeyChunkConsumer} that attributes the time for 
+     * extracting each chunk of keys to the 
+     * {@link HistogramPhase#KEY_EXTRACTION} phase, and the time for 
+     * computing the bins of the chunk to the given phase, and passes the
+     * keys to the given consumer. If no operation is measured, then the 
+     * given consumer is returned.
+     * 
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     * @param binningPhase The phase for computing the bins
+     * @return The {@link KeyChunkConsumer}
+     */
+    private KeyChunkConsumer measureKeyExtraction(
+        KeyChunkConsumer keyChunkConsumer, HistogramPhase binningPhase)
+    {
+        if (phaseTimer == null || !phaseTimer.isActive())
+        {
+            return keyChunkConsumer;
+        }
+        return new KeyChunkConsumer()
+        {
+            @Override
+            public void accept(double keys[], int count)
+            {
+                measurePhase(HistogramPhase.KEY_EXTRACTION);
+                if (keyChunkConsumer != null)
+                {
+                    keyChunkConsumer.accept(keys, count);
+                }
+            }
+            
+            @Override
+            public void accept(long keys[], int count)
+            {
+                measurePhase(HistogramPhase.KEY_EXTRACTION);
+                if (keyChunkConsumer != null)
+                {
+                    keyChunkConsumer.accept(keys, count);
+                }
+            }
+            
+            @Override
+            public void chunkBinned()
+            {
+                if (keyChunkConsumer != null)
+                {
+                    keyChunkConsumer.chunkBinned();
+                }
+                measurePhase(binningPhase);
+            }
+        };
+    }
+    
+    /**
+     * End the measurement of an operation. If this was the outermost 
+     * operation, then the {@link HistogramMetricsListener} instances
+     * will be informed. Only for internal use.
+     */
+    void endMeasurement()
+    {
+        if (phaseTimer != null && phaseTimer.end())
+        {
+            fireMeasured(phaseTimer.getDurationsNanos());
+        }
+    }
+    
+    /**
+     * Fire a {@link HistogramMetricsEvent} to all registered listeners
+     * 
+     * @param durationsNanos The durations of the phases
+     */
+    private void fireMeasured(long durationsNanos[])
+    {
+        HistogramMetricsEvent histogramMetricsEvent = 
+            new HistogramMetricsEvent(this, durationsNanos, 
+                elementCount, bins.length, estimateRetainedBytes());
+        for (HistogramMetricsListener listener : histogramMetricsListeners)
+        { 
+            listener.measured(histogramMetricsEvent);
+        }
+    }
+    
+    /**
+     * Estimate the number of bytes that are retained for the elements.
+     * This includes the references to strongly retained elements that
+     * are still available, assuming {@link #REFERENCE_BYTES} for each 
+     * reference, as well as
+     * the {@link #elementBins}, the {@link #elementWeights} and the
+     * {@link #highlightedIndices}.
+     * 
+     * @return The estimated number of bytes
+     */
+    private long estimateRetainedBytes()
+    {
+        long result = 0;
+        if (elementBins != null)
+        {
+            result += (long) elementBins.length * Integer.BYTES;
+        }
+        if (elementRetention == ElementRetention.STRONG)
+        {
+            Collection<? extends T> currentElements = elements.get();
+            if (currentElements != null)
+            {
+                result += (long) currentElements.size() * REFERENCE_BYTES;
+            }
+            Collection<? extends T> currentHighlightedElements = 
+                highlightedElements.get();
+            if (currentHighlightedElements != null)
+            {
+                result += 
+                    (long) currentHighlightedElements.size() * REFERENCE_BYTES;
+            }
+        }
+        if (elementWeights != null)
+        {
+            result += (long) elementWeights.length * Double.BYTES;
+        }
+        if (highlightedIndices != null)
+        {
+            result += highlightedIndices.size() / Byte.SIZE;
+        }
+        return result;
     }
     
 }
@@ -26,10 +26,17 @@
  */
 package de.javagl.common.histogram;
 
+import java.awt.event.MouseEvent;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 import javax.swing.JComponent;
 
@@ -38,8 +45,10 @@ import javax.swing.JComponent;
  * {@link JFreeChartHistogram}
  *
  * @param <T> The element type
+ * @param <B> The type of the binning
  */
-class JFreeChartNumberHistogram<T> implements NumberHistogram<T>
+class JFreeChartNumberHistogram<T, B extends RangeBinning<T>> 
+    implements NumberHistogram<T>
 {
     /**
      * The delegate
@@ -49,34 +58,123 @@ class JFreeChartNumberHistogram<T> implements NumberHistogram<T>
     /**
      * The provider for the binnings
      */
-    private final IntFunction<NumberBinning<T>> binningProvider;
+    private final IntFunction<? extends B> binningProvider;
 
+    /**
+     * The provider for the binnings of a range that was zoomed into
+     */
+    private final RangeBinningProvider<B> rangeBinningProvider;
+    
     /**
      * The bin label function provider
      */
-    private final Function<? super NumberBinning<?>, 
+    private final Function<? super B, 
         ? extends IntFunction<String>> binLabelFunctionProvider;
     
+    /**
+     * The binning that was created when zooming into a range, or 
+     * <code>null</code> if the histogram is not zoomed. The range of 
+     * this binning is kept when the bin count is changed.
+     */
+    private B zoomBinning;
+    
+    /**
+     * The supplier for the index of the elements that are sorted by their 
+     * keys. The index is retained according to the {@link ElementRetention}
+     * of the delegate, and created lazily when it is needed. 
+     */
+    private Supplier<SortedKeyIndex<T>> keyIndex;
+    
+    /**
+     * The {@link JFreeChartHistogram#getElementsVersion() elements version}
+     * for which the {@link #keyIndex} was created
+     */
+    private int keyIndexVersion;
+    
+    /**
+     * Whether the counts of the bins may be computed from the 
+     * {@link #fineBinCounts} even when the elements are retained
+     */
+    private boolean approximate;
+    
+    /**
+     * The {@link FineBinCounts} for the range of the binnings of the 
+     * {@link #binningProvider}, or <code>null</code> if they could not 
+     * be computed
+     */
+    private FineBinCounts fineBinCounts;
+    
+    /**
+     * The {@link FineBinCounts} of the highlighted elements, or 
+     * <code>null</code> if they have not been computed
+     */
+    private FineBinCounts highlightedFineBinCounts;
+    
+    /**
+     * The {@link JFreeChartHistogram#getElementsVersion() elements version}
+     * for which the {@link #fineBinCounts} have been computed, or -1 if 
+     * they have not been computed yet
+     */
+    private int fineBinCountsVersion;
+    
+    /**
+     * Whether the current counts of the bins have been computed from 
+     * the {@link #fineBinCounts}
+     */
+    private boolean aggregated;
+    
+    /**
+     * The upper bound for the error of the current counts of the bins
+     */
+    private int countErrorBound;
+    
+    /**
+     * The list of registered {@link HistogramSelectionListener} instances
+     */
+    private final List<HistogramSelectionListener<T>> 
+        histogramSelectionListeners;
+    
     /**
      * Creates a new instance
      * 
      * @param delegate The delegate
      * @param binningProvider The provider for the binnings
+     * @param rangeBinningProvider The provider for the binnings of a range
+     * that was zoomed into
      * @param binLabelFunctionProvider The bin label function provider
      */
     JFreeChartNumberHistogram(
         JFreeChartHistogram<T> delegate,
-        IntFunction<NumberBinning<T>> binningProvider,
-        Function<? super NumberBinning<?>, ? extends IntFunction<String>> 
+        IntFunction<? extends B> binningProvider,
+        RangeBinningProvider<B> rangeBinningProvider,
+        Function<? super B, ? extends IntFunction<String>> 
             binLabelFunctionProvider)
     {
         this.delegate = Objects.requireNonNull(
             delegate, "The delegate may not be null");
         this.binningProvider = Objects.requireNonNull(
             binningProvider, "The binningProvider may not be null");
+        this.rangeBinningProvider = Objects.requireNonNull(
+            rangeBinningProvider, 
+            "The rangeBinningProvider may not be null");
         this.binLabelFunctionProvider = Objects.requireNonNull(
             binLabelFunctionProvider, 
             "The binLabelFunctionProvider may not be null");
+        this.keyIndex = () -> null;
+        this.fineBinCountsVersion = -1;
+        this.histogramSelectionListeners = 
+            new CopyOnWriteArrayList<HistogramSelectionListener<T>>();
+        delegate.setSelectionHandler(this::fireSelected);
+    }
+
+    /**
+     * Returns the delegate of this histogram
+     * 
+     * @return The delegate
+     */
+    JFreeChartHistogram<T> getDelegate()
+    {
+        return delegate;
     }
 
     @Override
@@ -85,12 +183,130 @@ class JFreeChartNumberHistogram<T> implements NumberHistogram<T>
         return delegate.getComponent();
     }
 
+    @Override
+    public void setCopyingElements(boolean copyingElements)
+    {
+        delegate.setCopyingElements(copyingElements);
+    }
+
+    @Override
+    public void setElementRetention(ElementRetention elementRetention)
+    {
+        // Compute the fine bin counts while the elements are still 
+        // retained, so that the bin count can still be changed afterwards
+        if (elementRetention != ElementRetention.STRONG)
+        {
+            FineBinCounts currentFineBinCounts = getFineBinCounts();
+            Collection<? extends T> highlightedElements = 
+                delegate.getHighlightedElements();
+            if (currentFineBinCounts != null 
+                && highlightedFineBinCounts == null 
+                && highlightedElements != null)
+            {
+                highlightedFineBinCounts = FineBinCounts.compute(
+                    highlightedElements, binningProvider.apply(1));
+            }
+        }
+        delegate.setElementRetention(elementRetention);
+    }
+
+    @Override
+    public void setMaximumVisibleBinCount(int maximumVisibleBinCount)
+    {
+        delegate.setMaximumVisibleBinCount(maximumVisibleBinCount);
+    }
+
+    @Override
+    public void setWeightFunction(ToDoubleFunction<? super T> weightFunction)
+    {
+        delegate.setWeightFunction(weightFunction);
+    }
+    
+    @Override
+    public void setBinOrder(BinOrder binOrder)
+    {
+        delegate.setBinOrder(binOrder);
+    }
+
     @Override
     public void setElements(Collection<? extends T> elements,
         Collection<? extends T> highlightedElements)
     {
-        delegate.setElements(elements, highlightedElements);
+        FineBinCounts.Builder elementBuilder = null;
+        FineBinCounts.Builder highlightedBuilder = null;
+        if (approximate || 
+            delegate.getElementRetention() != ElementRetention.STRONG)
+        {
+            B fullBinning = binningProvider.apply(1);
+            if (FineBinCounts.isValidRange(fullBinning))
+            {
+                elementBuilder = new FineBinCounts.Builder(fullBinning);
+                highlightedBuilder = new FineBinCounts.Builder(fullBinning);
+            }
+        }
+        
+        // The fine bin counts are computed from the keys that are 
+        // extracted while the elements are assigned to the bins
+        delegate.setKeyChunkConsumers(elementBuilder, highlightedBuilder);
+        try
+        {
+            delegate.setElements(elements, highlightedElements);
+        }
+        finally
+        {
+            delegate.setKeyChunkConsumers(null, null);
+        }
+        aggregated = false;
+        countErrorBound = 0;
+        if (elementBuilder != null)
+        {
+            fineBinCounts = elementBuilder.build();
+            highlightedFineBinCounts = highlightedBuilder.build();
+            fineBinCountsVersion = delegate.getElementsVersion();
+        }
+        else
+        {
+            fineBinCounts = null;
+            highlightedFineBinCounts = null;
+            fineBinCountsVersion = -1;
+        }
+    }
+
+    @Override
+    public void setHighlightedElements(
+        Collection<? extends T> highlightedElements)
+    {
+        FineBinCounts.Builder highlightedBuilder = null;
+        if (fineBinCounts != null && 
+            fineBinCountsVersion == delegate.getElementsVersion())
+        {
+            highlightedBuilder = 
+                new FineBinCounts.Builder(binningProvider.apply(1));
+        }
+        delegate.setKeyChunkConsumers(null, highlightedBuilder);
+        try
+        {
+            delegate.setHighlightedElements(highlightedElements);
+        }
+        finally
+        {
+            delegate.setKeyChunkConsumers(null, null);
+        }
+        if (highlightedBuilder != null)
+        {
+            highlightedFineBinCounts = highlightedBuilder.build();
+        }
+        else
+        {
+            highlightedFineBinCounts = null;
+        }
+    }
 
+    @Override
+    public void setHighlightedIndices(BitSet highlightedIndices)
+    {
+        delegate.setHighlightedIndices(highlightedIndices);
+        highlightedFineBinCounts = null;
     }
 
     @Override
@@ -107,6 +323,20 @@ class JFreeChartNumberHistogram<T> implements NumberHistogram<T>
         delegate.removeHistogramMouseListener(histogramMouseListener);
     }
     
+    @Override
+    public void addHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener)
+    {
+        delegate.addHistogramMetricsListener(histogramMetricsListener);
+    }
+    
+    @Override
+    public void removeHistogramMetricsListener(
+        HistogramMetricsListener histogramMetricsListener)
+    {
+        delegate.removeHistogramMetricsListener(histogramMetricsListener);
+    }
+    
     @Override
     public int getBinCount()
     {
@@ -121,9 +351,352 @@ class JFreeChartNumberHistogram<T> implements NumberHistogram<T>
             throw new IllegalArgumentException(
                 "The bin count must be positive, but is " + binCount);
         }
-        NumberBinning<T> newBinning = binningProvider.apply(binCount);
+        delegate.beginMeasurement();
+        try
+        {
+            B newBinning;
+            if (zoomBinning != null)
+            {
+                newBinning = rangeBinningProvider.createBinning(zoomBinning, 
+                    0, zoomBinning.getBinCount(), binCount);
+            }
+            else
+            {
+                newBinning = binningProvider.apply(binCount);
+            }
+            applyBinning(newBinning);
+        }
+        finally
+        {
+            delegate.endMeasurement();
+        }
+    }
+    
+    /**
+     * Apply the given binning to the delegate, with the bin label function
+     * that is provided for it. This is called in an ongoing measurement.
+     * 
+     * @param newBinning The new binning
+     */
+    private void applyBinning(B newBinning)
+    {
         IntFunction<String> newBinLabelFunction = 
             binLabelFunctionProvider.apply(newBinning);
+        delegate.measurePhase(HistogramPhase.BINNING);
+        if ((approximate || !delegate.canAssignToNewBins()) 
+            && canAggregateBinCounts())
+        {
+            int binCount = newBinning.getBinCount();
+            int bins[] = new int[binCount];
+            int errorBound = getFineBinCounts().aggregate(newBinning, bins);
+            int highlightedBins[] = null;
+            if (delegate.getHighlightedElements() == null)
+            {
+                highlightedBins = new int[binCount];
+                int highlightedErrorBound = highlightedFineBinCounts
+                    .aggregate(newBinning, highlightedBins);
+                errorBound = Math.max(errorBound, highlightedErrorBound);
+            }
+            delegate.setBinning(newBinning, newBinLabelFunction, 
+                bins, highlightedBins);
+            aggregated = true;
+            countErrorBound = errorBound;
+            return;
+        }
         delegate.setBinning(newBinning, newBinLabelFunction);
+        aggregated = false;
+        countErrorBound = 0;
+    }
+    
+    /**
+     * Returns whether the counts of the bins of a new binning can be 
+     * computed from the {@link FineBinCounts}. This requires the fine 
+     * bin counts of the elements, and either the fine bin counts of the 
+     * highlighted elements, or the highlighted elements themselves. 
+     * 
+     * @return Whether the bin counts can be aggregated
+     */
+    private boolean canAggregateBinCounts()
+    {
+        if (!delegate.canSetBinCounts() || getFineBinCounts() == null)
+        {
+            return false;
+        }
+        return highlightedFineBinCounts != null 
+            || delegate.getHighlightedElements() != null;
+    }
+    
+    /**
+     * Returns whether the binning can currently be changed, with 
+     * {@link #setBinCount(int)} or {@link #zoom(double, double)}. This
+     * is not possible when the elements are no longer retained, and 
+     * the counts of the bins can not be computed from the 
+     * {@link FineBinCounts}. Only for internal use.
+     * 
+     * @return Whether the binning can be changed
+     */
+    boolean canChangeBinning()
+    {
+        return delegate.canAssignToNewBins() || canAggregateBinCounts();
+    }
+    
+    /**
+     * Returns the {@link FineBinCounts} for the current elements, computing
+     * them if necessary. Returns <code>null</code> if they have not been 
+     * computed for the current elements and the elements are no longer 
+     * retained, or if they can not be computed for the range of values.
+     * 
+     * @return The {@link FineBinCounts}
+     */
+    private FineBinCounts getFineBinCounts()
+    {
+        int version = delegate.getElementsVersion();
+        if (fineBinCountsVersion == version)
+        {
+            return fineBinCounts;
+        }
+        Collection<? extends T> elements = delegate.getElements();
+        if (elements == null)
+        {
+            return null;
+        }
+        
+        // The fine bin counts have not been computed while the elements
+        // have been set, so they are computed in a separate pass now
+        B fullBinning = binningProvider.apply(1);
+        fineBinCounts = null;
+        highlightedFineBinCounts = null;
+        if (FineBinCounts.isValidRange(fullBinning))
+        {
+            fineBinCounts = FineBinCounts.compute(elements, fullBinning);
+            Collection<? extends T> highlightedElements = 
+                delegate.getHighlightedElements();
+            if (highlightedElements != null)
+            {
+                highlightedFineBinCounts = 
+                    FineBinCounts.compute(highlightedElements, fullBinning);
+            }
+        }
+        fineBinCountsVersion = version;
+        return fineBinCounts;
+    }
+    
+    @Override
+    public void setApproximate(boolean approximate)
+    {
+        this.approximate = approximate;
+        if (!approximate && aggregated && delegate.canAssignToNewBins())
+        {
+            setBinCount(getBinCount());
+        }
+    }
+    
+    @Override
+    public int getCountErrorBound()
+    {
+        return countErrorBound;
+    }
+    
+    @Override
+    public void setCumulative(boolean cumulative)
+    {
+        delegate.setCumulative(cumulative);
+    }
+    
+    @Override
+    public int getCount(int fromBin, int toBin)
+    {
+        return delegate.getCount(fromBin, toBin);
+    }
+    
+    @Override
+    public int getHighlightedCount(int fromBin, int toBin)
+    {
+        return delegate.getHighlightedCount(fromBin, toBin);
+    }
+    
+    @Override
+    public List<T> getElements(int fromBin, int toBin)
+    {
+        delegate.checkBinRange(fromBin, toBin);
+        SortedKeyIndex<T> index = getKeyIndex();
+        RangeBinning<T> binning = getBinning();
+        int from = index.binBound(binning, fromBin);
+        int to = index.binBound(binning, toBin);
+        return index.getElements(from, to);
+    }
+    
+    @Override
+    public int getCountInRange(double minimum, double maximum)
+    {
+        SortedKeyIndex<T> index = getKeyIndex();
+        int from = index.lowerBound(minimum);
+        int to = index.upperBound(maximum);
+        return Math.max(0, to - from);
+    }
+    
+    @Override
+    public List<T> getElementsInRange(double minimum, double maximum)
+    {
+        SortedKeyIndex<T> index = getKeyIndex();
+        int from = index.lowerBound(minimum);
+        int to = index.upperBound(maximum);
+        if (from >= to)
+        {
+            return Collections.emptyList();
+        }
+        return index.getElements(from, to);
+    }
+    
+    /**
+     * Returns the index of the elements that are sorted by their keys,
+     * creating it if necessary
+     * 
+     * @return The index
+     * @throws IllegalStateException If the elements are no longer retained
+     */
+    private SortedKeyIndex<T> getKeyIndex()
+    {
+        int version = delegate.getElementsVersion();
+        SortedKeyIndex<T> index = null;
+        if (keyIndexVersion == version)
+        {
+            index = keyIndex.get();
+        }
+        if (index == null)
+        {
+            Collection<? extends T> elements = delegate.getElements();
+            if (elements == null)
+            {
+                throw new IllegalStateException(
+                    "The elements are no longer retained, and can not be "
+                    + "indexed");
+            }
+            index = new SortedKeyIndex<T>(elements, getBinning());
+            keyIndex = delegate.getElementRetention().retain(index);
+            keyIndexVersion = version;
+        }
+        return index;
+    }
+    
+    /**
+     * Returns the current binning of the delegate. This is always a 
+     * binning that was created by one of the binning providers.
+     * 
+     * @return The binning
+     */
+    @SuppressWarnings("unchecked")
+    private B getBinning()
+    {
+        return (B) delegate.getBinning();
+    }
+    
+    @Override
+    public void addHistogramSelectionListener(
+        HistogramSelectionListener<T> histogramSelectionListener)
+    {
+        histogramSelectionListeners.add(histogramSelectionListener);
+    }
+    
+    @Override
+    public void removeHistogramSelectionListener(
+        HistogramSelectionListener<T> histogramSelectionListener)
+    {
+        histogramSelectionListeners.remove(histogramSelectionListener);
+    }
+    
+    /**
+     * Fire a {@link HistogramSelectionEvent} to all registered listeners.
+     * The elements of the event are obtained from the sorted key index, 
+     * and will be empty if the elements are no longer retained.
+     * 
+     * @param mouseEvent The mouse event that caused the event
+     * @param fromBin The first selected bin, inclusive
+     * @param toBin The last selected bin, exclusive
+     */
+    private void fireSelected(MouseEvent mouseEvent, int fromBin, int toBin)
+    {
+        if (histogramSelectionListeners.isEmpty())
+        {
+            return;
+        }
+        List<T> elements = Collections.emptyList();
+        if (delegate.getElements() != null)
+        {
+            elements = getElements(fromBin, toBin);
+        }
+        RangeBinning<T> binning = getBinning();
+        HistogramSelectionEvent<T> histogramSelectionEvent = 
+            new HistogramSelectionEvent<T>(this, mouseEvent, fromBin, toBin,
+                binning.getBinMinimum(fromBin), 
+                binning.getBinMaximum(toBin - 1), elements,
+                getCount(fromBin, toBin), 
+                getHighlightedCount(fromBin, toBin));
+        for (HistogramSelectionListener<T> listener : 
+            histogramSelectionListeners)
+        {
+            listener.selected(histogramSelectionEvent);
+        }
+    }
+    
+    @Override
+    public void zoom(double minimum, double maximum)
+    {
+        if (!Double.isFinite(minimum) || !Double.isFinite(maximum)
+            || minimum > maximum)
+        {
+            throw new IllegalArgumentException("The range [" + minimum
+                + ", " + maximum + "] is not valid for zooming");
+        }
+        applyZoom(rangeBinningProvider.createBinning(
+            minimum, maximum, getBinCount()));
+    }
+    
+    /**
+     * Apply the given binning for a range that was zoomed into
+     * 
+     * @param newBinning The new binning
+     */
+    private void applyZoom(B newBinning)
+    {
+        delegate.beginMeasurement();
+        try
+        {
+            applyBinning(newBinning);
+            zoomBinning = newBinning;
+        }
+        finally
+        {
+            delegate.endMeasurement();
+        }
+    }
+    
+    @Override
+    public void zoomToBins(int fromBin, int toBin)
+    {
+        delegate.checkBinRange(fromBin, toBin);
+        if (fromBin == toBin)
+        {
+            throw new IndexOutOfBoundsException(
+                "The range [" + fromBin + ", " + toBin + ") is empty");
+        }
+        applyZoom(rangeBinningProvider.createBinning(
+            getBinning(), fromBin, toBin, getBinCount()));
+    }
+    
+    @Override
+    public void resetZoom()
+    {
+        delegate.beginMeasurement();
+        try
+        {
+            B newBinning = binningProvider.apply(getBinCount());
+            applyBinning(newBinning);
+            zoomBinning = null;
+        }
+        finally
+        {
+            delegate.endMeasurement();
+        }
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * Interface for classes that receive the keys of elements in chunks, 
+ * while the elements are assigned to the bins of a {@link RangeBinning}.
+ * This allows computing additional information from the keys, without
+ * extracting the keys from the elements again.
+ */
+interface KeyChunkConsumer
+{
+    /**
+     * Accept the given keys. This is called after the keys of a chunk 
+     * have been extracted, and before their bins are computed. The given
+     * array may only be read, and only during this call.
+     * 
+     * @param keys The keys
+     * @param count The number of keys
+     */
+    void accept(double keys[], int count);
+    
+    /**
+     * Accept the given keys, for binnings whose keys are 
+     * <code>long</code> values, which are passed without converting them
+     * to <code>double</code> values. Otherwise, this is the same as
+     * {@link #accept(double[], int)}.
+     * 
+     * @param keys The keys
+     * @param count The number of keys
+     */
+    void accept(long keys[], int count);
+    
+    /**
+     * Will be called after the bins of the keys that have last been 
+     * passed to one of the <code>accept</code> methods have been 
+     * computed. 
+     * This may be used, for example, for measuring the time that is 
+     * spent for extracting the keys, separately from the time that is 
+     * spent for computing the bins. The default implementation does 
+     * nothing.
+     */
+    default void chunkBinned()
+    {
+        // Empty by default
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A mapping from keys to consecutive <code>int</code> indices, based on 
+ * an open-addressing hash table with linear probing. The keys receive
+ * their indices in the order in which they are added. Keys may be 
+ * <code>null</code>.<br>
+ * <br>
+ * The hash codes of the keys are stored, so that keys are only compared
+ * with <code>equals</code> when their hash codes match. Callers that 
+ * already know the {@link #hash(Object) hash} of a key may pass it to
+ * the respective methods, to avoid computing it again.
+ */
+final class KeyIndexMap
+{
+    /**
+     * The initial capacity of the hash table
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * The hash table. Each entry is the index of the key in this slot,
+     * plus one. A value of zero indicates an empty slot.
+     */
+    private int slots[];
+    
+    /**
+     * The keys, in the order of their indices
+     */
+    private Object keys[];
+    
+    /**
+     * The hash codes of the keys, in the order of their indices
+     */
+    private int hashes[];
+    
+    /**
+     * The number of keys
+     */
+    private int size;
+    
+    /**
+     * Creates a new, empty instance
+     */
+    KeyIndexMap()
+    {
+        this.slots = new int[INITIAL_CAPACITY * 2];
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+    
+    /**
+     * Computes the hash of the given key, as it is used in this map
+     * 
+     * @param key The key
+     * @return The hash
+     */
+    static int hash(Object key)
+    {
+        int h = Objects.hashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Returns the number of keys in this map
+     * 
+     * @return The number of keys
+     */
+    int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns the key with the given index
+     * 
+     * @param index The index
+     * @return The key
+     * @throws IndexOutOfBoundsException If the index is negative or not
+     * smaller than the {@link #size()}
+     */
+    Object getKey(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index " + index + ", size " + size);
+        }
+        return keys[index];
+    }
+    
+    /**
+     * Returns the index of the given key, or -1 if the key is not 
+     * contained in this map
+     * 
+     * @param key The key
+     * @return The index
+     */
+    int indexOf(Object key)
+    {
+        return indexOf(key, hash(key));
+    }
+    
+    /**
+     * Returns the index of the given key, or -1 if the key is not 
+     * contained in this map
+     * 
+     * @param key The key
+     * @param hash The {@link #hash(Object) hash} of the key
+     * @return The index
+     */
+    int indexOf(Object key, int hash)
+    {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true)
+        {
+            int entry = slots[slot];
+            if (entry == 0)
+            {
+                return -1;
+            }
+            int index = entry - 1;
+            if (hashes[index] == hash && Objects.equals(keys[index], key))
+            {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Add the given key to this map, if it is not yet contained, and 
+     * return its index
+     * 
+     * @param key The key
+     * @return The index of the key
+     */
+    int add(Object key)
+    {
+        return add(key, hash(key));
+    }
+    
+    /**
+     * Add the given key to this map, if it is not yet contained, and 
+     * return its index
+     * 
+     * @param key The key
+     * @param hash The {@link #hash(Object) hash} of the key
+     * @return The index of the key
+     */
+    int add(Object key, int hash)
+    {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true)
+        {
+            int entry = slots[slot];
+            if (entry == 0)
+            {
+                break;
+            }
+            int index = entry - 1;
+            if (hashes[index] == hash && Objects.equals(keys[index], key))
+            {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = size;
+        if (index == keys.length)
+        {
+            keys = Arrays.copyOf(keys, index * 2);
+            hashes = Arrays.copyOf(hashes, index * 2);
+        }
+        keys[index] = key;
+        hashes[index] = hash;
+        slots[slot] = index + 1;
+        size++;
+        
+        // Keep the load factor at most 0.5
+        if (size * 2 > slots.length)
+        {
+            rehash(slots.length * 2);
+        }
+        return index;
+    }
+    
+    /**
+     * Rebuild the hash table with the given number of slots
+     * 
+     * @param slotCount The number of slots, which must be a power of two
+     */
+    private void rehash(int slotCount)
+    {
+        slots = new int[slotCount];
+        int mask = slotCount - 1;
+        for (int index = 0; index < size; index++)
+        {
+            int slot = hashes[index] & mask;
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+}
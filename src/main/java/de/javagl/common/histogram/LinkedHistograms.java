@@ -0,0 +1,296 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A class for linking multiple {@link Histogram} instances that show the 
+ * same set of elements, and for updating the highlighted elements of all
+ * these histograms at once.<br>
+ * <br>
+ * The elements will be stored once, and shared among all histograms. Each
+ * histogram stores the bin index of each element in a primitive array. The
+ * selection is given as a <code>BitSet</code> of element indices. When the
+ * selection changes, the number of highlighted elements in each bin of
+ * each histogram is computed in a single pass over the selection.
+ * 
+ * @param <T> The type of the elements
+ */
+public final class LinkedHistograms<T>
+{
+    /**
+     * The elements
+     */
+    private final List<T> elements;
+    
+    /**
+     * The members of this group
+     */
+    private final List<Member<T>> members;
+    
+    /**
+     * The indices of the selected elements
+     */
+    private BitSet selection;
+    
+    /**
+     * Creates a new instance for the given elements. A copy of the given
+     * collection will be stored internally.
+     * 
+     * @param elements The elements
+     */
+    public LinkedHistograms(Collection<? extends T> elements)
+    {
+        Objects.requireNonNull(elements, "The elements may not be null");
+        this.elements = Collections.unmodifiableList(
+            new ArrayList<T>(elements));
+        this.members = new CopyOnWriteArrayList<Member<T>>();
+        this.selection = new BitSet();
+    }
+    
+    /**
+     * Returns an unmodifiable list containing the elements. The indices
+     * in the selection refer to this list.
+     * 
+     * @return The elements
+     */
+    public List<T> getElements()
+    {
+        return elements;
+    }
+    
+    /**
+     * Add the given {@link Histogram} to this group. The elements of the 
+     * histogram will be replaced with the elements of this group, and the
+     * current selection will be highlighted in the histogram.<br>
+     * <br>
+     * Calling {@link Histogram#setElements(Collection, Collection)} on a
+     * histogram will decouple it from this group. Decoupled histograms 
+     * will be removed from this group automatically, and no longer be
+     * updated when the selection changes.
+     * 
+     * @param histogram The {@link Histogram}
+     * @throws IllegalArgumentException If the given histogram was not
+     * created with the {@link Histograms} class
+     */
+    public void addHistogram(Histogram<T> histogram)
+    {
+        JFreeChartHistogram<T> implementation = 
+            Histograms.getImplementation(histogram);
+        implementation.setSharedElements(elements);
+        Member<T> member = new Member<T>(implementation);
+        members.add(member);
+        updateHighlighted(Collections.singletonList(member));
+    }
+    
+    /**
+     * Remove the given {@link Histogram} from this group. Its elements
+     * and highlighting will not be changed.
+     * 
+     * @param histogram The {@link Histogram}
+     */
+    public void removeHistogram(Histogram<T> histogram)
+    {
+        JFreeChartHistogram<T> implementation = 
+            Histograms.getImplementation(histogram);
+        members.removeIf(member -> member.histogram == implementation);
+    }
+    
+    /**
+     * Returns a copy of the current selection
+     * 
+     * @return The selection
+     */
+    public BitSet getSelection()
+    {
+        return (BitSet) selection.clone();
+    }
+    
+    /**
+     * Set the selection, as a set of indices into the {@link #getElements()
+     * elements}, and highlight the selected elements in all histograms.
+     * The given bit set will be copied. If it is <code>null</code>, then
+     * the selection will be empty.
+     * 
+     * @param selection The selection
+     * @throws IllegalArgumentException If the given bit set contains an
+     * index that is not smaller than the number of elements
+     */
+    public void setSelection(BitSet selection)
+    {
+        if (selection == null)
+        {
+            this.selection = new BitSet();
+        }
+        else
+        {
+            if (selection.length() > elements.size())
+            {
+                throw new IllegalArgumentException(
+                    "The selection contains index " 
+                    + (selection.length() - 1) + ", but there are "
+                    + "only " + elements.size() + " elements");
+            }
+            this.selection = (BitSet) selection.clone();
+        }
+        members.removeIf(member -> !member.isCoupled());
+        updateHighlighted(members);
+    }
+    
+    /**
+     * Compute the indices of all elements that are contained in the bin
+     * with the given index in the given histogram. The result may, for
+     * example, be passed to {@link #setSelection(BitSet)} when a bin was
+     * clicked.
+     * 
+     * @param histogram The {@link Histogram}
+     * @param bin The bin index
+     * @return The indices of the elements in the bin
+     * @throws IllegalArgumentException If the given histogram is not
+     * contained in this group, or was decoupled from this group by 
+     * setting its elements
+     */
+    public BitSet computeIndicesInBin(Histogram<T> histogram, int bin)
+    {
+        JFreeChartHistogram<T> implementation = 
+            Histograms.getImplementation(histogram);
+        members.removeIf(member -> !member.isCoupled());
+        boolean contained = members.stream()
+            .anyMatch(member -> member.histogram == implementation);
+        if (!contained)
+        {
+            throw new IllegalArgumentException(
+                "The histogram is not contained in this group, or its "
+                + "elements have been replaced");
+        }
+        int elementBins[] = implementation.getElementBins();
+        BitSet result = new BitSet(elementBins.length);
+        for (int i = 0; i < elementBins.length; i++)
+        {
+            if (elementBins[i] == bin)
+            {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Compute the number of selected elements in each bin of each of the
+     * given histograms, in a single pass over the selection, and pass
+     * the results to the histograms
+     * 
+     * @param targets The members
+     */
+    private void updateHighlighted(List<Member<T>> targets)
+    {
+        int n = targets.size();
+        int columns[][] = new int[n][];
+        int highlightedBins[][] = new int[n][];
+        for (int h = 0; h < n; h++)
+        {
+            JFreeChartHistogram<T> histogram = targets.get(h).histogram;
+            columns[h] = histogram.getElementBins();
+            highlightedBins[h] = 
+                new int[histogram.getBinning().getBinCount()];
+        }
+        long words[] = selection.toLongArray();
+        for (int w = 0; w < words.length; w++)
+        {
+            long word = words[w];
+            int offset = w << 6;
+            while (word != 0)
+            {
+                int i = offset + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                for (int h = 0; h < n; h++)
+                {
+                    int bin = columns[h][i];
+                    if (bin >= 0)
+                    {
+                        highlightedBins[h][bin]++;
+                    }
+                }
+            }
+        }
+        for (int h = 0; h < n; h++)
+        {
+            targets.get(h).histogram.setHighlighted(
+                selection, highlightedBins[h]);
+        }
+    }
+    
+    /**
+     * A histogram in this group, together with the version of its 
+     * elements at the time when the shared elements have been set
+     * 
+     * @param <T> The type of the elements
+     */
+    private static final class Member<T>
+    {
+        /**
+         * The histogram
+         */
+        private final JFreeChartHistogram<T> histogram;
+        
+        /**
+         * The version of the elements of the histogram when the shared
+         * elements have been set
+         */
+        private final int elementsVersion;
+        
+        /**
+         * Creates a new member for the given histogram, whose shared 
+         * elements have just been set
+         * 
+         * @param histogram The histogram
+         */
+        Member(JFreeChartHistogram<T> histogram)
+        {
+            this.histogram = histogram;
+            this.elementsVersion = histogram.getElementsVersion();
+        }
+        
+        /**
+         * Returns whether the histogram still shows the shared elements, 
+         * meaning that its elements have not been set since it was added
+         * 
+         * @return Whether the histogram is still coupled to the group
+         */
+        boolean isCoupled()
+        {
+            return histogram.getElementsVersion() == elementsVersion;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementation of a {@link Binning} for <code>long</code> values, which
+ * computes the bins exactly, with integer arithmetic.<br>
+ * <br>
+ * The range between the minimum and the maximum value (both inclusive) 
+ * is divided into bins whose widths differ by at most 1: When the number 
+ * of values in the range is not a multiple of the bin count, then the
+ * first bins are one value wider than the remaining ones. There is at
+ * most one bin for each value in the range. Ranges that exceed the
+ * range of <code>long</code> values (for example, from 
+ * <code>Long.MIN_VALUE</code> to <code>Long.MAX_VALUE</code>) are 
+ * handled with unsigned arithmetic.
+ * 
+ * @param <T> The element type
+ */
+class LongBinning<T> implements RangeBinning<T>
+{
+    /**
+     * The key extractor
+     */
+    private final ToLongFunction<? super T> keyExtractor;
+    
+    /**
+     * The minimum value, inclusive. This is the start value of the first bin
+     */
+    private final long min;
+    
+    /**
+     * The maximum value, inclusive. This is the end value of the last bin
+     */
+    private final long max;
+    
+    /**
+     * The number of bins
+     */
+    private final int binCount;
+    
+    /**
+     * The (unsigned) width of the narrow bins
+     */
+    private final long width;
+    
+    /**
+     * The number of bins that are one value wider than {@link #width}
+     */
+    private final int wideBinCount;
+    
+    /**
+     * The (unsigned) offset from the minimum where the narrow bins start
+     */
+    private final long narrowStart;
+    
+    /**
+     * Whether all offsets from the minimum are non-negative when they are
+     * interpreted as signed values, so that signed division may be used
+     */
+    private final boolean signedOffsets;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param keyExtractor The key extractor
+     * @param min The minimum value, inclusive
+     * @param max The maximum value, inclusive
+     * @param binCount The requested number of bins. The actual number of 
+     * bins will be smaller if the range contains fewer values.
+     * @throws IllegalArgumentException If the bin count is not positive,
+     * or the minimum is larger than the maximum
+     */
+    LongBinning(ToLongFunction<? super T> keyExtractor, 
+        long min, long max, int binCount)
+    {
+        this.keyExtractor = Objects.requireNonNull(
+            keyExtractor, "The keyExtractor may not be null");
+        if (binCount <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The binCount must be positive, but is " + binCount);
+        }
+        if (min > max)
+        {
+            throw new IllegalArgumentException(
+                "The minimum " + min + " is larger than the maximum " + max);
+        }
+        this.min = min;
+        this.max = max;
+        
+        // The number of values in the range. If the range covers all 
+        // long values, then this is 2^64-1, and the maximum is treated
+        // like the value before it
+        long span = max - min;
+        long n = span + 1;
+        if (n == 0)
+        {
+            n = -1L;
+        }
+        if (Long.compareUnsigned(n, binCount) < 0)
+        {
+            this.binCount = (int) n;
+        }
+        else
+        {
+            this.binCount = binCount;
+        }
+        this.width = Long.divideUnsigned(n, this.binCount);
+        this.wideBinCount = (int) Long.remainderUnsigned(n, this.binCount);
+        this.narrowStart = wideBinCount * (width + 1);
+        this.signedOffsets = span >= 0;
+    }
+    
+    /**
+     * Returns the minimum value of the bin with the given index, inclusive
+     * 
+     * @param bin The bin index
+     * @return The minimum value
+     */
+    long getBinMin(int bin)
+    {
+        if (bin < wideBinCount)
+        {
+            return min + bin * (width + 1);
+        }
+        return min + narrowStart + (bin - wideBinCount) * width;
+    }
+    
+    /**
+     * Returns the maximum value of the bin with the given index, inclusive
+     * 
+     * @param bin The bin index
+     * @return The maximum value
+     */
+    long getBinMax(int bin)
+    {
+        if (bin == binCount - 1)
+        {
+            return max;
+        }
+        return getBinMin(bin + 1) - 1;
+    }
+    
+    /**
+     * Create a binning with the same key extractor for the range that is
+     * covered by the bins from the given start index (inclusive) to the 
+     * given end index (exclusive), using the exact limits of these bins
+     * 
+     * @param fromBin The index of the first bin, inclusive
+     * @param toBin The index of the last bin, exclusive
+     * @param binCount The requested number of bins
+     * @return The binning
+     * @throws IllegalArgumentException If the bin count is not positive,
+     * or the range of bins is empty
+     */
+    LongBinning<T> createForBins(int fromBin, int toBin, int binCount)
+    {
+        if (fromBin < 0 || toBin > this.binCount || fromBin >= toBin)
+        {
+            throw new IllegalArgumentException("The bin range [" 
+                + fromBin + ", " + toBin + ") is not valid for " 
+                + this.binCount + " bins");
+        }
+        return new LongBinning<T>(keyExtractor, 
+            getBinMin(fromBin), getBinMax(toBin - 1), binCount);
+    }
+    
+    @Override
+    public int getBinCount()
+    {
+        return binCount;
+    }
+
+    @Override
+    public int computeBin(T object)
+    {
+        long value = keyExtractor.applyAsLong(object);
+        return computeBin(value);
+    }
+    
+    /**
+     * Computes the index of the bin that the given value belongs to, or
+     * -1 if the value is not contained in any bin
+     * 
+     * @param value The value
+     * @return The bin index
+     */
+    int computeBin(long value)
+    {
+        if (value < min || value > max)
+        {
+            return -1;
+        }
+        long offset = value - min;
+        if (signedOffsets)
+        {
+            if (offset < narrowStart)
+            {
+                return (int) (offset / (width + 1));
+            }
+            return wideBinCount + (int) ((offset - narrowStart) / width);
+        }
+        if (Long.compareUnsigned(offset, narrowStart) < 0)
+        {
+            return (int) Long.divideUnsigned(offset, width + 1);
+        }
+        int bin = wideBinCount 
+            + (int) Long.divideUnsigned(offset - narrowStart, width);
+        return Math.min(bin, binCount - 1);
+    }
+    
+    @Override
+    public void computeBins(Iterable<? extends T> objects, int bins[],
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        long keys[] = new long[NumberBinning.CHUNK_SIZE];
+        int count = 0;
+        int offset = 0;
+        for (T object : objects)
+        {
+            keys[count] = keyExtractor.applyAsLong(object);
+            count++;
+            if (count == keys.length)
+            {
+                acceptKeys(keys, count, keyChunkConsumer);
+                for (int i = 0; i < count; i++)
+                {
+                    bins[offset + i] = computeBin(keys[i]);
+                }
+                chunkBinned(keyChunkConsumer);
+                offset += count;
+                count = 0;
+            }
+        }
+        acceptKeys(keys, count, keyChunkConsumer);
+        for (int i = 0; i < count; i++)
+        {
+            bins[offset + i] = computeBin(keys[i]);
+        }
+        chunkBinned(keyChunkConsumer);
+    }
+    
+    @Override
+    public int countBins(Iterable<? extends T> objects, int counts[],
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        long keys[] = new long[NumberBinning.CHUNK_SIZE];
+        int count = 0;
+        int invalidCount = 0;
+        for (T object : objects)
+        {
+            keys[count] = keyExtractor.applyAsLong(object);
+            count++;
+            if (count == keys.length)
+            {
+                acceptKeys(keys, count, keyChunkConsumer);
+                invalidCount += countBins(keys, count, counts);
+                chunkBinned(keyChunkConsumer);
+                count = 0;
+            }
+        }
+        acceptKeys(keys, count, keyChunkConsumer);
+        invalidCount += countBins(keys, count, counts);
+        chunkBinned(keyChunkConsumer);
+        return invalidCount;
+    }
+    
+    /**
+     * Increment the given counts for the bins of the given keys
+     * 
+     * @param keys The keys
+     * @param count The number of keys
+     * @param counts The counts
+     * @return The number of keys that are not contained in any bin
+     */
+    private int countBins(long keys[], int count, int counts[])
+    {
+        int invalidCount = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int bin = computeBin(keys[i]);
+            if (bin >= 0)
+            {
+                counts[bin]++;
+            }
+            else
+            {
+                invalidCount++;
+            }
+        }
+        return invalidCount;
+    }
+    
+    /**
+     * Pass the given keys to the given consumer, if it is not 
+     * <code>null</code>
+     * 
+     * @param keys The keys
+     * @param count The number of keys
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     */
+    private static void acceptKeys(long keys[], int count, 
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        if (keyChunkConsumer != null)
+        {
+            keyChunkConsumer.accept(keys, count);
+        }
+    }
+    
+    /**
+     * Inform the given consumer that the bins of the last chunk of keys
+     * have been computed, if it is not <code>null</code>
+     * 
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     */
+    private static void chunkBinned(KeyChunkConsumer keyChunkConsumer)
+    {
+        if (keyChunkConsumer != null)
+        {
+            keyChunkConsumer.chunkBinned();
+        }
+    }
+    
+    @Override
+    public double getMinimum()
+    {
+        return min;
+    }
+    
+    @Override
+    public double getMaximum()
+    {
+        return max;
+    }
+    
+    @Override
+    public double getBinMinimum(int bin)
+    {
+        return getBinMin(bin);
+    }
+    
+    @Override
+    public double getBinMaximum(int bin)
+    {
+        return getBinMax(bin);
+    }
+    
+    /**
+     * Returns the key of the given element, without converting it to a
+     * <code>double</code> value
+     * 
+     * @param element The element
+     * @return The key
+     */
+    long computeLongKey(T element)
+    {
+        return keyExtractor.applyAsLong(element);
+    }
+    
+    @Override
+    public double computeKey(T element)
+    {
+        return keyExtractor.applyAsLong(element);
+    }
+    
+    @Override
+    public Comparator<T> getKeyComparator()
+    {
+        return Comparator.comparingLong(keyExtractor);
+    }
+    
+    @Override
+    public int computeBinPosition(T element)
+    {
+        long value = keyExtractor.applyAsLong(element);
+        if (value < min)
+        {
+            return -1;
+        }
+        if (value > max)
+        {
+            return binCount;
+        }
+        return computeBin(value);
+    }
+    
+    @Override
+    public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
+    {
+        int bins[] = new int[getBinCount()];
+        if (objects != null)
+        {
+            for (T object : objects)
+            {
+                int bin = computeBin(object);
+                if (bin < 0)
+                {
+                    if (!ignoreInvalid)
+                    {
+                        throw new IllegalArgumentException("The object "
+                            + object + " was not part of the binning");
+                    }
+                }
+                else
+                {
+                    bins[bin]++;
+                }
+            }
+        }
+        return bins;
+    }
+    
+}
@@ -26,6 +26,7 @@
  */
 package de.javagl.common.histogram;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.function.ToDoubleFunction;
 
@@ -34,7 +35,7 @@ import java.util.function.ToDoubleFunction;
  * 
  * @param <T> The element type
  */
-class NumberBinning<T> implements Binning<T>
+class NumberBinning<T> implements RangeBinning<T>
 {
     /**
      * A machine epsilon. Values that are larger than the maximum will
@@ -43,6 +44,12 @@ class NumberBinning<T> implements Binning<T>
      */
     static final double EPSILON = 1e-6;
     
+    /**
+     * The number of values that are extracted from the elements and 
+     * passed to the {@link VectorBinningKernel} at once
+     */
+    static final int CHUNK_SIZE = 1024;
+    
     /**
      * The key extractor
      */
@@ -117,19 +124,317 @@ class NumberBinning<T> implements Binning<T>
     public int computeBin(T object)
     {
         double value = keyExtractor.applyAsDouble(object);
+        return computeBin(value);
+    }
+    
+    /**
+     * Computes the index of the bin that the given value belongs to, or
+     * -1 if the value is not contained in any bin. This is the case for
+     * values that are not in the range, and for <code>NaN</code>.
+     * 
+     * @param value The value
+     * @return The bin index
+     */
+    int computeBin(double value)
+    {
         if (value >= max && value < max + EPSILON)
         {
             return binCount - 1;
         }
         double alpha = (value - min) / (max - min);
-        int bin = (int) (alpha * binCount + EPSILON);
-        if (bin < 0 || bin >= binCount)
+        double scaled = alpha * binCount + EPSILON;
+        if (scaled < 0 || Double.isNaN(scaled))
+        {
+            return -1;
+        }
+        int bin = (int) scaled;
+        if (bin >= binCount)
         {
+            if (value < max + EPSILON)
+            {
+                return binCount - 1;
+            }
             return -1;
         }
         return bin;
     }
     
+    @Override
+    public double getMinimum()
+    {
+        return min;
+    }
+    
+    @Override
+    public double getMaximum()
+    {
+        return max;
+    }
+    
+    @Override
+    public double getBinMinimum(int bin)
+    {
+        return getBinMin(bin);
+    }
+    
+    @Override
+    public double getBinMaximum(int bin)
+    {
+        return getBinMax(bin);
+    }
+    
+    @Override
+    public double computeKey(T element)
+    {
+        return keyExtractor.applyAsDouble(element);
+    }
+    
+    @Override
+    public Comparator<T> getKeyComparator()
+    {
+        return Comparator.comparingDouble(keyExtractor);
+    }
+    
+    @Override
+    public int computeBinPosition(T element)
+    {
+        double value = keyExtractor.applyAsDouble(element);
+        int bin = computeBin(value);
+        if (bin >= 0)
+        {
+            return bin;
+        }
+        if (value < min)
+        {
+            return -1;
+        }
+        return binCount;
+    }
+    
+    /**
+     * Compute the bin of each of the given objects, and write it into 
+     * the given array, which must have at least as many elements as 
+     * there are objects. The values are extracted from the objects in 
+     * chunks, and the bins of each chunk are computed with the
+     * {@link VectorBinningKernel}, if it is available.
+     * 
+     * @param objects The objects
+     * @param bins The array that receives the bins
+     */
+    void computeBins(Iterable<? extends T> objects, int bins[])
+    {
+        computeBins(objects, bins, null);
+    }
+    
+    @Override
+    public void computeBins(Iterable<? extends T> objects, int bins[],
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        double values[] = new double[CHUNK_SIZE];
+        int count = 0;
+        int offset = 0;
+        for (T object : objects)
+        {
+            values[count] = keyExtractor.applyAsDouble(object);
+            count++;
+            if (count == values.length)
+            {
+                computeBins(values, count, bins, offset, keyChunkConsumer);
+                offset += count;
+                count = 0;
+            }
+        }
+        computeBins(values, count, bins, offset, keyChunkConsumer);
+    }
+    
+    /**
+     * Pass the given values to the given consumer, if it is not 
+     * <code>null</code>, and compute their bins as in
+     * {@link #computeBins(double[], int, int[], int)}
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param bins The array that receives the bins
+     * @param offset The offset in the bins array
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     */
+    private void computeBins(double values[], int count, int bins[], 
+        int offset, KeyChunkConsumer keyChunkConsumer)
+    {
+        if (keyChunkConsumer == null)
+        {
+            computeBins(values, count, bins, offset);
+            return;
+        }
+        keyChunkConsumer.accept(values, count);
+        computeBins(values, count, bins, offset);
+        keyChunkConsumer.chunkBinned();
+    }
+    
+    /**
+     * Count the number of the given objects in each bin, and add these
+     * counts to the given array, which must have at least as many elements
+     * as there are bins. The bins are computed in chunks, as in
+     * {@link #computeBins(Iterable, int[])}, so that no bin index has to 
+     * be stored for each object.
+     * 
+     * @param objects The objects
+     * @param counts The array that receives the counts
+     * @return The number of objects that are not contained in any bin
+     */
+    int countBins(Iterable<? extends T> objects, int counts[])
+    {
+        return countBins(objects, counts, null);
+    }
+    
+    @Override
+    public int countBins(Iterable<? extends T> objects, int counts[],
+        KeyChunkConsumer keyChunkConsumer)
+    {
+        double values[] = new double[CHUNK_SIZE];
+        int bins[] = new int[CHUNK_SIZE];
+        int count = 0;
+        int invalidCount = 0;
+        for (T object : objects)
+        {
+            values[count] = keyExtractor.applyAsDouble(object);
+            count++;
+            if (count == values.length)
+            {
+                invalidCount += countBins(
+                    values, count, bins, counts, keyChunkConsumer);
+                count = 0;
+            }
+        }
+        invalidCount += countBins(
+            values, count, bins, counts, keyChunkConsumer);
+        return invalidCount;
+    }
+    
+    /**
+     * Pass the given values to the given consumer, if it is not 
+     * <code>null</code>, and count them as in
+     * {@link #countBins(double[], int, int[], int[])}
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param bins The array that receives the bins of the values
+     * @param counts The counts
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     * @return The number of values that are not contained in any bin
+     */
+    private int countBins(double values[], int count, int bins[], 
+        int counts[], KeyChunkConsumer keyChunkConsumer)
+    {
+        if (keyChunkConsumer == null)
+        {
+            return countBins(values, count, bins, counts);
+        }
+        keyChunkConsumer.accept(values, count);
+        int invalidCount = countBins(values, count, bins, counts);
+        keyChunkConsumer.chunkBinned();
+        return invalidCount;
+    }
+    
+    /**
+     * Compute the bins of the given values, and increment the given 
+     * counts for these bins
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param bins The array that receives the bins of the values
+     * @param counts The counts
+     * @return The number of values that are not contained in any bin
+     */
+    private int countBins(double values[], int count, int bins[], 
+        int counts[])
+    {
+        computeBins(values, count, bins, 0);
+        int invalidCount = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int bin = bins[i];
+            if (bin >= 0)
+            {
+                counts[bin]++;
+            }
+            else
+            {
+                invalidCount++;
+            }
+        }
+        return invalidCount;
+    }
+    
+    /**
+     * Compute the bins of the given values, and write them into the 
+     * given array, starting at the given offset. The result will be
+     * the same as if {@link #computeBin(double)} was called for each
+     * value.
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param bins The array that receives the bins
+     * @param offset The offset in the bins array
+     */
+    void computeBins(double values[], int count, int bins[], int offset)
+    {
+        int i = VectorBinningKernel.computeBins(
+            values, count, min, max, binCount, bins, offset);
+        for ( ; i < count; i++)
+        {
+            bins[offset + i] = computeBin(values[i]);
+        }
+    }
+    
+    /**
+     * Returns whether the bins that are computed for values at and 
+     * around the limits of the bins with {@link #computeBins} are the
+     * same as the ones that are computed with {@link #computeBin(double)}.
+     * This includes the values in the range of {@link #EPSILON} after the
+     * maximum, and values that are not finite. This may be used to check
+     * the {@link VectorBinningKernel}.
+     * 
+     * @return Whether the results are the same
+     */
+    boolean isConsistentAtBinLimits()
+    {
+        double edges[] = new double[binCount + 1];
+        for (int bin = 0; bin < binCount; bin++)
+        {
+            edges[bin] = getBinMin(bin);
+        }
+        edges[binCount] = max;
+        double values[] = new double[edges.length * 3 + 10];
+        int n = 0;
+        for (double edge : edges)
+        {
+            values[n++] = Math.nextDown(edge);
+            values[n++] = edge;
+            values[n++] = Math.nextUp(edge);
+        }
+        values[n++] = max + EPSILON * 0.5;
+        values[n++] = Math.nextDown(max + EPSILON);
+        values[n++] = max + EPSILON;
+        values[n++] = min - EPSILON;
+        values[n++] = min - 1.0;
+        values[n++] = min - (max - min) / binCount * 0.5;
+        values[n++] = max + 1.0;
+        values[n++] = Double.NaN;
+        values[n++] = Double.POSITIVE_INFINITY;
+        values[n++] = Double.NEGATIVE_INFINITY;
+        int bins[] = new int[n];
+        computeBins(values, n, bins, 0);
+        for (int i = 0; i < n; i++)
+        {
+            if (bins[i] != computeBin(values[i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     @Override
     public int[] compute(Iterable<? extends T> objects, boolean ignoreInvalid)
     {
@@ -26,6 +26,8 @@
  */
 package de.javagl.common.histogram;
 
+import java.util.List;
+
 /**
  * Interface for a {@link Histogram} for values that are essentially 
  * numeric, and where the bin count may be modified 
@@ -46,6 +48,203 @@ public interface NumberHistogram<T> extends Histogram<T>
      * 
      * @param binCount The bin count
      * @throws IllegalArgumentException If the bin count is not positive
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram, and
+     * the counts can not be computed approximately, as described in
+     * {@link #setApproximate(boolean)}
      */
     void setBinCount(int binCount);
+    
+    /**
+     * Set whether the counts of the bins may be computed approximately 
+     * when the {@link #setBinCount(int) bin count} is changed or when
+     * {@link #zoom(double, double) zooming}.<br>
+     * <br>
+     * When this is <code>true</code>, then the elements are counted once
+     * in 65536 fine bins over the range of values that was used when this
+     * histogram was created. Afterwards, the counts of the bins are 
+     * computed from the counts of the fine bins, without iterating over 
+     * the elements. The counts are exact when the limits of the bins are
+     * limits of fine bins, for example, when the bin count is a power of
+     * two and the histogram is not zoomed, except for values that are 
+     * within a small tolerance at the limits. Otherwise, the fine bins that
+     * contain a bin limit are split proportionally, and an upper bound for
+     * the error is returned by {@link #getCountErrorBound()}.<br>
+     * <br>
+     * The fine bins are also used when the elements are no longer 
+     * retained according to the {@link ElementRetention} of this 
+     * histogram. The highlighted elements are counted in fine bins as 
+     * well. The fine bins are not used when there is a weight function, 
+     * or when the highlighted elements are given as indices. In this 
+     * case, the bin count can no longer be changed when the elements 
+     * are no longer retained.<br>
+     * <br>
+     * By default, this is <code>false</code>.
+     * 
+     * @param approximate Whether the counts may be computed approximately
+     */
+    void setApproximate(boolean approximate);
+    
+    /**
+     * Returns an upper bound for the difference between the count of any
+     * bin and the number of elements that are actually contained in this
+     * bin. This is 0 unless the counts have been computed approximately, 
+     * as described in {@link #setApproximate(boolean)}.
+     * 
+     * @return The error bound
+     */
+    int getCountErrorBound();
+    
+    /**
+     * Set whether this histogram should show the cumulative distribution
+     * of the elements. If this is <code>true</code>, then each bin will
+     * show the number (or total weight) of the elements and highlighted
+     * elements in this bin and all bins with smaller indices, and the
+     * bins will always be shown in the order of their indices. By 
+     * default, this is <code>false</code>.
+     * 
+     * @param cumulative Whether the cumulative distribution is shown
+     */
+    void setCumulative(boolean cumulative);
+    
+    /**
+     * Returns the number of elements in the bins between the given bin 
+     * indices. This is computed in constant time, from prefix sums that 
+     * are computed once after the elements or the bins have changed.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @return The number of elements
+     * @throws IndexOutOfBoundsException If the first index is negative, 
+     * the last index is larger than the {@link #getBinCount() bin count},
+     * or the first index is larger than the last index
+     */
+    int getCount(int fromBin, int toBin);
+    
+    /**
+     * Returns the number of highlighted elements in the bins between the
+     * given bin indices. This is computed in constant time, from prefix 
+     * sums that are computed once after the highlighted elements or the 
+     * bins have changed.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @return The number of highlighted elements
+     * @throws IndexOutOfBoundsException If the first index is negative, 
+     * the last index is larger than the {@link #getBinCount() bin count},
+     * or the first index is larger than the last index
+     */
+    int getHighlightedCount(int fromBin, int toBin);
+    
+    /**
+     * Returns an unmodifiable list of the elements in the bins between the
+     * given bin indices, sorted by their keys.<br>
+     * <br>
+     * The elements are looked up with a binary search in an index of the
+     * elements that are sorted by their keys. This index is created when 
+     * it is first needed after the elements have changed. Elements whose 
+     * key is <code>NaN</code> are not contained in the result.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @return The elements
+     * @throws IndexOutOfBoundsException If the first index is negative, 
+     * the last index is larger than the {@link #getBinCount() bin count},
+     * or the first index is larger than the last index
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    List<T> getElements(int fromBin, int toBin);
+    
+    /**
+     * Returns the number of elements whose key is in the given range, 
+     * including the limits. The keys are compared as <code>double</code> 
+     * values. This is computed with a binary search in the index that is
+     * described in {@link #getElements(int, int)}.
+     * 
+     * @param minimum The minimum value, inclusive
+     * @param maximum The maximum value, inclusive
+     * @return The number of elements
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    int getCountInRange(double minimum, double maximum);
+    
+    /**
+     * Returns an unmodifiable list of the elements whose key is in the 
+     * given range, including the limits, sorted by their keys. The keys 
+     * are compared as <code>double</code> values. This is computed with a
+     * binary search in the index that is described in 
+     * {@link #getElements(int, int)}.
+     * 
+     * @param minimum The minimum value, inclusive
+     * @param maximum The maximum value, inclusive
+     * @return The elements
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    List<T> getElementsInRange(double minimum, double maximum);
+    
+    /**
+     * Add the given {@link HistogramSelectionListener} to be informed when 
+     * a range of bins is selected by dragging the mouse over the bins
+     * 
+     * @param histogramSelectionListener The listener to add
+     */
+    void addHistogramSelectionListener(
+        HistogramSelectionListener<T> histogramSelectionListener);
+    
+    /**
+     * Remove the given {@link HistogramSelectionListener}
+     * 
+     * @param histogramSelectionListener The listener to remove
+     */
+    void removeHistogramSelectionListener(
+        HistogramSelectionListener<T> histogramSelectionListener);
+    
+    /**
+     * Zoom into the given range of values. The range will be divided into 
+     * the current {@link #getBinCount() number of bins}, and elements 
+     * outside of the range will not be contained in any bin. The range 
+     * will be kept when the bin count is changed, until 
+     * {@link #resetZoom()} is called. 
+     * 
+     * @param minimum The minimum value, inclusive
+     * @param maximum The maximum value, inclusive
+     * @throws IllegalArgumentException If the minimum is larger than the
+     * maximum, or one of them is not finite. For histograms with 
+     * floating-point keys, the minimum must be smaller than the maximum.
+     * For histograms with integer keys, the range may consist of a single
+     * value.
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    void zoom(double minimum, double maximum);
+    
+    /**
+     * Zoom into the range of values that is covered by the bins between 
+     * the given bin indices, as described in {@link #zoom(double, double)}.
+     * This may, for example, be called with the bins of a 
+     * {@link HistogramSelectionEvent}. For histograms with integer keys,
+     * the limits of the bins are used exactly, even when they can not be
+     * represented as <code>double</code> values.
+     * 
+     * @param fromBin The first bin index, inclusive
+     * @param toBin The last bin index, exclusive
+     * @throws IndexOutOfBoundsException If the first index is negative, 
+     * the last index is larger than the {@link #getBinCount() bin count},
+     * or the first index is not smaller than the last index
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    void zoomToBins(int fromBin, int toBin);
+    
+    /**
+     * Reset the range of values to the range that was used when this 
+     * histogram was created
+     * 
+     * @throws IllegalStateException If the elements are no longer retained
+     * according to the {@link ElementRetention} of this histogram
+     */
+    void resetZoom();
 }
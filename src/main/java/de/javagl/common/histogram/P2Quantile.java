@@ -0,0 +1,228 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+
+/**
+ * A streaming estimator for a single quantile, using the P-square 
+ * algorithm by Jain and Chlamtac. It requires constant memory, and a 
+ * constant number of operations for each value. The first five values
+ * are stored, so that the quantile is exact for up to five values.
+ */
+final class P2Quantile
+{
+    /**
+     * The quantile that is estimated, in [0,1]
+     */
+    private final double p;
+    
+    /**
+     * The heights of the five markers
+     */
+    private final double heights[];
+    
+    /**
+     * The actual positions of the five markers, starting at 1
+     */
+    private final int positions[];
+    
+    /**
+     * The desired positions of the five markers
+     */
+    private final double desiredPositions[];
+    
+    /**
+     * The increments of the desired positions for each value
+     */
+    private final double increments[];
+    
+    /**
+     * The number of values that have been added
+     */
+    private long count;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param p The quantile, in [0,1]
+     * @throws IllegalArgumentException If the quantile is not in [0,1]
+     */
+    P2Quantile(double p)
+    {
+        if (!(p >= 0.0 && p <= 1.0))
+        {
+            throw new IllegalArgumentException(
+                "The quantile must be in [0,1], but is " + p);
+        }
+        this.p = p;
+        this.heights = new double[5];
+        this.positions = new int[5];
+        this.desiredPositions = new double[] 
+        {
+            1.0, 1.0 + 2.0 * p, 1.0 + 4.0 * p, 3.0 + 2.0 * p, 5.0
+        };
+        this.increments = new double[] 
+        {
+            0.0, p / 2.0, p, (1.0 + p) / 2.0, 1.0
+        };
+        this.count = 0;
+    }
+    
+    /**
+     * Add the given value
+     * 
+     * @param x The value
+     */
+    void add(double x)
+    {
+        if (count < 5)
+        {
+            heights[(int) count] = x;
+            count++;
+            if (count == 5)
+            {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++)
+                {
+                    positions[i] = i + 1;
+                }
+            }
+            return;
+        }
+        count++;
+        int k;
+        if (x < heights[0])
+        {
+            heights[0] = x;
+            k = 0;
+        }
+        else if (x >= heights[4])
+        {
+            heights[4] = x;
+            k = 3;
+        }
+        else
+        {
+            k = 0;
+            while (x >= heights[k + 1])
+            {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++)
+        {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++)
+        {
+            desiredPositions[i] += increments[i];
+        }
+        for (int i = 1; i <= 3; i++)
+        {
+            double d = desiredPositions[i] - positions[i];
+            if ((d >= 1.0 && positions[i + 1] - positions[i] > 1) ||
+                (d <= -1.0 && positions[i - 1] - positions[i] < -1))
+            {
+                int s = d >= 0.0 ? 1 : -1;
+                double h = parabolic(i, s);
+                if (heights[i - 1] < h && h < heights[i + 1])
+                {
+                    heights[i] = h;
+                }
+                else
+                {
+                    heights[i] = linear(i, s);
+                }
+                positions[i] += s;
+            }
+        }
+    }
+    
+    /**
+     * Computes the parabolic prediction for the height of the marker with 
+     * the given index, when it is moved by the given amount
+     * 
+     * @param i The marker index
+     * @param d The movement, -1 or 1
+     * @return The predicted height
+     */
+    private double parabolic(int i, int d)
+    {
+        double n0 = positions[i - 1];
+        double n1 = positions[i];
+        double n2 = positions[i + 1];
+        double q0 = heights[i - 1];
+        double q1 = heights[i];
+        double q2 = heights[i + 1];
+        return q1 + d / (n2 - n0) * (
+            (n1 - n0 + d) * (q2 - q1) / (n2 - n1) + 
+            (n2 - n1 - d) * (q1 - q0) / (n1 - n0));
+    }
+    
+    /**
+     * Computes the linear prediction for the height of the marker with 
+     * the given index, when it is moved by the given amount
+     * 
+     * @param i The marker index
+     * @param d The movement, -1 or 1
+     * @return The predicted height
+     */
+    private double linear(int i, int d)
+    {
+        return heights[i] + d * (heights[i + d] - heights[i]) 
+            / (positions[i + d] - positions[i]);
+    }
+    
+    /**
+     * Returns the estimate of the quantile, or <code>NaN</code> if no 
+     * values have been added
+     * 
+     * @return The quantile
+     */
+    double getQuantile()
+    {
+        if (count == 0)
+        {
+            return Double.NaN;
+        }
+        if (count < 5)
+        {
+            double sorted[] = Arrays.copyOf(heights, (int) count);
+            Arrays.sort(sorted);
+            double position = p * (count - 1);
+            int index = (int) position;
+            if (index + 1 >= count)
+            {
+                return sorted[index];
+            }
+            double alpha = position - index;
+            return sorted[index] + alpha * (sorted[index + 1] - sorted[index]);
+        }
+        return heights[2];
+    }
+}
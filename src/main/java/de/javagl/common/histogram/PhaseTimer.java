@@ -0,0 +1,127 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+
+/**
+ * A class for measuring the time that is spent in the different
+ * {@link HistogramPhase}s of one operation. Operations may be nested, 
+ * and only the outermost operation is reported. The time between two 
+ * calls to {@link #stop(HistogramPhase)} is attributed to the phase
+ * that is given in the second call.
+ */
+final class PhaseTimer
+{
+    /**
+     * The accumulated duration of each phase, in nanoseconds
+     */
+    private final long durationsNanos[];
+    
+    /**
+     * The nesting depth of the operations
+     */
+    private int depth;
+    
+    /**
+     * The time stamp of the start of the operation, or of the last
+     * call to {@link #stop(HistogramPhase)}
+     */
+    private long mark;
+    
+    /**
+     * Creates a new instance
+     */
+    PhaseTimer()
+    {
+        this.durationsNanos = new long[HistogramPhase.values().length];
+    }
+    
+    /**
+     * Begin an operation. If this is the outermost operation, then all
+     * durations are reset.
+     */
+    void begin()
+    {
+        if (depth == 0)
+        {
+            Arrays.fill(durationsNanos, 0);
+            mark = System.nanoTime();
+        }
+        depth++;
+    }
+    
+    /**
+     * Returns whether an operation is currently being measured
+     * 
+     * @return Whether an operation is being measured
+     */
+    boolean isActive()
+    {
+        return depth > 0;
+    }
+    
+    /**
+     * Attribute the time since the start of the operation or the last
+     * call to this method to the given phase
+     * 
+     * @param phase The {@link HistogramPhase}
+     */
+    void stop(HistogramPhase phase)
+    {
+        long now = System.nanoTime();
+        durationsNanos[phase.ordinal()] += now - mark;
+        mark = now;
+    }
+    
+    /**
+     * End an operation
+     * 
+     * @return Whether this was the outermost operation, meaning that the
+     * {@link #getDurationsNanos() durations} should now be reported
+     */
+    boolean end()
+    {
+        if (depth == 0)
+        {
+            return false;
+        }
+        depth--;
+        return depth == 0;
+    }
+    
+    /**
+     * Returns a copy of the durations of the phases, in nanoseconds, 
+     * indexed by the ordinal of the phase
+     * 
+     * @return The durations
+     */
+    long[] getDurationsNanos()
+    {
+        return durationsNanos.clone();
+    }
+}
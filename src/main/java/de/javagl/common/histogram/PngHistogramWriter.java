@@ -0,0 +1,82 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Implementation of a {@link HistogramWriter} that writes PNG images. 
+ * Each thread that calls this writer renders into its own reused
+ * {@link HistogramImage}.
+ */
+final class PngHistogramWriter implements HistogramWriter
+{
+    /**
+     * The image of each thread
+     */
+    private final ThreadLocal<HistogramImage> histogramImages;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param width The width of the images
+     * @param height The height of the images
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive
+     */
+    PngHistogramWriter(int width, int height)
+    {
+        if (width < 1 || height < 1)
+        {
+            throw new IllegalArgumentException(
+                "The size must be positive, but is " + width + "x" + height);
+        }
+        this.histogramImages = ThreadLocal.withInitial(
+            () -> new HistogramImage(width, height));
+    }
+    
+    @Override
+    public String getFileExtension()
+    {
+        return "png";
+    }
+    
+    @Override
+    public void write(HistogramData histogramData, 
+        OutputStream outputStream) throws IOException
+    {
+        Objects.requireNonNull(
+            histogramData, "The histogramData may not be null");
+        Objects.requireNonNull(
+            outputStream, "The outputStream may not be null");
+        HistogramImage histogramImage = histogramImages.get();
+        histogramImage.render(histogramData);
+        histogramImage.writePng(outputStream);
+    }
+}
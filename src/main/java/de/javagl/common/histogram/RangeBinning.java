@@ -0,0 +1,131 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Comparator;
+
+/**
+ * Interface for a {@link Binning} that divides a range of numeric keys
+ * into consecutive bins. The bin of an element never decreases when 
+ * its key increases, so that the elements of a range of bins form a 
+ * contiguous block when the elements are sorted by their keys.
+ *
+ * @param <T> The element type
+ */
+interface RangeBinning<T> extends Binning<T>
+{
+    /**
+     * Returns the minimum value of the range, inclusive
+     * 
+     * @return The minimum value
+     */
+    double getMinimum();
+    
+    /**
+     * Returns the maximum value of the range, inclusive
+     * 
+     * @return The maximum value
+     */
+    double getMaximum();
+    
+    /**
+     * Returns the minimum value of the bin with the given index, inclusive
+     * 
+     * @param bin The bin index
+     * @return The minimum value
+     */
+    double getBinMinimum(int bin);
+    
+    /**
+     * Returns the maximum value of the bin with the given index. This is
+     * inclusive for the last bin. Whether it is inclusive for the other
+     * bins depends on the implementation.
+     * 
+     * @param bin The bin index
+     * @return The maximum value
+     */
+    double getBinMaximum(int bin);
+    
+    /**
+     * Returns the key of the given element, as a <code>double</code> value
+     * 
+     * @param element The element
+     * @return The key
+     */
+    double computeKey(T element);
+    
+    /**
+     * Returns a comparator that compares elements by their keys. This 
+     * may be more precise than comparing the results of 
+     * {@link #computeKey(Object)}. 
+     * 
+     * @return The comparator
+     */
+    Comparator<T> getKeyComparator();
+    
+    /**
+     * Computes the position of the given element relative to the bins.
+     * This is the index of the bin of the element, if it is contained in 
+     * a bin. Otherwise, it is -1 if the key of the element is below the 
+     * range, and the bin count if the key is above the range.
+     * 
+     * @param element The element
+     * @return The position
+     */
+    int computeBinPosition(T element);
+    
+    /**
+     * Compute the bin of each of the given objects, and write it into 
+     * the given array, which must have at least as many elements as 
+     * there are objects. The keys are extracted from the objects in 
+     * chunks. If the given consumer is not <code>null</code>, then it 
+     * receives each chunk of keys, as they are returned by 
+     * {@link #computeKey(Object)}.
+     * 
+     * @param objects The objects
+     * @param bins The array that receives the bins
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     */
+    void computeBins(Iterable<? extends T> objects, int bins[],
+        KeyChunkConsumer keyChunkConsumer);
+    
+    /**
+     * Count the number of the given objects in each bin, and add these
+     * counts to the given array, which must have at least as many elements
+     * as there are bins. The keys are extracted from the objects in 
+     * chunks. If the given consumer is not <code>null</code>, then it 
+     * receives each chunk of keys, as they are returned by 
+     * {@link #computeKey(Object)}.
+     * 
+     * @param objects The objects
+     * @param counts The array that receives the counts
+     * @param keyChunkConsumer The optional {@link KeyChunkConsumer}
+     * @return The number of objects that are not contained in any bin
+     */
+    int countBins(Iterable<? extends T> objects, int counts[],
+        KeyChunkConsumer keyChunkConsumer);
+}
@@ -0,0 +1,67 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * Interface for classes that can create a {@link RangeBinning} for a
+ * given range and number of bins
+ *
+ * @param <B> The binning type
+ */
+interface RangeBinningProvider<B>
+{
+    /**
+     * Create the binning for the given range
+     * 
+     * @param min The minimum value, inclusive
+     * @param max The maximum value, inclusive
+     * @param binCount The requested number of bins
+     * @return The binning
+     * @throws IllegalArgumentException If the bin count is not positive,
+     * or the minimum is larger than the maximum, or the range is empty 
+     * for this type of binning. For binnings where the maximum of each 
+     * bin is inclusive, the minimum may be equal to the maximum.
+     */
+    B createBinning(double min, double max, int binCount);
+    
+    /**
+     * Create the binning for the range that is covered by the bins of
+     * the given binning, from the given start index (inclusive) to the 
+     * given end index (exclusive). The limits of the range are obtained 
+     * from the given binning without converting them to 
+     * <code>double</code> values where this could be imprecise.
+     * 
+     * @param binning The binning
+     * @param fromBin The index of the first bin, inclusive
+     * @param toBin The index of the last bin, exclusive
+     * @param binCount The requested number of bins
+     * @return The binning
+     * @throws IllegalArgumentException If the bin count is not positive,
+     * or the range of the bins is empty for this type of binning
+     */
+    B createBinning(B binning, int fromBin, int toBin, int binCount);
+}
@@ -0,0 +1,277 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index that stores elements sorted by their keys, so that the 
+ * elements in a range of keys or in a range of bins of a 
+ * {@link RangeBinning} can be found with a binary search.<br>
+ * <br>
+ * Elements whose key is <code>NaN</code> are not contained in any range. 
+ * The keys of a {@link LongBinning} are stored as <code>long</code> 
+ * values, so that they are compared exactly, even when they can not be
+ * represented as <code>double</code> values.
+ *
+ * @param <T> The element type
+ */
+final class SortedKeyIndex<T>
+{
+    /**
+     * The smallest <code>double</code> value that is larger than all 
+     * <code>long</code> values, namely 2<sup>63</sup>
+     */
+    private static final double LONG_LIMIT = 0x1p63;
+    
+    /**
+     * The elements, sorted by their keys
+     */
+    private final List<T> sortedElements;
+    
+    /**
+     * The keys of the {@link #sortedElements}, or <code>null</code> if
+     * the {@link #longKeys} are used
+     */
+    private final double keys[];
+    
+    /**
+     * The keys of the {@link #sortedElements}, if they have been created
+     * with a {@link LongBinning}, or <code>null</code> otherwise
+     */
+    private final long longKeys[];
+    
+    /**
+     * The number of elements whose key is not <code>NaN</code>. These
+     * are the first elements of the {@link #sortedElements}.
+     */
+    private final int size;
+    
+    /**
+     * Creates a new index for the given elements, using the comparator
+     * and the keys of the given binning. The elements of any binning with 
+     * the same keys may afterwards be looked up in this index.
+     * 
+     * @param elements The elements
+     * @param binning The binning
+     */
+    SortedKeyIndex(Collection<? extends T> elements, RangeBinning<T> binning)
+    {
+        @SuppressWarnings("unchecked")
+        T array[] = (T[]) elements.toArray();
+        Arrays.sort(array, binning.getKeyComparator());
+        this.sortedElements = Arrays.asList(array);
+        if (binning instanceof LongBinning<?>)
+        {
+            LongBinning<T> longBinning = (LongBinning<T>) binning;
+            this.keys = null;
+            this.longKeys = new long[array.length];
+            for (int i = 0; i < array.length; i++)
+            {
+                longKeys[i] = longBinning.computeLongKey(array[i]);
+            }
+            this.size = array.length;
+        }
+        else
+        {
+            this.keys = new double[array.length];
+            this.longKeys = null;
+            for (int i = 0; i < array.length; i++)
+            {
+                keys[i] = binning.computeKey(array[i]);
+            }
+            int n = array.length;
+            while (n > 0 && Double.isNaN(keys[n - 1]))
+            {
+                n--;
+            }
+            this.size = n;
+        }
+    }
+    
+    /**
+     * Returns the number of elements whose key is not <code>NaN</code>
+     * 
+     * @return The size
+     */
+    int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns the position of the first element whose key is not smaller 
+     * than the given value, or the {@link #size()} if there is no such 
+     * element
+     * 
+     * @param value The value
+     * @return The position
+     */
+    int lowerBound(double value)
+    {
+        if (longKeys != null)
+        {
+            if (Double.isNaN(value) || value <= Long.MIN_VALUE)
+            {
+                return 0;
+            }
+            if (value >= LONG_LIMIT)
+            {
+                return size;
+            }
+            return longLowerBound((long) Math.ceil(value));
+        }
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < value)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns the position of the first element whose key is larger 
+     * than the given value, or the {@link #size()} if there is no such 
+     * element
+     * 
+     * @param value The value
+     * @return The position
+     */
+    int upperBound(double value)
+    {
+        if (longKeys != null)
+        {
+            if (Double.isNaN(value) || value < Long.MIN_VALUE)
+            {
+                return 0;
+            }
+            if (value >= LONG_LIMIT)
+            {
+                return size;
+            }
+            return longLowerBound((long) Math.floor(value) + 1);
+        }
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= value)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns the position of the first element whose key is not smaller 
+     * than the given value, or the {@link #size()} if there is no such 
+     * element, for the {@link #longKeys}
+     * 
+     * @param value The value
+     * @return The position
+     */
+    private int longLowerBound(long value)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (longKeys[mid] < value)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns the position of the first element whose 
+     * {@link RangeBinning#computeBinPosition(Object) bin position} in the 
+     * given binning is not smaller than the given bin, or the 
+     * {@link #size()} if there is no such element. The binning must use 
+     * the same keys as the binning that this index was created with.
+     * 
+     * @param binning The binning
+     * @param bin The bin index
+     * @return The position
+     */
+    int binBound(RangeBinning<T> binning, int bin)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            T element = sortedElements.get(mid);
+            if (binning.computeBinPosition(element) < bin)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns an unmodifiable view on the elements between the given 
+     * positions
+     * 
+     * @param from The first position, inclusive
+     * @param to The last position, exclusive
+     * @return The elements
+     */
+    List<T> getElements(int from, int to)
+    {
+        return Collections.unmodifiableList(sortedElements.subList(from, to));
+    }
+}
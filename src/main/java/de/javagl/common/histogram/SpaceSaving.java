@@ -0,0 +1,221 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementation of the Space-Saving algorithm for finding the most 
+ * frequent keys in a stream of keys, using a bounded number of counters.
+ * <br>
+ * <br>
+ * The count that is estimated for a monitored key is never smaller than
+ * its true count. Every key that occurs more often than the smallest 
+ * counter value is guaranteed to be monitored.
+ */
+final class SpaceSaving
+{
+    /**
+     * The maximum number of monitored keys
+     */
+    private final int capacity;
+    
+    /**
+     * The slot index for each monitored key
+     */
+    private final Map<Object, Integer> slots;
+    
+    /**
+     * The key in each slot
+     */
+    private final Object keys[];
+    
+    /**
+     * The count of each slot
+     */
+    private final long counts[];
+    
+    /**
+     * A binary min-heap of the slot indices, ordered by their counts
+     */
+    private final int heap[];
+    
+    /**
+     * The position of each slot in the heap
+     */
+    private final int heapPositions[];
+    
+    /**
+     * The number of slots that are in use
+     */
+    private int size;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param capacity The maximum number of monitored keys
+     * @throws IllegalArgumentException If the capacity is not positive
+     */
+    SpaceSaving(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The capacity must be positive, but is " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<Object, Integer>();
+        this.keys = new Object[capacity];
+        this.counts = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPositions = new int[capacity];
+        this.size = 0;
+    }
+    
+    /**
+     * Add the given count for the given key
+     * 
+     * @param key The key
+     * @param count The count, which must not be negative
+     */
+    void offer(Object key, long count)
+    {
+        Integer slotValue = slots.get(key);
+        if (slotValue != null)
+        {
+            int slot = slotValue;
+            counts[slot] += count;
+            siftDown(heapPositions[slot]);
+            return;
+        }
+        if (size < capacity)
+        {
+            int slot = size;
+            keys[slot] = key;
+            counts[slot] = count;
+            heap[slot] = slot;
+            heapPositions[slot] = slot;
+            slots.put(key, slot);
+            size++;
+            siftUp(slot);
+            return;
+        }
+        
+        // Replace the key with the smallest count
+        int slot = heap[0];
+        slots.remove(keys[slot]);
+        keys[slot] = key;
+        counts[slot] += count;
+        slots.put(key, slot);
+        siftDown(0);
+    }
+    
+    /**
+     * Returns the slot indices of the (at most) <code>k</code> keys with 
+     * the largest counts, in descending order of their counts
+     * 
+     * @param k The maximum number of keys
+     * @return The slot indices
+     */
+    int[] computeTopSlots(int k)
+    {
+        return TopIndices.select(size, slot -> counts[slot], k);
+    }
+    
+    /**
+     * Returns the key in the given slot
+     * 
+     * @param slot The slot index
+     * @return The key
+     */
+    Object getKey(int slot)
+    {
+        return keys[slot];
+    }
+    
+    /**
+     * Move the heap entry at the given position up until the heap 
+     * property is restored
+     * 
+     * @param position The heap position
+     */
+    private void siftUp(int position)
+    {
+        int p = position;
+        int slot = heap[p];
+        while (p > 0)
+        {
+            int parent = (p - 1) >>> 1;
+            int parentSlot = heap[parent];
+            if (counts[parentSlot] <= counts[slot])
+            {
+                break;
+            }
+            heap[p] = parentSlot;
+            heapPositions[parentSlot] = p;
+            p = parent;
+        }
+        heap[p] = slot;
+        heapPositions[slot] = p;
+    }
+    
+    /**
+     * Move the heap entry at the given position down until the heap 
+     * property is restored
+     * 
+     * @param position The heap position
+     */
+    private void siftDown(int position)
+    {
+        int p = position;
+        int slot = heap[p];
+        while (true)
+        {
+            int child = 2 * p + 1;
+            if (child >= size)
+            {
+                break;
+            }
+            if (child + 1 < size && 
+                counts[heap[child + 1]] < counts[heap[child]])
+            {
+                child++;
+            }
+            int childSlot = heap[child];
+            if (counts[slot] <= counts[childSlot])
+            {
+                break;
+            }
+            heap[p] = childSlot;
+            heapPositions[childSlot] = p;
+            p = child;
+        }
+        heap[p] = slot;
+        heapPositions[slot] = p;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Implementation of a {@link HistogramWriter} that writes SVG documents.
+ * The document is written directly to the output while the bins are 
+ * visited, without building a document tree in memory.<br>
+ * <br>
+ * The bars of each series (all elements, and the highlighted elements)
+ * are written as a single path that follows the outline of the bars. 
+ * Adjacent bins whose bar heights differ by at most the merge tolerance
+ * are merged into one segment of this path, with the height of the 
+ * first bin of the segment. With a tolerance of 0, only bins with equal
+ * heights are merged, which does not change the appearance.
+ */
+final class SvgHistogramWriter implements HistogramWriter
+{
+    /**
+     * The font size for the axis labels
+     */
+    private static final int FONT_SIZE = 10;
+    
+    /**
+     * The space that is reserved for the axis labels
+     */
+    private static final int MARGIN = 40;
+    
+    /**
+     * The width of the documents
+     */
+    private final int width;
+    
+    /**
+     * The height of the documents
+     */
+    private final int height;
+    
+    /**
+     * The maximum difference of the bar heights of bins that are merged
+     */
+    private final double mergeTolerance;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param width The width of the documents
+     * @param height The height of the documents
+     * @param mergeTolerance The maximum difference of the bar heights of 
+     * adjacent bins that are merged, in the units of the document
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive, or the tolerance is negative or not finite
+     */
+    SvgHistogramWriter(int width, int height, double mergeTolerance)
+    {
+        if (width < 1 || height < 1)
+        {
+            throw new IllegalArgumentException(
+                "The size must be positive, but is " + width + "x" + height);
+        }
+        if (!(mergeTolerance >= 0.0) || Double.isInfinite(mergeTolerance))
+        {
+            throw new IllegalArgumentException(
+                "The mergeTolerance must be a non-negative finite value, "
+                + "but is " + mergeTolerance);
+        }
+        this.width = width;
+        this.height = height;
+        this.mergeTolerance = mergeTolerance;
+    }
+    
+    @Override
+    public String getFileExtension()
+    {
+        return "svg";
+    }
+    
+    @Override
+    public void write(HistogramData histogramData, 
+        OutputStream outputStream) throws IOException
+    {
+        Objects.requireNonNull(
+            outputStream, "The outputStream may not be null");
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        write(histogramData, writer);
+        writer.flush();
+    }
+    
+    /**
+     * Write the given {@link HistogramData} as an SVG document to the 
+     * given writer. The writer will not be flushed or closed.
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @param writer The writer
+     * @throws IOException If an IO error occurs
+     */
+    void write(HistogramData histogramData, Writer writer) throws IOException
+    {
+        Objects.requireNonNull(
+            histogramData, "The histogramData may not be null");
+        Objects.requireNonNull(writer, "The writer may not be null");
+        
+        int binCount = histogramData.getBinCount();
+        int maximumCount = HistogramImage.computeMaximumCount(histogramData);
+        double left = MARGIN;
+        double top = FONT_SIZE;
+        double right = width - FONT_SIZE;
+        double bottom = height - MARGIN / 2;
+        double plotWidth = Math.max(1.0, right - left);
+        double plotHeight = Math.max(1.0, bottom - top);
+        
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" "
+            + "width=\"" + width + "\" height=\"" + height + "\" "
+            + "viewBox=\"0 0 " + width + " " + height + "\">\n");
+        writer.write("<rect width=\"100%\" height=\"100%\" "
+            + "fill=\"white\"/>\n");
+        if (maximumCount > 0)
+        {
+            double scale = plotHeight / maximumCount;
+            writeBars(histogramData, false, left, bottom, 
+                plotWidth / binCount, scale, writer);
+            writeBars(histogramData, true, left, bottom, 
+                plotWidth / binCount, scale, writer);
+        }
+        writer.write("<path d=\"M" + format(left) + " " + format(top) 
+            + " V" + format(bottom) + " H" + format(right) + "\" "
+            + "fill=\"none\" stroke=\"gray\"/>\n");
+        
+        writer.write("<g font-family=\"sans-serif\" font-size=\"" 
+            + FONT_SIZE + "\">\n");
+        writeText(String.valueOf(maximumCount), left - 3, top + 4, 
+            "end", writer);
+        writeText("0", left - 3, bottom, "end", writer);
+        if (binCount > 0)
+        {
+            double y = bottom + FONT_SIZE + 3;
+            writeText(HistogramImage.firstLine(histogramData.getBinLabel(0)), 
+                left, y, "start", writer);
+            writeText(HistogramImage.lastLine(
+                histogramData.getBinLabel(binCount - 1)), 
+                right, y, "end", writer);
+        }
+        writer.write("</g>\n");
+        writer.write("</svg>\n");
+    }
+    
+    /**
+     * Write the path for the bars of one series. The path starts at the 
+     * base line, follows the tops of the bars, and returns to the base 
+     * line. A new vertical segment is only started when the height 
+     * differs from the height of the current segment by more than the 
+     * {@link #mergeTolerance}.
+     * 
+     * @param histogramData The {@link HistogramData}
+     * @param highlighted Whether the highlighted counts should be written
+     * @param left The x-coordinate of the first bin
+     * @param bottom The y-coordinate of the base line
+     * @param binWidth The width of one bin
+     * @param scale The factor for converting counts into heights
+     * @param writer The writer
+     * @throws IOException If an IO error occurs
+     */
+    private void writeBars(HistogramData histogramData, boolean highlighted,
+        double left, double bottom, double binWidth, double scale, 
+        Writer writer) throws IOException
+    {
+        Color color = highlighted ? 
+            HistogramImage.HIGHLIGHTED_COLOR : HistogramImage.ELEMENTS_COLOR;
+        writer.write("<path fill=\"" + toHex(color) + "\" d=\"M");
+        writer.write(format(left));
+        writer.write(" ");
+        writer.write(format(bottom));
+        double currentHeight = 0.0;
+        int binCount = histogramData.getBinCount();
+        for (int bin = 0; bin < binCount; bin++)
+        {
+            int count = highlighted ? 
+                histogramData.getHighlightedCount(bin) : 
+                histogramData.getCount(bin);
+            double h = count * scale;
+            if (Math.abs(h - currentHeight) > mergeTolerance || 
+                (h == 0.0) != (currentHeight == 0.0))
+            {
+                if (bin > 0)
+                {
+                    writer.write(" H");
+                    writer.write(format(left + bin * binWidth));
+                }
+                writer.write(" V");
+                writer.write(format(bottom - h));
+                currentHeight = h;
+            }
+        }
+        writer.write(" H");
+        writer.write(format(left + binCount * binWidth));
+        writer.write(" V");
+        writer.write(format(bottom));
+        writer.write(" Z\"/>\n");
+    }
+    
+    /**
+     * Write a text element with the given properties
+     * 
+     * @param text The text
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param anchor The text anchor
+     * @param writer The writer
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeText(String text, double x, double y, 
+        String anchor, Writer writer) throws IOException
+    {
+        writer.write("<text x=\"" + format(x) + "\" y=\"" + format(y) 
+            + "\" text-anchor=\"" + anchor + "\">");
+        writer.write(escape(text));
+        writer.write("</text>\n");
+    }
+    
+    /**
+     * Format the given coordinate with at most two decimal digits
+     * 
+     * @param value The value
+     * @return The formatted value
+     */
+    private static String format(double value)
+    {
+        long hundredths = Math.round(value * 100.0);
+        if (hundredths % 100 == 0)
+        {
+            return String.valueOf(hundredths / 100);
+        }
+        return String.format(Locale.ENGLISH, "%.2f", hundredths / 100.0);
+    }
+    
+    /**
+     * Returns the hexadecimal representation of the given color
+     * 
+     * @param color The color
+     * @return The string
+     */
+    private static String toHex(Color color)
+    {
+        return String.format("#%06X", color.getRGB() & 0xFFFFFF);
+    }
+    
+    /**
+     * Escape the characters of the given string that may not appear in
+     * XML character data
+     * 
+     * @param s The string
+     * @return The escaped string
+     */
+    private static String escape(String s)
+    {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Utility methods for selecting the indices of the largest values of a
+ * sequence, without sorting all of them
+ */
+final class TopIndices
+{
+    /**
+     * Returns the indices of the (at most) <code>k</code> largest values
+     * among the given number of values, in descending order of the values.
+     * Indices with equal values are returned in ascending order.<br>
+     * <br>
+     * This requires O(n log k) time and O(k) additional memory.
+     * 
+     * @param n The number of values
+     * @param values The function that provides the value for each index
+     * @param k The maximum number of indices
+     * @return The indices
+     */
+    static int[] select(int n, IntToLongFunction values, int k)
+    {
+        int size = Math.max(0, Math.min(k, n));
+        if (size == 0)
+        {
+            return new int[0];
+        }
+        
+        // A min-heap of the indices that have been selected so far, 
+        // with the smallest value at the root
+        int heap[] = new int[size];
+        long heapValues[] = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            heap[i] = i;
+            heapValues[i] = values.applyAsLong(i);
+            siftUp(heap, heapValues, i);
+        }
+        for (int i = size; i < n; i++)
+        {
+            long value = values.applyAsLong(i);
+            if (value > heapValues[0])
+            {
+                heap[0] = i;
+                heapValues[0] = value;
+                siftDown(heap, heapValues, 0, size);
+            }
+        }
+        int result[] = new int[size];
+        for (int remaining = size; remaining > 0; remaining--)
+        {
+            result[remaining - 1] = heap[0];
+            heap[0] = heap[remaining - 1];
+            heapValues[0] = heapValues[remaining - 1];
+            siftDown(heap, heapValues, 0, remaining - 1);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns whether the heap entry at the first position is smaller 
+     * than the one at the second position, considering an entry with 
+     * an equal value and a larger index as the smaller one
+     * 
+     * @param heap The heap indices
+     * @param heapValues The heap values
+     * @param p0 The first position
+     * @param p1 The second position
+     * @return Whether the first entry is smaller
+     */
+    private static boolean isLess(
+        int heap[], long heapValues[], int p0, int p1)
+    {
+        if (heapValues[p0] != heapValues[p1])
+        {
+            return heapValues[p0] < heapValues[p1];
+        }
+        return heap[p0] > heap[p1];
+    }
+    
+    /**
+     * Move the heap entry at the given position up until the heap 
+     * property is restored
+     * 
+     * @param heap The heap indices
+     * @param heapValues The heap values
+     * @param position The position
+     */
+    private static void siftUp(int heap[], long heapValues[], int position)
+    {
+        int p = position;
+        while (p > 0)
+        {
+            int parent = (p - 1) >>> 1;
+            if (!isLess(heap, heapValues, p, parent))
+            {
+                break;
+            }
+            swap(heap, heapValues, p, parent);
+            p = parent;
+        }
+    }
+    
+    /**
+     * Move the heap entry at the given position down until the heap 
+     * property is restored
+     * 
+     * @param heap The heap indices
+     * @param heapValues The heap values
+     * @param position The position
+     * @param size The size of the heap
+     */
+    private static void siftDown(
+        int heap[], long heapValues[], int position, int size)
+    {
+        int p = position;
+        while (true)
+        {
+            int child = 2 * p + 1;
+            if (child >= size)
+            {
+                break;
+            }
+            if (child + 1 < size && 
+                isLess(heap, heapValues, child + 1, child))
+            {
+                child++;
+            }
+            if (!isLess(heap, heapValues, child, p))
+            {
+                break;
+            }
+            swap(heap, heapValues, p, child);
+            p = child;
+        }
+    }
+    
+    /**
+     * Swap the heap entries at the given positions
+     * 
+     * @param heap The heap indices
+     * @param heapValues The heap values
+     * @param p0 The first position
+     * @param p1 The second position
+     */
+    private static void swap(int heap[], long heapValues[], int p0, int p1)
+    {
+        int index = heap[p0];
+        heap[p0] = heap[p1];
+        heap[p1] = index;
+        long value = heapValues[p0];
+        heapValues[p0] = heapValues[p1];
+        heapValues[p1] = value;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private TopIndices()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
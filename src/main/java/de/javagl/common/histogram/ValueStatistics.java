@@ -0,0 +1,251 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import java.util.Collection;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Statistics of the values that are extracted from a collection of 
+ * elements, which are computed in a single pass. This includes the 
+ * range of the values, and optionally the statistics about their 
+ * distribution that are required by a {@link BinCountRule}: The 
+ * variance (computed with the algorithm by Welford), estimates of the 
+ * quartiles (computed with {@link P2Quantile}), and an 
+ * {@link AdaptiveHistogram}.
+ */
+final class ValueStatistics
+{
+    /**
+     * The number of values, including values that are not finite
+     */
+    private long count;
+    
+    /**
+     * The minimum value
+     */
+    private double min;
+    
+    /**
+     * The maximum value
+     */
+    private double max;
+    
+    /**
+     * The number of finite values
+     */
+    private long finiteCount;
+    
+    /**
+     * The mean of the finite values
+     */
+    private double mean;
+    
+    /**
+     * The sum of the squared differences from the mean
+     */
+    private double m2;
+    
+    /**
+     * The estimator for the first quartile, or <code>null</code>
+     */
+    private final P2Quantile q1;
+    
+    /**
+     * The estimator for the third quartile, or <code>null</code>
+     */
+    private final P2Quantile q3;
+    
+    /**
+     * The fine histogram, or <code>null</code>
+     */
+    private final AdaptiveHistogram fineHistogram;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param withDistribution Whether the quartiles and the fine 
+     * histogram should be computed
+     */
+    ValueStatistics(boolean withDistribution)
+    {
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+        if (withDistribution)
+        {
+            this.q1 = new P2Quantile(0.25);
+            this.q3 = new P2Quantile(0.75);
+            this.fineHistogram = new AdaptiveHistogram();
+        }
+        else
+        {
+            this.q1 = null;
+            this.q3 = null;
+            this.fineHistogram = null;
+        }
+    }
+    
+    /**
+     * Compute the statistics for the values that are extracted from the
+     * given elements, in a single pass
+     * 
+     * @param <T> The element type
+     * 
+     * @param elements The elements
+     * @param valueExtractor The value extractor
+     * @param withDistribution Whether the quartiles and the fine 
+     * histogram should be computed
+     * @return The {@link ValueStatistics}
+     */
+    static <T> ValueStatistics compute(Collection<? extends T> elements, 
+        ToDoubleFunction<? super T> valueExtractor, 
+        boolean withDistribution)
+    {
+        ValueStatistics statistics = new ValueStatistics(withDistribution);
+        for (T element : elements)
+        {
+            statistics.add(valueExtractor.applyAsDouble(element));
+        }
+        return statistics;
+    }
+    
+    /**
+     * Add the given value
+     * 
+     * @param value The value
+     */
+    void add(double value)
+    {
+        count++;
+        if (Double.isNaN(value))
+        {
+            return;
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (!Double.isFinite(value))
+        {
+            return;
+        }
+        finiteCount++;
+        double delta = value - mean;
+        mean += delta / finiteCount;
+        m2 += delta * (value - mean);
+        if (fineHistogram != null)
+        {
+            q1.add(value);
+            q3.add(value);
+            fineHistogram.add(value);
+        }
+    }
+    
+    /**
+     * Returns the number of values
+     * 
+     * @return The number of values
+     */
+    long getCount()
+    {
+        return count;
+    }
+    
+    /**
+     * Returns the minimum value. Values that are <code>NaN</code> are 
+     * ignored. If there are no other values, then this is positive 
+     * infinity.
+     * 
+     * @return The minimum value
+     */
+    double getMin()
+    {
+        return min;
+    }
+    
+    /**
+     * Returns the maximum value. Values that are <code>NaN</code> are 
+     * ignored. If there are no other values, then this is negative 
+     * infinity.
+     * 
+     * @return The maximum value
+     */
+    double getMax()
+    {
+        return max;
+    }
+    
+    /**
+     * Returns the number of finite values
+     * 
+     * @return The number of finite values
+     */
+    long getFiniteCount()
+    {
+        return finiteCount;
+    }
+    
+    /**
+     * Returns the standard deviation of the finite values, or 
+     * <code>NaN</code> if there are fewer than two finite values
+     * 
+     * @return The standard deviation
+     */
+    double getStandardDeviation()
+    {
+        if (finiteCount < 2)
+        {
+            return Double.NaN;
+        }
+        return Math.sqrt(m2 / (finiteCount - 1));
+    }
+    
+    /**
+     * Returns the estimate of the interquartile range of the finite 
+     * values, or <code>NaN</code> if the distribution was not computed
+     * or there are no finite values
+     * 
+     * @return The interquartile range
+     */
+    double getInterquartileRange()
+    {
+        if (fineHistogram == null)
+        {
+            return Double.NaN;
+        }
+        return q3.getQuantile() - q1.getQuantile();
+    }
+    
+    /**
+     * Returns the {@link AdaptiveHistogram} of the finite values, or 
+     * <code>null</code> if the distribution was not computed
+     * 
+     * @return The fine histogram
+     */
+    AdaptiveHistogram getFineHistogram()
+    {
+        return fineHistogram;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+/**
+ * A kernel for computing the bins of many values of a 
+ * {@link NumberBinning} at once, using the Vector API.<br>
+ * <br>
+ * This is the implementation for Java 8, where the Vector API is not 
+ * available. The multi-release JAR contains another implementation 
+ * for Java 17 and above, which uses the Vector API when the 
+ * <code>jdk.incubator.vector</code> module is available at runtime.
+ */
+final class VectorBinningKernel
+{
+    /**
+     * Returns whether the vectorized kernel is available
+     * 
+     * @return Whether the kernel is available
+     */
+    static boolean isAvailable()
+    {
+        return false;
+    }
+    
+    /**
+     * Compute the bins of a prefix of the given values, in the same way 
+     * as {@link NumberBinning#computeBin(double)}, and write them into
+     * the given array, starting at the given offset. Returns the number
+     * of values that have been processed. The remaining values have to
+     * be processed by the caller.
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param min The minimum of the binning
+     * @param max The maximum of the binning
+     * @param binCount The number of bins of the binning
+     * @param bins The array that receives the bins
+     * @param offset The offset in the bins array
+     * @return The number of values that have been processed
+     */
+    static int computeBins(double values[], int count, 
+        double min, double max, int binCount, int bins[], int offset)
+    {
+        return 0;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private VectorBinningKernel()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Methods for emitting JDK Flight Recorder events for the 
+ * {@link HistogramOperation}s.<br>
+ * <br>
+ * This is the implementation for Java 17 and above. It only emits events
+ * when the <code>jdk.jfr</code> module is available at runtime, and the
+ * respective event type is enabled in a running recording.
+ */
+final class FlightRecorderEvents
+{
+    /**
+     * Whether the JDK Flight Recorder module is available
+     */
+    private static final boolean AVAILABLE = ModuleLayer.boot()
+        .findModule("jdk.jfr").isPresent();
+    
+    /**
+     * Begin an event for the given operation. Returns an object that 
+     * has to be passed to {@link #end(Object, int, int)} when the 
+     * operation is finished. If no event will be recorded, then this 
+     * is <code>null</code>.
+     * 
+     * @param operation The {@link HistogramOperation}
+     * @return The event, or <code>null</code>
+     */
+    static Object begin(HistogramOperation operation)
+    {
+        if (!AVAILABLE)
+        {
+            return null;
+        }
+        return Events.begin(operation);
+    }
+    
+    /**
+     * End the given event, and commit it if it should be recorded. If the 
+     * given event is <code>null</code>, then nothing is done.
+     * 
+     * @param event The event that was returned by 
+     * {@link #begin(HistogramOperation)}
+     * @param elementCount The number of elements of the histogram
+     * @param binCount The number of bins of the histogram
+     */
+    static void end(Object event, int elementCount, int binCount)
+    {
+        if (event != null)
+        {
+            Events.end(event, elementCount, binCount);
+        }
+    }
+    
+    /**
+     * The actual events. This is a separate class, so that the classes
+     * of the <code>jdk.jfr</code> module are only loaded when the module 
+     * is available.
+     */
+    private static final class Events
+    {
+        /**
+         * Begin an event for the given operation
+         * 
+         * @param operation The operation
+         * @return The event, or <code>null</code> if the event type is 
+         * not enabled
+         */
+        static Object begin(HistogramOperation operation)
+        {
+            HistogramEvent event = create(operation);
+            if (!event.isEnabled())
+            {
+                return null;
+            }
+            event.begin();
+            return event;
+        }
+        
+        /**
+         * End the given event, and commit it if it should be recorded
+         * 
+         * @param object The event
+         * @param elementCount The number of elements
+         * @param binCount The number of bins
+         */
+        static void end(Object object, int elementCount, int binCount)
+        {
+            HistogramEvent event = (HistogramEvent) object;
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.elementCount = elementCount;
+                event.binCount = binCount;
+                event.commit();
+            }
+        }
+        
+        /**
+         * Create the event for the given operation
+         * 
+         * @param operation The operation
+         * @return The event
+         */
+        private static HistogramEvent create(HistogramOperation operation)
+        {
+            switch (operation)
+            {
+                case SET_ELEMENTS:
+                    return new SetElementsEvent();
+                case SET_BINNING:
+                    return new SetBinningEvent();
+                case UPDATE:
+                    return new UpdateEvent();
+                case CLICK:
+                    return new ClickEvent();
+                case PAINT:
+                    return new PaintEvent();
+                default:
+                    throw new IllegalArgumentException(
+                        "Unknown operation: " + operation);
+            }
+        }
+    }
+    
+    /**
+     * Base class for the events of a histogram
+     */
+    @Category({ "Java Application", "Histogram" })
+    private abstract static class HistogramEvent extends Event
+    {
+        /**
+         * The number of elements
+         */
+        @Label("Element Count")
+        int elementCount;
+        
+        /**
+         * The number of bins
+         */
+        @Label("Bin Count")
+        int binCount;
+    }
+    
+    /**
+     * The event for {@link HistogramOperation#SET_ELEMENTS}
+     */
+    @Name("de.javagl.common.histogram.SetElements")
+    @Label("Histogram Set Elements")
+    @Description("The elements of a histogram have been set")
+    private static final class SetElementsEvent extends HistogramEvent
+    {
+        // No additional fields
+    }
+    
+    /**
+     * The event for {@link HistogramOperation#SET_BINNING}
+     */
+    @Name("de.javagl.common.histogram.SetBinning")
+    @Label("Histogram Set Binning")
+    @Description("The binning of a histogram has been set")
+    private static final class SetBinningEvent extends HistogramEvent
+    {
+        // No additional fields
+    }
+    
+    /**
+     * The event for {@link HistogramOperation#UPDATE}
+     */
+    @Name("de.javagl.common.histogram.Update")
+    @Label("Histogram Update")
+    @Description("The elements of a histogram have been assigned to "
+        + "the bins, and the chart has been updated")
+    private static final class UpdateEvent extends HistogramEvent
+    {
+        // No additional fields
+    }
+    
+    /**
+     * The event for {@link HistogramOperation#CLICK}
+     */
+    @Name("de.javagl.common.histogram.Click")
+    @Label("Histogram Click")
+    @Description("A click on a histogram bin has been handled, including "
+        + "the computation of the elements in the bin")
+    private static final class ClickEvent extends HistogramEvent
+    {
+        // No additional fields
+    }
+    
+    /**
+     * The event for {@link HistogramOperation#PAINT}
+     */
+    @Name("de.javagl.common.histogram.Paint")
+    @Label("Histogram Paint")
+    @Description("The chart of a histogram has been drawn")
+    private static final class PaintEvent extends HistogramEvent
+    {
+        // No additional fields
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private FlightRecorderEvents()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * www.javagl.de - Histogram
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.common.histogram;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A kernel for computing the bins of many values of a 
+ * {@link NumberBinning} at once, using the Vector API.<br>
+ * <br>
+ * This is the implementation for Java 17 and above. It is only used
+ * when the <code>jdk.incubator.vector</code> module is available at 
+ * runtime, for example, when the application was started with
+ * <code>--add-modules jdk.incubator.vector</code>. 
+ */
+final class VectorBinningKernel
+{
+    /**
+     * Whether the Vector API module is available
+     */
+    private static final boolean AVAILABLE = ModuleLayer.boot()
+        .findModule("jdk.incubator.vector").isPresent();
+    
+    /**
+     * Returns whether the vectorized kernel is available
+     * 
+     * @return Whether the kernel is available
+     */
+    static boolean isAvailable()
+    {
+        return AVAILABLE;
+    }
+    
+    /**
+     * Compute the bins of a prefix of the given values, in the same way 
+     * as {@link NumberBinning#computeBin(double)}, and write them into
+     * the given array, starting at the given offset. Returns the number
+     * of values that have been processed. The remaining values have to
+     * be processed by the caller.
+     * 
+     * @param values The values
+     * @param count The number of values
+     * @param min The minimum of the binning
+     * @param max The maximum of the binning
+     * @param binCount The number of bins of the binning
+     * @param bins The array that receives the bins
+     * @param offset The offset in the bins array
+     * @return The number of values that have been processed
+     */
+    static int computeBins(double values[], int count, 
+        double min, double max, int binCount, int bins[], int offset)
+    {
+        if (!AVAILABLE)
+        {
+            return 0;
+        }
+        return Kernel.computeBins(
+            values, count, min, max, binCount, bins, offset);
+    }
+    
+    /**
+     * The actual kernel. This is a separate class, so that the classes
+     * of the Vector API are only loaded when the module is available.
+     */
+    private static final class Kernel
+    {
+        /**
+         * The species for the values. This is the preferred species of 
+         * the platform, unless the {@link #INT_SPECIES} with the same 
+         * number of lanes does not have a standard shape. Then, vectors
+         * with 4 lanes are used.
+         */
+        private static final VectorSpecies<Double> DOUBLE_SPECIES;
+        
+        /**
+         * The species for the bins, with the same number of lanes as 
+         * the {@link #DOUBLE_SPECIES}
+         */
+        private static final VectorSpecies<Integer> INT_SPECIES;
+        
+        static
+        {
+            VectorSpecies<Double> preferred = DoubleVector.SPECIES_PREFERRED;
+            int laneCount = preferred.length();
+            if (laneCount >= 2 && laneCount <= 8)
+            {
+                DOUBLE_SPECIES = preferred;
+                INT_SPECIES = VectorSpecies.of(int.class, 
+                    VectorShape.forBitSize(laneCount * Integer.SIZE));
+            }
+            else
+            {
+                DOUBLE_SPECIES = DoubleVector.SPECIES_256;
+                INT_SPECIES = IntVector.SPECIES_128;
+            }
+        }
+        
+        /**
+         * Implementation of 
+         * {@link VectorBinningKernel#computeBins}
+         * 
+         * @param values The values
+         * @param count The number of values
+         * @param min The minimum of the binning
+         * @param max The maximum of the binning
+         * @param binCount The number of bins of the binning
+         * @param bins The array that receives the bins
+         * @param offset The offset in the bins array
+         * @return The number of values that have been processed
+         */
+        static int computeBins(double values[], int count, 
+            double min, double max, int binCount, int bins[], int offset)
+        {
+            // The operations are the same as in NumberBinning#computeBin, 
+            // in the same order, so that the results are bitwise equal
+            double range = max - min;
+            double scale = binCount;
+            double maxPlusEpsilon = max + NumberBinning.EPSILON;
+            int upper = DOUBLE_SPECIES.loopBound(count);
+            int i = 0;
+            for (; i < upper; i += DOUBLE_SPECIES.length())
+            {
+                DoubleVector v = 
+                    DoubleVector.fromArray(DOUBLE_SPECIES, values, i);
+                DoubleVector scaled = v.sub(min).div(range).mul(scale)
+                    .add(NumberBinning.EPSILON);
+                
+                // The special cases are resolved on the double values, 
+                // so that no masks have to be cast between species. The
+                // values -1 and binCount-1 are converted exactly.
+                VectorMask<Double> below = 
+                    scaled.compare(VectorOperators.LT, 0.0).or(
+                        scaled.test(VectorOperators.IS_NAN));
+                VectorMask<Double> above = 
+                    scaled.compare(VectorOperators.GE, scale);
+                VectorMask<Double> atLeastMax = 
+                    v.compare(VectorOperators.GE, max);
+                VectorMask<Double> belowMaxPlusEpsilon = 
+                    v.compare(VectorOperators.LT, maxPlusEpsilon);
+                DoubleVector clamped = scaled
+                    .blend(-1.0, below.or(above))
+                    .blend(scale - 1.0, 
+                        above.or(atLeastMax).and(belowMaxPlusEpsilon));
+                IntVector b = (IntVector) clamped.convertShape(
+                    VectorOperators.D2I, INT_SPECIES, 0);
+                b.intoArray(bins, offset + i);
+            }
+            return i;
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private VectorBinningKernel()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
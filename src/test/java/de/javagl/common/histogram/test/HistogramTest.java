@@ -16,6 +16,7 @@ import java.util.function.Function;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
+import de.javagl.common.histogram.ElementRetention;
 import de.javagl.common.histogram.Histogram;
 import de.javagl.common.histogram.HistogramMouseEvent;
 import de.javagl.common.histogram.HistogramMouseListener;
@@ -30,6 +31,7 @@ public class HistogramTest
 {
     public static void main(String[] args)
     {
+        checkLongCountsWithoutElements();
         SwingUtilities.invokeLater(() -> createAndShowGui());
     }
 
@@ -82,6 +84,31 @@ public class HistogramTest
     }
     
     
+    private static void checkLongCountsWithoutElements()
+    {
+        // Keys above 2^53 that can not be represented as double values,
+        // counted without retaining the elements
+        List<Long> elements = new ArrayList<Long>();
+        for (int i = 0; i < 1000; i++)
+        {
+            elements.add(1_700_000_000_000_000_001L + i);
+        }
+        NumberHistogram<Long> histogram = 
+            Histograms.createForLong(elements, Long::longValue);
+        histogram.setElementRetention(ElementRetention.NONE);
+        histogram.setBinCount(10);
+        for (int bin = 0; bin < histogram.getBinCount(); bin++)
+        {
+            int count = histogram.getCount(bin, bin + 1);
+            if (count != 100 || histogram.getCountErrorBound() != 0)
+            {
+                throw new IllegalStateException("Expected 100 elements "
+                    + "in bin " + bin + ", but got " + count + " with an "
+                    + "error bound of " + histogram.getCountErrorBound());
+            }
+        }
+    }
+    
     private static Histogram<Person> createPersonHistogram()
     {
         Random random = new Random(0);